@@ -20,6 +20,9 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.spdx.spdxeclipse.preferences.SpdxProjectPreferences;
+import org.spdx.spdxeclipse.project.StandardLicenseCatalog;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyCache;
 
 /**
  * The activator class controls the plug-in life cycle
@@ -45,6 +48,9 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		SpdxFilePropertyCache.startListening();
+		SpdxProjectPreferences.startListening();
+		StandardLicenseCatalog.warmInBackground();
 	}
 
 	/*
@@ -52,6 +58,8 @@ public class Activator extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		SpdxProjectPreferences.stopListening();
+		SpdxFilePropertyCache.stopListening();
 		plugin = null;
 		super.stop(context);
 	}
@@ -79,4 +87,8 @@ public class Activator extends AbstractUIPlugin {
 	public void logError(String msg, Exception e) {
 		getLog().log(new Status(Status.ERROR, PLUGIN_ID, Status.OK, msg, e));
 	}
+	
+	public void logInfo(String msg) {
+		getLog().log(new Status(Status.INFO, PLUGIN_ID, Status.OK, msg, null));
+	}
 }
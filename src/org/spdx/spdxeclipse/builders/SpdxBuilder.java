@@ -17,7 +17,9 @@
 package org.spdx.spdxeclipse.builders;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -26,13 +28,17 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.project.SpdxChangeSet;
 import org.spdx.spdxeclipse.project.SpdxProject;
 import org.spdx.spdxeclipse.project.SpdxProjectException;
 import org.spdx.spdxeclipse.project.SpdxProjectFactory;
+import org.spdx.spdxeclipse.properties.SpdxProjectProperties;
 
 /**
  * Project builder to maintain the SPDX file for projects with SPDX enabled
@@ -41,14 +47,36 @@ import org.spdx.spdxeclipse.project.SpdxProjectFactory;
  */
 public class SpdxBuilder extends IncrementalProjectBuilder {
 	
+	/**
+	 * Collects the file changes into a change set which is applied to the SPDX project
+	 * after the whole delta has been visited
+	 */
 	public class SpdxDeltaVisitor implements IResourceDeltaVisitor {
 		
+		/**
+		 * Delta flags for changes which can affect the SPDX file information.  Changes
+		 * to only markers, sync info or persistent properties are ignored.
+		 */
+		static final int CONTENT_CHANGE_FLAGS = IResourceDelta.CONTENT | IResourceDelta.REPLACED |
+				IResourceDelta.ENCODING | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+		
 		SpdxProject project;
+		SpdxChangeSet changeSet;
 		IProgressMonitor monitor;
+		IResourceDelta rootDelta;
 
-		public SpdxDeltaVisitor(SpdxProject project, IProgressMonitor monitor) {
+		/**
+		 * @param project
+		 * @param changeSet
+		 * @param monitor
+		 * @param rootDelta Delta the visitor is accepted by - used to find the delta for the other end of a move
+		 */
+		public SpdxDeltaVisitor(SpdxProject project, SpdxChangeSet changeSet, IProgressMonitor monitor,
+				IResourceDelta rootDelta) {
 			this.project = project;
+			this.changeSet = changeSet;
 			this.monitor = monitor;
+			this.rootDelta = rootDelta;
 		}
 
 		@Override
@@ -59,25 +87,71 @@ public class SpdxBuilder extends IncrementalProjectBuilder {
 			}
 			if (delta.getResource().getType() == IResource.FILE) {
 				IFile file = (IFile)(delta.getResource());
-
-				try {
-					if (project.fileShouldBeIncluded(file)) {
-						if (delta.getKind() == IResourceDelta.ADDED) {
-							project.addFile(file, monitor);
-						} else if (delta.getKind() == IResourceDelta.CHANGED ||
-								delta.getKind() == IResourceDelta.REPLACED) {
-							project.updateFile(file, monitor);
-						} else if (delta.getKind() == IResourceDelta.REMOVED) {
-							project.removeFile(file, monitor);
+				if (project.fileShouldBeIncluded(file)) {
+					// a file moved over an existing file is a CHANGED delta with the REPLACED and MOVED_FROM flags
+					IFile movedFrom = getMovedFromFile(delta);
+					if (movedFrom != null) {
+						changeSet.fileMoved(movedFrom, file);
+					} else if (delta.getKind() == IResourceDelta.ADDED) {
+						changeSet.fileAdded(file);
+					} else if (delta.getKind() == IResourceDelta.CHANGED) {
+						if ((delta.getFlags() & CONTENT_CHANGE_FLAGS) != 0) {
+							changeSet.fileChanged(file);
 						}
+					} else if (delta.getKind() == IResourceDelta.REMOVED) {
+						if (!isRecordedMoveDestination(file, delta)) {
+							changeSet.fileRemoved(file);
+						}	// otherwise the move is handled by the delta for the destination file
 					}
-				} catch (SpdxProjectException ex) {
-					error(file, ex.getMessage(), ex);
 				}
 			}
 			return true;
 		}
 		
+		/**
+		 * @param delta
+		 * @return the file within the project the delta's file was moved from or null if
+		 * the delta is not for the destination of a move within the project
+		 */
+		private IFile getMovedFromFile(IResourceDelta delta) {
+			if (delta.getKind() != IResourceDelta.ADDED && delta.getKind() != IResourceDelta.CHANGED) {
+				return null;
+			}
+			return getMovedFile(delta.getFlags(), IResourceDelta.MOVED_FROM, delta.getMovedFromPath());
+		}
+		
+		/**
+		 * @param file removed file
+		 * @param delta delta for the removed file
+		 * @return true if the file was moved and the delta for the destination is recorded
+		 * as a move from this file
+		 */
+		private boolean isRecordedMoveDestination(IFile file, IResourceDelta delta) {
+			IFile movedTo = getMovedFile(delta.getFlags(), IResourceDelta.MOVED_TO, delta.getMovedToPath());
+			if (movedTo == null || !project.fileShouldBeIncluded(movedTo)) {
+				return false;
+			}
+			IResourceDelta movedToDelta = rootDelta.findMember(movedTo.getFullPath().removeFirstSegments(
+					rootDelta.getFullPath().segmentCount()));
+			return movedToDelta != null && file.equals(getMovedFromFile(movedToDelta));
+		}
+		
+		/**
+		 * @param flags delta flags
+		 * @param moveFlag MOVED_FROM or MOVED_TO
+		 * @param path moved from or moved to path
+		 * @return the file at the other end of a move within the same project or null if the file was not moved within the project
+		 */
+		private IFile getMovedFile(int flags, int moveFlag, IPath path) {
+			if ((flags & moveFlag) == 0 || path == null) {
+				return null;
+			}
+			if (!project.getProject().getFullPath().isPrefixOf(path)) {
+				return null;
+			}
+			return ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+		}
+		
 	}
 	
 	public static final String ID = Activator.PLUGIN_ID + "."  + "spdxBuilder";
@@ -114,11 +188,13 @@ public class SpdxBuilder extends IncrementalProjectBuilder {
 		if (kind == IncrementalProjectBuilder.FULL_BUILD || 
 				kind == IncrementalProjectBuilder.CLEAN_BUILD ||
 				spdxProject.isFileRescanRequired()) {
-			fullBuild(spdxProject, monitor);
+			fullBuild(spdxProject, kind, monitor);
 		} else {
 			IResourceDelta delta = this.getDelta(getProject());
 			if (delta == null) {
-				fullBuild(spdxProject, monitor);
+				fullBuild(spdxProject, kind, monitor);
+			} else if (!spdxProject.isDirty() && isOnlySpdxFileChanged(delta)) {
+				return null;	// most likely our own save of the SPDX file
 			} else {
 				incrementalBuild(spdxProject, delta, monitor);
 			}
@@ -131,20 +207,94 @@ public class SpdxBuilder extends IncrementalProjectBuilder {
 		return null;
 	}
 
+	/**
+	 * @param delta
+	 * @return true if the only file changes in the delta which can affect the SPDX
+	 * information are changes to the SPDX file itself
+	 */
+	private boolean isOnlySpdxFileChanged(IResourceDelta delta) {
+		final String spdxFileName;
+		try {
+			spdxFileName = SpdxProjectProperties.getSpdxFileName(getProject());
+		} catch (CoreException e) {
+			return false;
+		}
+		final boolean[] otherFileChanged = new boolean[] {false};
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+
+				@Override
+				public boolean visit(IResourceDelta childDelta) throws CoreException {
+					if (otherFileChanged[0]) {
+						return false;
+					}
+					if (childDelta.getResource().getType() == IResource.FILE) {
+						if (!childDelta.getResource().getProjectRelativePath().toString().equals(spdxFileName) &&
+								(childDelta.getKind() != IResourceDelta.CHANGED ||
+								(childDelta.getFlags() & SpdxDeltaVisitor.CONTENT_CHANGE_FLAGS) != 0)) {
+							otherFileChanged[0] = true;
+						}
+						return false;
+					}
+					return true;
+				}
+				
+			});
+		} catch (CoreException e) {
+			return false;
+		}
+		return !otherFileChanged[0];
+	}
+
 	private void incrementalBuild(SpdxProject spdxProject, IResourceDelta delta, IProgressMonitor monitor) {
 		if (spdxProject.isCreated()) {
+			SpdxChangeSet changeSet = new SpdxChangeSet();
 			try {
-				delta.accept(new SpdxDeltaVisitor(spdxProject, monitor));
+				delta.accept(new SpdxDeltaVisitor(spdxProject, changeSet, monitor, delta));
 			} catch (CoreException e) {
 				error(delta.getResource(), "Error performing incremental build", e);
+				return;
+			}
+			if (monitor.isCanceled()) {
+				return;
+			}
+			try {
+				spdxProject.applyChanges(changeSet, monitor);
+			} catch (SpdxProjectException e) {
+				error(delta.getResource(), "Error performing incremental build", e);
 			}
+			fileErrors(changeSet);
+		}
+	}
+	
+	/**
+	 * Create problem markers for the errors for individual files
+	 * @param changeSet
+	 */
+	private void fileErrors(SpdxChangeSet changeSet) {
+		Iterator<Entry<IFile, SpdxProjectException>> iter = changeSet.getErrors().entrySet().iterator();
+		while (iter.hasNext()) {
+			Entry<IFile, SpdxProjectException> fileError = iter.next();
+			error(fileError.getKey(), fileError.getValue().getMessage(), fileError.getValue());
 		}
 	}
 
-	private void fullBuild(SpdxProject spdxProject, IProgressMonitor monitor) {
+	/**
+	 * Bring the SPDX files in sync with the project.  Clean builds rebuild the SPDX
+	 * document from the project resources while other builds only apply the differences
+	 * between the SPDX document and the project resources.
+	 * @param spdxProject
+	 * @param kind
+	 * @param monitor
+	 */
+	private void fullBuild(SpdxProject spdxProject, int kind, IProgressMonitor monitor) {
 		try {
 			if (spdxProject.isCreated()) {
-				spdxProject.refresh(monitor);
+				if (kind == IncrementalProjectBuilder.CLEAN_BUILD) {
+					spdxProject.refresh(monitor);
+				} else {
+					fileErrors(spdxProject.reconcile(monitor));
+				}
 			}
 		} catch (SpdxProjectException e) {
 			error(getProject(), "SPDX project error building SPDX project", e);
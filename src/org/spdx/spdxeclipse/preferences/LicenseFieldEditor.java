@@ -16,18 +16,12 @@
 */
 package org.spdx.spdxeclipse.preferences;
 
-import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
-
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.preference.FieldEditor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.ui.PlatformUI;
-import org.spdx.rdfparser.SPDXLicenseInfoFactory;
 import org.spdx.rdfparser.SpdxRdfConstants;
+import org.spdx.spdxeclipse.project.StandardLicenseCatalog;
 import org.spdx.spdxeclipse.ui.LicenseSelectionGroup;
 
 /**
@@ -64,21 +58,8 @@ public class LicenseFieldEditor extends FieldEditor {
 		GridData gd = new GridData(GridData.FILL_HORIZONTAL);
 		gd.horizontalSpan = numColumns;
 		this.parent.setLayoutData(gd);
-		try {
-			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
-
-				@Override
-				public void run(IProgressMonitor monitor) {
-					availableLicenses = SPDXLicenseInfoFactory.getStandardLicenseIds();
-				}
-				
-			});
-		} catch (InvocationTargetException e) {
-			availableLicenses = SPDXLicenseInfoFactory.getStandardLicenseIds();
-		} catch (InterruptedException e) {
-			availableLicenses = SPDXLicenseInfoFactory.getStandardLicenseIds();
-		}
-		Arrays.sort(availableLicenses);
+		// sorted and normally already loaded in the background when the plugin started
+		availableLicenses = StandardLicenseCatalog.getCatalog().getLicenseIds();
 		licenseSelectionGroup = new LicenseSelectionGroup(parent, SWT.BORDER,
 				this.getLabelText(), availableLicenses, SpdxRdfConstants.NOASSERTION_VALUE);		
 	}
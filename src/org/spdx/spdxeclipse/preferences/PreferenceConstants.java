@@ -48,5 +48,9 @@ public class PreferenceConstants {
 	public static final String PREF_DEFAULT_SPDX_FILE_NOTICE = "defaultFileNotice";
 
 	public static final String PREF_DEFAULT_SPDX_FILE_CONTRIBUTORS = "defaultFileContributors";
+
+	public static final String PREF_LARGE_FILE_HASH_THRESHOLD = "largeFileHashThreshold";
+
+	public static final String PREF_BUILD_QUIET_PERIOD = "buildQuietPeriod";
 	
 }
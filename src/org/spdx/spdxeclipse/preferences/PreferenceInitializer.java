@@ -20,6 +20,8 @@ import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.project.SpdxBuildScheduler;
+import org.spdx.spdxeclipse.project.SpdxHelper;
 
 /**
  * Class used to initialize default preference values.
@@ -47,5 +49,7 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		store.setDefault(PreferenceConstants.PREF_DEFAULT_SPDX_FILE_COPYRIGHT, "Copyright (c) [year], [organization]");
 		store.setDefault(PreferenceConstants.PREF_DEFAULT_SPDX_FILE_NOTICE, "");
 		store.setDefault(PreferenceConstants.PREF_DEFAULT_SPDX_FILE_CONTRIBUTORS, "");
+		store.setDefault(PreferenceConstants.PREF_LARGE_FILE_HASH_THRESHOLD, SpdxHelper.DEFAULT_LARGE_FILE_THRESHOLD_KB);
+		store.setDefault(PreferenceConstants.PREF_BUILD_QUIET_PERIOD, SpdxBuildScheduler.DEFAULT_QUIET_PERIOD_MILLIS);
 	}
 }
@@ -70,6 +70,14 @@ public class SpdxPreferencePage
 				"Default SPDX Declared License: ", getFieldEditorParent()));
 		addField(new LicenseFieldEditor(PreferenceConstants.PREF_DEFAULT_SPDX_CONCLUDED_LICENSE,
 				"Default SPDX Concluded License: ", getFieldEditorParent()));			
+		IntegerFieldEditor largeFileThreshold = new IntegerFieldEditor(PreferenceConstants.PREF_LARGE_FILE_HASH_THRESHOLD,
+				"Read local files of at least this size (KB) directly when hashing: ", getFieldEditorParent());
+		largeFileThreshold.setValidRange(0, Integer.MAX_VALUE);
+		addField(largeFileThreshold);
+		IntegerFieldEditor buildQuietPeriod = new IntegerFieldEditor(PreferenceConstants.PREF_BUILD_QUIET_PERIOD,
+				"Wait for this many milliseconds without changes before updating the SPDX file: ", getFieldEditorParent());
+		buildQuietPeriod.setValidRange(0, Integer.MAX_VALUE);
+		addField(buildQuietPeriod);
 	}
 
 	/* (non-Javadoc)
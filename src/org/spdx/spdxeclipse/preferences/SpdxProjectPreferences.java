@@ -16,27 +16,224 @@
 */
 package org.spdx.spdxeclipse.preferences;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.preferences.ConfigurationScope;
 import org.eclipse.core.runtime.preferences.DefaultScope;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.project.SpdxProjectException;
+import org.spdx.spdxeclipse.project.SpdxProjectFactory;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyCache;
 
 /**
  * Class to manage access to the project level preferences for SPDX.  This class
  * is also responsible for converting any PROJECT_NAME template strings to the actual
  * project name.
  * 
+ * The resolved values are cached per project.  The cache for a project is cleared
+ * by a preference change listener on the project preferences and all of the project
+ * caches are cleared when the instance, configuration or default preferences change.
+ * Changes to the default file copyright, license, notice or contributors preferences
+ * are passed on to any open SPDX projects.
+ * 
  * @author Gary O'Neall
  *
  */
 public class SpdxProjectPreferences {
 	
+	/**
+	 * Resolved preference values for a project
+	 */
+	static class ResolvedPreferences implements IPreferenceChangeListener {
+		IProject project;
+		IEclipsePreferences[] nodes;
+		/**
+		 * Map of the preference name and default value to the resolved value
+		 */
+		ConcurrentHashMap<String, String> values = new ConcurrentHashMap<String, String>();
+		/**
+		 * Incremented whenever the values are cleared so that a value resolved
+		 * concurrently with a preference change is not cached
+		 */
+		volatile long generation = 0;
+		
+		ResolvedPreferences(IProject project) {
+			this.project = project;
+			this.nodes = getPreferenceNodes(project);
+		}
+
+		@Override
+		public void preferenceChange(PreferenceChangeEvent event) {
+			clear();
+			SpdxFilePropertyCache.invalidateProjectDefaults(project.getName());
+			if (isDefaultFilePreference(event.getKey())) {
+				notifyDefaultFilePropertiesChanged(project.getName());
+			}
+		}
+		
+		synchronized void clear() {
+			generation++;
+			values.clear();
+		}
+		
+		String getStringValue(String keyName, String defaultValue) {
+			String key = keyName + "\n" + defaultValue;
+			String retval = values.get(key);
+			if (retval != null) {
+				return retval;
+			}
+			long startGeneration = generation;
+			IPreferencesService preferenceService = Platform.getPreferencesService();
+			retval = preferenceService.get(keyName, defaultValue, nodes)
+					.replace(PreferenceConstants.PROJECT_NAME, project.getName());
+			synchronized(this) {
+				if (startGeneration == generation) {
+					values.put(key, retval);
+				}
+			}
+			return retval;
+		}
+	}
+	
+	/**
+	 * Clears all of the resolved preferences when a workspace level preference changes
+	 */
+	static class GlobalPreferenceListener implements IPreferenceChangeListener {
+
+		@Override
+		public void preferenceChange(PreferenceChangeEvent event) {
+			Iterator<ResolvedPreferences> iter = resolvedPreferences.values().iterator();
+			while (iter.hasNext()) {
+				iter.next().clear();
+			}
+			SpdxFilePropertyCache.invalidateAllProjectDefaults();
+			if (isDefaultFilePreference(event.getKey())) {
+				Iterator<String> projectNames = resolvedPreferences.keySet().iterator();
+				while (projectNames.hasNext()) {
+					notifyDefaultFilePropertiesChanged(projectNames.next());
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * Map of project name to the resolved preferences for the project
+	 */
+	static ConcurrentHashMap<String, ResolvedPreferences> resolvedPreferences = new ConcurrentHashMap<String, ResolvedPreferences>();
+	
+	private static GlobalPreferenceListener globalListener = null;
+	private static IEclipsePreferences[] globalNodes = null;
+	
+	/**
+	 * Start listening for changes to the workspace level preferences.  Called when the plugin is started.
+	 */
+	public static synchronized void startListening() {
+		if (globalListener == null) {
+			globalListener = new GlobalPreferenceListener();
+			globalNodes = new IEclipsePreferences[] {new InstanceScope().getNode(Activator.PLUGIN_ID),
+					new ConfigurationScope().getNode(Activator.PLUGIN_ID),
+					new DefaultScope().getNode(Activator.PLUGIN_ID)};
+			for (int i = 0; i < globalNodes.length; i++) {
+				globalNodes[i].addPreferenceChangeListener(globalListener);
+			}
+		}
+	}
+	
+	/**
+	 * Stop listening for preference changes and clear all resolved preferences.  Called when the plugin is stopped.
+	 */
+	public static synchronized void stopListening() {
+		if (globalListener != null) {
+			for (int i = 0; i < globalNodes.length; i++) {
+				try {
+					globalNodes[i].removePreferenceChangeListener(globalListener);
+				} catch (IllegalStateException e) {
+					// node has been removed
+				}
+			}
+			globalListener = null;
+			globalNodes = null;
+		}
+		Iterator<String> iter = resolvedPreferences.keySet().iterator();
+		while (iter.hasNext()) {
+			removeCache(iter.next());
+		}
+	}
+	
+	/**
+	 * Remove the resolved preferences for a project.  Called when the project is closed or deleted.
+	 * @param projectName
+	 */
+	public static void removeCache(String projectName) {
+		ResolvedPreferences resolved = resolvedPreferences.remove(projectName);
+		if (resolved != null) {
+			resolved.clear();
+			try {
+				resolved.nodes[0].removePreferenceChangeListener(resolved);
+			} catch (IllegalStateException e) {
+				// project node has already been removed
+			}
+		}
+	}
+	
+	private static ResolvedPreferences getResolvedPreferences(IProject project) {
+		ResolvedPreferences retval = resolvedPreferences.get(project.getName());
+		if (retval == null) {
+			retval = new ResolvedPreferences(project);
+			ResolvedPreferences existing = resolvedPreferences.putIfAbsent(project.getName(), retval);
+			if (existing != null) {
+				retval = existing;
+			} else {
+				retval.nodes[0].addPreferenceChangeListener(retval);
+			}
+		}
+		return retval;
+	}
+	
+	/**
+	 * @param keyName
+	 * @return true if the preference is used to resolve the default file properties for the SPDX files
+	 */
+	static boolean isDefaultFilePreference(String keyName) {
+		return PreferenceConstants.PREF_DEFAULT_SPDX_FILE_COPYRIGHT.equals(keyName) ||
+				PreferenceConstants.PREF_DEFAULT_SPDX_FILE_LICENSE.equals(keyName) ||
+				PreferenceConstants.PREF_DEFAULT_SPDX_FILE_NOTICE.equals(keyName) ||
+				PreferenceConstants.PREF_DEFAULT_SPDX_FILE_CONTRIBUTORS.equals(keyName);
+	}
+	
+	/**
+	 * Update any open SPDX project for the project with the new default file properties
+	 * @param projectName
+	 */
+	static void notifyDefaultFilePropertiesChanged(String projectName) {
+		if (!SpdxProjectFactory.isSpdxProjectOpen(projectName)) {
+			return;
+		}
+		try {
+			SpdxProjectFactory.getSpdxProject(projectName, new NullProgressMonitor()).defaultFilePropertiesChanged();
+		} catch (IOException e) {
+			Activator.getDefault().logError("IO Error getting spdx project", e);
+		} catch (InvalidSPDXAnalysisException e) {
+			Activator.getDefault().logError("Invalid SPDX Analysis error getting spdx project", e);
+		} catch (SpdxProjectException e) {
+			Activator.getDefault().logError("Error updating the default file properties in the SPDX project", e);
+		}
+	}
+	
 	public static IEclipsePreferences[] getPreferenceNodes(IProject project) {
 		IScopeContext instanceScope = new InstanceScope();
 		IEclipsePreferences instanceNode = instanceScope.getNode(Activator.PLUGIN_ID);
@@ -50,9 +247,13 @@ public class SpdxProjectPreferences {
 	}
 	
 	public static String getStringValue(IProject project, String keyName, String defaultValue) {
-		IPreferencesService preferenceService = Platform.getPreferencesService();
-		return preferenceService.get(keyName, defaultValue, getPreferenceNodes(project))
-					.replace(PreferenceConstants.PROJECT_NAME, project.getName());
+		try {
+			return getResolvedPreferences(project).getStringValue(keyName, defaultValue);
+		} catch (IllegalStateException e) {
+			// the project preference node was removed - resolve again using new nodes
+			removeCache(project.getName());
+			return getResolvedPreferences(project).getStringValue(keyName, defaultValue);
+		}
 	}
 	
 	public static String getDefaultSpdxFileName(IProject project) {
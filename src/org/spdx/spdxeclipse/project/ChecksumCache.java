@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.spdx.spdxeclipse.Activator;
+
+/**
+ * Cache of file checksums for a project.  A cached checksum is used only if the
+ * project relative path, modification stamp, local time stamp and size of the file
+ * all match the values recorded when the checksum was calculated.
+ *
+ * The SHA1 is always calculated.  Checksums for any additional algorithms configured
+ * for the project are calculated in the same pass over the file content.
+ *
+ * The cache is persisted in the plugin state location so that checksums survive
+ * clean builds and workspace restarts.  The cache is safe to use from multiple threads.
+ * @author Gary O'Neall
+ *
+ */
+public class ChecksumCache {
+
+	static final int CACHE_FILE_VERSION = 2;
+	static final String CACHE_DIRECTORY = "checksums";
+	static final String CACHE_FILE_EXTENSION = ".cache";
+
+	/**
+	 * Cached information for a single file
+	 */
+	static class CacheEntry {
+		long modificationStamp;
+		long localTimeStamp;
+		long size;
+		Map<String, String> checksums;	// algorithm name to checksum value
+
+		CacheEntry(long modificationStamp, long localTimeStamp, long size, Map<String, String> checksums) {
+			this.modificationStamp = modificationStamp;
+			this.localTimeStamp = localTimeStamp;
+			this.size = size;
+			this.checksums = Collections.unmodifiableMap(checksums);
+		}
+
+		boolean matches(long modificationStamp, long localTimeStamp, long size, String[] algorithms) {
+			if (this.modificationStamp != modificationStamp ||
+					this.localTimeStamp != localTimeStamp ||
+					this.size != size) {
+				return false;
+			}
+			for (int i = 0; i < algorithms.length; i++) {
+				if (!checksums.containsKey(algorithms[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Map of project relative path to the cached checksum information
+	 */
+	private ConcurrentHashMap<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+	private File cacheFile;
+	private volatile boolean changed = false;
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+	private volatile String[] algorithms = new String[] {SpdxHelper.SHA1_ALGORITHM};
+
+	/**
+	 * @param cacheFile File used to persist the cache.  If null, the cache will not be persisted
+	 */
+	public ChecksumCache(File cacheFile) {
+		this.cacheFile = cacheFile;
+		load();
+	}
+
+	/**
+	 * @param projectName
+	 * @return The cache file in the plugin state location for the project
+	 */
+	public static File getDefaultCacheFile(String projectName) {
+		Activator plugin = Activator.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		IPath cacheDir = plugin.getStateLocation().append(CACHE_DIRECTORY);
+		return cacheDir.append(projectName + CACHE_FILE_EXTENSION).toFile();
+	}
+
+	/**
+	 * Set the checksum algorithms calculated for each file.  The SHA1 algorithm is
+	 * always included.  Cached entries missing any of the algorithms will be recalculated.
+	 * @param algorithms
+	 */
+	public void setAlgorithms(String[] algorithms) {
+		ArrayList<String> newAlgorithms = new ArrayList<String>();
+		newAlgorithms.add(SpdxHelper.SHA1_ALGORITHM);
+		for (int i = 0; i < algorithms.length; i++) {
+			if (!newAlgorithms.contains(algorithms[i])) {
+				newAlgorithms.add(algorithms[i]);
+			}
+		}
+		this.algorithms = newAlgorithms.toArray(new String[newAlgorithms.size()]);
+	}
+
+	/**
+	 * @return the checksum algorithms calculated for each file
+	 */
+	public String[] getAlgorithms() {
+		return this.algorithms.clone();
+	}
+
+	/**
+	 * Get the SHA1 for a file, calculating and caching the checksums if they are not already cached
+	 * @param file
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	public String getSha1(IFile file) throws SpdxProjectException {
+		return getChecksums(file).get(SpdxHelper.SHA1_ALGORITHM);
+	}
+
+	/**
+	 * Get the checksums for a file for all of the configured algorithms, calculating
+	 * and caching the checksums if they are not already cached
+	 * @param file
+	 * @return unmodifiable map of algorithm name to checksum value
+	 * @throws SpdxProjectException
+	 */
+	public Map<String, String> getChecksums(IFile file) throws SpdxProjectException {
+		String[] currentAlgorithms = this.algorithms;
+		String path = file.getProjectRelativePath().toString();
+		long modificationStamp = file.getModificationStamp();
+		long localTimeStamp = file.getLocalTimeStamp();
+		long size = getSize(file);
+		if (modificationStamp == IResource.NULL_STAMP || size < 0) {
+			// not able to validate a cached value
+			misses.incrementAndGet();
+			return Collections.unmodifiableMap(SpdxHelper.generateChecksums(file, currentAlgorithms));
+		}
+		CacheEntry entry = entries.get(path);
+		if (entry != null && entry.matches(modificationStamp, localTimeStamp, size, currentAlgorithms)) {
+			hits.incrementAndGet();
+			return entry.checksums;
+		}
+		misses.incrementAndGet();
+		entry = new CacheEntry(modificationStamp, localTimeStamp, size,
+				SpdxHelper.generateChecksums(file, currentAlgorithms));
+		entries.put(path, entry);
+		changed = true;
+		return entry.checksums;
+	}
+
+	/**
+	 * @param path project relative path
+	 * @return the cached checksums for the path or null if no checksums are cached
+	 */
+	public Map<String, String> getCachedChecksums(String path) {
+		CacheEntry entry = entries.get(path);
+		if (entry == null) {
+			return null;
+		}
+		return entry.checksums;
+	}
+
+	/**
+	 * @param file
+	 * @return the size of the file in the local file system or -1 if not available
+	 */
+	private static long getSize(IFile file) {
+		IPath location = file.getLocation();
+		if (location == null) {
+			return -1;
+		}
+		File localFile = location.toFile();
+		if (!localFile.exists()) {
+			return -1;
+		}
+		return localFile.length();
+	}
+
+	/**
+	 * Remove the cached checksum for a path
+	 * @param path project relative path
+	 */
+	public void remove(String path) {
+		if (entries.remove(path) != null) {
+			changed = true;
+		}
+	}
+
+	/**
+	 * Move the cached checksums for a file which has been moved or renamed.  The cached
+	 * checksums are only reused if the size and local time stamp of the moved file match
+	 * the cached values since a move followed by an edit is reported as a single move.
+	 * @param fromPath project relative path before the move
+	 * @param file file after the move
+	 * @return the checksums for the moved file or null if they must be recalculated
+	 */
+	public Map<String, String> move(String fromPath, IFile file) {
+		CacheEntry entry = entries.remove(fromPath);
+		if (entry == null) {
+			return null;
+		}
+		changed = true;
+		long modificationStamp = file.getModificationStamp();
+		if (modificationStamp == IResource.NULL_STAMP || getSize(file) != entry.size ||
+				file.getLocalTimeStamp() != entry.localTimeStamp) {
+			return null;
+		}
+		entries.put(file.getProjectRelativePath().toString(), new CacheEntry(modificationStamp,
+				entry.localTimeStamp, entry.size, entry.checksums));
+		return entry.checksums;
+	}
+
+	/**
+	 * Remove all cached checksums for paths not in the collection
+	 * @param paths project relative paths to keep
+	 */
+	public void retainAll(Collection<String> paths) {
+		if (entries.keySet().retainAll(paths)) {
+			changed = true;
+		}
+	}
+
+	/**
+	 * Remove all cached checksums
+	 */
+	public void clear() {
+		if (!entries.isEmpty()) {
+			entries.clear();
+			changed = true;
+		}
+	}
+
+	/**
+	 * @return the number of times a checksum was found in the cache
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of times a checksum had to be calculated
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Reset the hit and miss counters
+	 */
+	public void resetCounters() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+	/**
+	 * @return number of cached checksums
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Load the cache from the cache file.  Any errors are logged and result in an empty cache.
+	 */
+	private void load() {
+		if (cacheFile == null || !cacheFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			int version = in.readInt();
+			if (version != CACHE_FILE_VERSION) {
+				return;	// ignore old versions, the cache will be rebuilt
+			}
+			int numEntries = in.readInt();
+			for (int i = 0; i < numEntries; i++) {
+				String path = in.readUTF();
+				long modificationStamp = in.readLong();
+				long localTimeStamp = in.readLong();
+				long size = in.readLong();
+				int numChecksums = in.readInt();
+				HashMap<String, String> checksums = new HashMap<String, String>();
+				for (int j = 0; j < numChecksums; j++) {
+					String algorithm = in.readUTF();
+					checksums.put(algorithm, in.readUTF());
+				}
+				entries.put(path, new CacheEntry(modificationStamp, localTimeStamp, size, checksums));
+			}
+		} catch (IOException e) {
+			entries.clear();
+			logError("Error reading SPDX checksum cache - the cache will be rebuilt", e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					logError("IO Error closing SPDX checksum cache", e);
+				}
+			}
+		}
+	}
+
+	private static void logError(String msg, Exception e) {
+		Activator plugin = Activator.getDefault();
+		if (plugin != null) {
+			plugin.logError(msg, e);
+		}
+	}
+
+	/**
+	 * Save the cache to the cache file if any entries have changed
+	 * @throws SpdxProjectException
+	 */
+	public synchronized void save() throws SpdxProjectException {
+		if (cacheFile == null || !changed) {
+			return;
+		}
+		File dir = cacheFile.getParentFile();
+		if (dir != null && !dir.exists() && !dir.mkdirs()) {
+			throw(new SpdxProjectException("Unable to create SPDX checksum cache directory "+dir.getPath()));
+		}
+		File tempFile = new File(cacheFile.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try {
+			changed = false;
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			// take a snapshot since other threads may be updating the cache
+			HashMap<String, CacheEntry> snapshot = new HashMap<String, CacheEntry>(entries);
+			out.writeInt(CACHE_FILE_VERSION);
+			out.writeInt(snapshot.size());
+			Iterator<Entry<String, CacheEntry>> iter = snapshot.entrySet().iterator();
+			while (iter.hasNext()) {
+				Entry<String, CacheEntry> mapEntry = iter.next();
+				CacheEntry entry = mapEntry.getValue();
+				out.writeUTF(mapEntry.getKey());
+				out.writeLong(entry.modificationStamp);
+				out.writeLong(entry.localTimeStamp);
+				out.writeLong(entry.size);
+				out.writeInt(entry.checksums.size());
+				Iterator<Entry<String, String>> checksumIter = entry.checksums.entrySet().iterator();
+				while (checksumIter.hasNext()) {
+					Entry<String, String> checksum = checksumIter.next();
+					out.writeUTF(checksum.getKey());
+					out.writeUTF(checksum.getValue());
+				}
+			}
+			out.close();
+			out = null;
+			if (cacheFile.exists() && !cacheFile.delete()) {
+				throw(new SpdxProjectException("Unable to replace SPDX checksum cache file "+cacheFile.getPath()));
+			}
+			if (!tempFile.renameTo(cacheFile)) {
+				throw(new SpdxProjectException("Unable to rename SPDX checksum cache file "+tempFile.getPath()));
+			}
+		} catch (IOException e) {
+			changed = true;
+			throw(new SpdxProjectException("IO Error writing SPDX checksum cache", e));
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					logError("IO Error closing SPDX checksum cache", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Delete the persisted cache file and all cached entries
+	 */
+	public synchronized void delete() {
+		entries.clear();
+		changed = false;
+		if (cacheFile != null && cacheFile.exists()) {
+			cacheFile.delete();
+		}
+	}
+
+	/**
+	 * @return a summary of the cache statistics suitable for logging
+	 */
+	public String getStatistics() {
+		StringBuilder sb = new StringBuilder("checksum cache entries: ");
+		sb.append(entries.size());
+		sb.append(", hits: ");
+		sb.append(hits.get());
+		sb.append(", misses: ");
+		sb.append(misses.get());
+		return sb.toString();
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
+
+/**
+ * Job to scan the files in a single included directory.  The job has a scheduling rule
+ * on the directory only so that workspace operations on other folders can proceed while
+ * the scan runs.  The results are collected in the job and merged into the SPDX project
+ * as soon as the scan of the directory completes.
+ * @author Gary O'Neall
+ *
+ */
+public class DirectoryScanJob extends Job {
+
+	/**
+	 * Checksum and properties for a file found by the scan
+	 */
+	public static class ScannedFile {
+		private IFile file;
+		private long modificationStamp;
+		private String sha1;
+		private ResolvedFileProperties properties;
+
+		ScannedFile(IFile file, long modificationStamp, String sha1, ResolvedFileProperties properties) {
+			this.file = file;
+			this.modificationStamp = modificationStamp;
+			this.sha1 = sha1;
+			this.properties = properties;
+		}
+
+		public IFile getFile() {
+			return file;
+		}
+
+		/**
+		 * @return Modification stamp of the file before the checksum was calculated
+		 */
+		public long getModificationStamp() {
+			return modificationStamp;
+		}
+
+		public String getSha1() {
+			return sha1;
+		}
+
+		public ResolvedFileProperties getProperties() {
+			return properties;
+		}
+	}
+
+	private IContainer folder;
+	private ScanFilter scanFilter;
+	private ChecksumCache checksumCache;
+	private int hashThreads;
+	/**
+	 * Project relative path to the scanned file in traversal order
+	 */
+	private LinkedHashMap<String, ScannedFile> results = new LinkedHashMap<String, ScannedFile>();
+
+	/**
+	 * @param folder Folder to scan including all subfolders
+	 * @param scanFilter Filter for the files and folders to skip
+	 * @param checksumCache Cache used to look up and store checksums.  May be null.
+	 * @param hashThreads Number of threads calculating checksums for this directory
+	 */
+	public DirectoryScanJob(IContainer folder, ScanFilter scanFilter,
+			ChecksumCache checksumCache, int hashThreads) {
+		super("SPDX Scan " + folder.getFullPath().toString());
+		this.folder = folder;
+		this.scanFilter = scanFilter;
+		this.checksumCache = checksumCache;
+		this.hashThreads = hashThreads;
+		setRule(folder);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		monitor.beginTask("Scanning " + folder.getFullPath().toString(), IProgressMonitor.UNKNOWN);
+		SpdxScanPipeline pipeline = new SpdxScanPipeline(checksumCache, scanFilter, hashThreads,
+				SpdxScanPipeline.DEFAULT_PROPERTY_THREADS, SpdxScanPipeline.DEFAULT_QUEUE_CAPACITY);
+		try {
+			boolean completed = pipeline.scan(Collections.singletonList(folder),
+					new SpdxScanPipeline.ScanResultHandler() {
+
+				@Override
+				public void fileScanned(IFile file, long modificationStamp, String sha1,
+						ResolvedFileProperties properties) throws SpdxProjectException {
+					results.put(file.getProjectRelativePath().toString(),
+							new ScannedFile(file, modificationStamp, sha1, properties));
+				}
+
+			}, monitor);
+			if (!completed) {
+				return Status.CANCEL_STATUS;
+			}
+			return Status.OK_STATUS;
+		} catch (SpdxProjectException e) {
+			Activator.getDefault().logError("Error scanning SPDX files in "+folder.getFullPath().toString(), e);
+			return new Status(Status.ERROR, Activator.PLUGIN_ID, 0,
+					"Error scanning SPDX files in "+folder.getFullPath().toString()+": "+e.getMessage(), e);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * @return the folder scanned by this job
+	 */
+	public IContainer getFolder() {
+		return folder;
+	}
+
+	/**
+	 * @return map of project relative path to the scanned files.  Only complete if the job
+	 * finished with an OK status.
+	 */
+	public Map<String, ScannedFile> getResults() {
+		return results;
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == SpdxProjectFactory.SPDX_BUILD_JOB_FAMILY;
+	}
+}
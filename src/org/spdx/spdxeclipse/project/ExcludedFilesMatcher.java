@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.regex.Pattern;
+
+/**
+ * Matches file names against the excluded file patterns for a project.
+ *
+ * The patterns are classified when the matcher is created.  Patterns which only match
+ * a literal file name (e.g. <code>build\.xml</code>) and patterns which only match a
+ * literal file extension (e.g. <code>.*\.class</code>) are looked up in hash sets.
+ * Only the remaining patterns are evaluated as regular expressions.  A name matches if
+ * it matches any of the patterns in full, the same as <code>Pattern.matcher(name).matches()</code>.
+ *
+ * Instances are immutable and may be shared between threads.
+ * @author Gary O'Neall
+ *
+ */
+public class ExcludedFilesMatcher {
+
+	static final String ANY_PREFIX = ".*";
+	static final String REGEX_META_CHARACTERS = ".[]{}()*+?^$|\\";
+
+	private HashSet<String> literalNames = new HashSet<String>();
+	/**
+	 * Extensions without the leading '.' which do not themselves contain a '.'
+	 */
+	private HashSet<String> extensions = new HashSet<String>();
+	/**
+	 * Literal suffixes including the leading '.' for multi-part extensions such as .tar.gz
+	 */
+	private ArrayList<String> suffixes = new ArrayList<String>();
+	private Pattern[] regexes;
+
+	/**
+	 * @param patterns Excluded file name patterns
+	 */
+	public ExcludedFilesMatcher(Pattern[] patterns) {
+		ArrayList<Pattern> remainingRegexes = new ArrayList<Pattern>();
+		for (int i = 0; i < patterns.length; i++) {
+			if (!addSimplePattern(patterns[i])) {
+				remainingRegexes.add(patterns[i]);
+			}
+		}
+		this.regexes = remainingRegexes.toArray(new Pattern[remainingRegexes.size()]);
+	}
+
+	/**
+	 * Add a pattern to the literal name or extension lookups if possible
+	 * @param pattern
+	 * @return true if the pattern was added, false if it must be evaluated as a regular expression
+	 */
+	private boolean addSimplePattern(Pattern pattern) {
+		if (pattern.flags() != 0) {
+			return false;
+		}
+		String regex = pattern.pattern();
+		String literal = unescapeLiteral(regex);
+		if (literal != null) {
+			literalNames.add(literal);
+			return true;
+		}
+		if (regex.startsWith(ANY_PREFIX)) {
+			String suffix = unescapeLiteral(regex.substring(ANY_PREFIX.length()));
+			if (suffix != null && suffix.length() > 1 && suffix.charAt(0) == '.') {
+				String extension = suffix.substring(1);
+				if (extension.indexOf('.') < 0) {
+					extensions.add(extension);
+				} else {
+					suffixes.add(suffix);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param regex
+	 * @return the literal string matched by the regular expression or null if the
+	 * regular expression can match anything other than a single literal string
+	 */
+	static String unescapeLiteral(String regex) {
+		StringBuilder sb = new StringBuilder(regex.length());
+		int i = 0;
+		while (i < regex.length()) {
+			char ch = regex.charAt(i);
+			if (ch == '\\') {
+				if (i + 1 >= regex.length()) {
+					return null;
+				}
+				char escaped = regex.charAt(i + 1);
+				if (Character.isLetterOrDigit(escaped)) {
+					return null;	// character class or other special escape
+				}
+				sb.append(escaped);
+				i = i + 2;
+			} else if (REGEX_META_CHARACTERS.indexOf(ch) >= 0) {
+				return null;
+			} else {
+				sb.append(ch);
+				i++;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param name File name
+	 * @return true if the name matches any of the excluded file patterns
+	 */
+	public boolean matches(String name) {
+		if (literalNames.contains(name)) {
+			return true;
+		}
+		if (!extensions.isEmpty()) {
+			int lastDot = name.lastIndexOf('.');
+			if (lastDot >= 0 && extensions.contains(name.substring(lastDot + 1))) {
+				return true;
+			}
+		}
+		for (int i = 0; i < suffixes.size(); i++) {
+			if (name.endsWith(suffixes.get(i))) {
+				return true;
+			}
+		}
+		for (int i = 0; i < regexes.length; i++) {
+			if (regexes[i].matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of patterns which are evaluated as regular expressions
+	 */
+	public int getRegexCount() {
+		return regexes.length;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.HashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Immutable trie of the path segments of the directories included in an SPDX project.
+ *
+ * Checking whether a path is within an included directory takes time proportional
+ * to the depth of the path and does not create any objects.
+ * @author Gary O'Neall
+ *
+ */
+public class IncludedDirectoryTrie {
+
+	static class Node {
+		HashMap<String, Node> children = new HashMap<String, Node>();
+		boolean included = false;
+	}
+
+	private Node root = new Node();
+
+	/**
+	 * @param includedDirectories Project relative directories.  "/", "\" or an empty string
+	 * includes the entire project.
+	 */
+	public IncludedDirectoryTrie(String[] includedDirectories) {
+		for (int i = 0; i < includedDirectories.length; i++) {
+			Node node = root;
+			if (!isProjectRoot(includedDirectories[i])) {
+				String[] segments = new Path(includedDirectories[i]).segments();
+				for (int j = 0; j < segments.length; j++) {
+					Node child = node.children.get(segments[j]);
+					if (child == null) {
+						child = new Node();
+						node.children.put(segments[j], child);
+					}
+					node = child;
+				}
+			}
+			node.included = true;
+		}
+	}
+
+	static boolean isProjectRoot(String directory) {
+		return directory.equals("/") || directory.equals("\\") || directory.isEmpty();
+	}
+
+	/**
+	 * @param path Path to a resource
+	 * @param firstSegment Index of the first project relative segment in the path (1 for a full path)
+	 * @return true if the path is within one of the included directories
+	 */
+	public boolean isIncluded(IPath path, int firstSegment) {
+		Node node = root;
+		int segmentCount = path.segmentCount();
+		for (int i = firstSegment; i < segmentCount; i++) {
+			if (node.included) {
+				return true;
+			}
+			node = node.children.get(path.segment(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.included;
+	}
+}
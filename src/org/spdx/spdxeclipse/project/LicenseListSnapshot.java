@@ -0,0 +1,290 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.spdx.spdxeclipse.Activator;
+
+/**
+ * Reads and writes a compact binary snapshot of the SPDX license list containing
+ * the license IDs, names and normalized license texts.
+ *
+ * The snapshot is a GZIP compressed stream containing a magic number, the snapshot
+ * format version, the license list version and then the ID, name and text for each license.
+ *
+ * A snapshot can be created from a local copy of the SPDX license list JSON files
+ * (licenses.json and optionally the details directory containing the license texts)
+ * using the import command or by running main, for example when building the plugin:
+ * <code>LicenseListSnapshot licenses.json license-list.snapshot</code>
+ * @author Gary O'Neall
+ *
+ */
+public class LicenseListSnapshot {
+
+	static final int SNAPSHOT_MAGIC = 0x53504458;	// "SPDX"
+	static final int SNAPSHOT_VERSION = 1;
+	/**
+	 * Upper bound on the number of licenses read from a snapshot to guard against corrupted files
+	 */
+	static final int MAX_LICENSES = 64 * 1024;
+	/**
+	 * Upper bound on the length of a license text read from a snapshot to guard against corrupted files
+	 */
+	static final int MAX_TEXT_LENGTH = 16 * 1024 * 1024;
+	/**
+	 * Name of the snapshot file in the plugin state location and of the bundled resource
+	 */
+	public static final String SNAPSHOT_FILE_NAME = "license-list.snapshot";
+	static final String DETAILS_DIRECTORY = "details";
+
+	/**
+	 * @return the file in the plugin state location for an imported license list or null if the plugin is not running
+	 */
+	public static File getImportedSnapshotFile() {
+		Activator plugin = Activator.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		return plugin.getStateLocation().append(SNAPSHOT_FILE_NAME).toFile();
+	}
+
+	/**
+	 * @return stream for the snapshot bundled with the plugin or null if there is no bundled snapshot
+	 */
+	public static InputStream getBundledSnapshot() {
+		return LicenseListSnapshot.class.getResourceAsStream(SNAPSHOT_FILE_NAME);
+	}
+
+	/**
+	 * Read a license list snapshot
+	 * @param in Stream positioned at the start of the snapshot.  The stream is not closed.
+	 * @return catalog of the licenses in the snapshot
+	 * @throws IOException if the stream is not a valid snapshot
+	 */
+	public static StandardLicenseCatalog read(InputStream in) throws IOException {
+		DataInputStream dataIn = new DataInputStream(new GZIPInputStream(new BufferedInputStream(in)));
+		if (dataIn.readInt() != SNAPSHOT_MAGIC) {
+			throw(new IOException("Not an SPDX license list snapshot"));
+		}
+		int version = dataIn.readInt();
+		if (version != SNAPSHOT_VERSION) {
+			throw(new IOException("Unsupported SPDX license list snapshot version "+String.valueOf(version)));
+		}
+		String licenseListVersion = dataIn.readUTF();
+		int numLicenses = dataIn.readInt();
+		if (numLicenses < 0 || numLicenses > MAX_LICENSES) {
+			throw(new IOException("Invalid number of licenses in SPDX license list snapshot"));
+		}
+		String[] licenseIds = new String[numLicenses];
+		HashMap<String, String> licenseNames = new HashMap<String, String>();
+		HashMap<String, String> licenseTexts = new HashMap<String, String>();
+		for (int i = 0; i < numLicenses; i++) {
+			licenseIds[i] = dataIn.readUTF();
+			licenseNames.put(licenseIds[i], dataIn.readUTF());
+			int textLength = dataIn.readInt();
+			if (textLength < -1 || textLength > MAX_TEXT_LENGTH) {
+				throw(new IOException("Invalid license text length in SPDX license list snapshot"));
+			}
+			if (textLength >= 0) {
+				byte[] text = new byte[textLength];
+				dataIn.readFully(text);
+				licenseTexts.put(licenseIds[i], new String(text, "UTF-8"));
+			}
+		}
+		if (licenseListVersion.isEmpty()) {
+			licenseListVersion = null;
+		}
+		return new StandardLicenseCatalog(licenseListVersion, licenseIds, licenseNames, licenseTexts);
+	}
+
+	/**
+	 * Write a license list snapshot
+	 * @param catalog
+	 * @param out The stream is not closed
+	 * @throws IOException
+	 */
+	public static void write(StandardLicenseCatalog catalog, OutputStream out) throws IOException {
+		GZIPOutputStream gzipOut = new GZIPOutputStream(new BufferedOutputStream(out));
+		DataOutputStream dataOut = new DataOutputStream(gzipOut);
+		dataOut.writeInt(SNAPSHOT_MAGIC);
+		dataOut.writeInt(SNAPSHOT_VERSION);
+		String licenseListVersion = catalog.getLicenseListVersion();
+		dataOut.writeUTF(licenseListVersion == null ? "" : licenseListVersion);
+		String[] licenseIds = catalog.getLicenseIds();
+		dataOut.writeInt(licenseIds.length);
+		for (int i = 0; i < licenseIds.length; i++) {
+			dataOut.writeUTF(licenseIds[i]);
+			String name = catalog.getLicenseName(licenseIds[i]);
+			dataOut.writeUTF(name == null ? licenseIds[i] : name);
+			String text = catalog.getNormalizedText(licenseIds[i]);
+			if (text == null) {
+				dataOut.writeInt(-1);
+			} else {
+				byte[] textBytes = text.getBytes("UTF-8");
+				dataOut.writeInt(textBytes.length);
+				dataOut.write(textBytes);
+			}
+		}
+		dataOut.flush();
+		gzipOut.finish();
+		gzipOut.flush();
+	}
+
+	/**
+	 * Write a license list snapshot to a file replacing any existing file
+	 * @param catalog
+	 * @param snapshotFile
+	 * @throws IOException
+	 */
+	public static void writeFile(StandardLicenseCatalog catalog, File snapshotFile) throws IOException {
+		File dir = snapshotFile.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.exists() && !dir.mkdirs()) {
+			throw(new IOException("Unable to create directory "+dir.getPath()));
+		}
+		File tempFile = new File(snapshotFile.getPath() + ".tmp");
+		OutputStream out = new FileOutputStream(tempFile);
+		try {
+			write(catalog, out);
+		} finally {
+			out.close();
+		}
+		if (snapshotFile.exists() && !snapshotFile.delete()) {
+			tempFile.delete();
+			throw(new IOException("Unable to replace SPDX license list snapshot "+snapshotFile.getPath()));
+		}
+		if (!tempFile.renameTo(snapshotFile)) {
+			throw(new IOException("Unable to rename SPDX license list snapshot "+tempFile.getPath()));
+		}
+	}
+
+	/**
+	 * Read the license list from a local copy of the SPDX license list JSON file.
+	 * The license text is taken from the licenseText field of the license if present,
+	 * otherwise from the licenseText field of the file with the license ID in the
+	 * details directory next to the license list file if it exists.
+	 * @param licenseListFile licenses.json file from the SPDX license list
+	 * @return catalog of the licenses
+	 * @throws IOException
+	 */
+	public static StandardLicenseCatalog readLicenseListJson(File licenseListFile) throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		JsonNode root = mapper.readTree(licenseListFile);
+		JsonNode licenses = root.path("licenses");
+		if (!licenses.isArray()) {
+			throw(new IOException("Missing licenses in SPDX license list "+licenseListFile.getPath()));
+		}
+		File detailsDir = new File(licenseListFile.getAbsoluteFile().getParentFile(), DETAILS_DIRECTORY);
+		ArrayList<String> licenseIds = new ArrayList<String>();
+		HashMap<String, String> licenseNames = new HashMap<String, String>();
+		HashMap<String, String> licenseTexts = new HashMap<String, String>();
+		for (JsonNode license:licenses) {
+			String licenseId = license.path("licenseId").getTextValue();
+			if (licenseId == null || licenseId.trim().isEmpty()) {
+				throw(new IOException("Missing license ID in SPDX license list "+licenseListFile.getPath()));
+			}
+			licenseId = licenseId.trim();
+			licenseIds.add(licenseId);
+			String name = license.path("name").getTextValue();
+			licenseNames.put(licenseId, name == null ? licenseId : name.trim());
+			String text = license.path("licenseText").getTextValue();
+			if (text == null) {
+				File detailsFile = new File(detailsDir, licenseId + ".json");
+				if (detailsFile.exists()) {
+					text = mapper.readTree(detailsFile).path("licenseText").getTextValue();
+				}
+			}
+			if (text != null) {
+				licenseTexts.put(licenseId, normalizeText(text));
+			}
+		}
+		return new StandardLicenseCatalog(root.path("licenseListVersion").getTextValue(),
+				licenseIds.toArray(new String[licenseIds.size()]), licenseNames, licenseTexts);
+	}
+
+	/**
+	 * Import a local copy of the SPDX license list into the plugin state location
+	 * @param licenseListFile licenses.json file from the SPDX license list
+	 * @return catalog of the imported licenses
+	 * @throws IOException
+	 */
+	public static StandardLicenseCatalog importLicenseList(File licenseListFile) throws IOException {
+		File snapshotFile = getImportedSnapshotFile();
+		if (snapshotFile == null) {
+			throw(new IOException("The SPDX plugin is not running"));
+		}
+		StandardLicenseCatalog retval = readLicenseListJson(licenseListFile);
+		writeFile(retval, snapshotFile);
+		return retval;
+	}
+
+	/**
+	 * @param text
+	 * @return text with each run of whitespace replaced by a single space
+	 */
+	static String normalizeText(String text) {
+		StringBuilder sb = new StringBuilder(text.length());
+		boolean inWhitespace = false;
+		for (int i = 0; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (Character.isWhitespace(ch)) {
+				inWhitespace = true;
+			} else {
+				if (inWhitespace && sb.length() > 0) {
+					sb.append(' ');
+				}
+				inWhitespace = false;
+				sb.append(ch);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Create a license list snapshot from a local copy of the SPDX license list
+	 * @param args license list JSON file and snapshot file to create
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Usage: LicenseListSnapshot licenses.json snapshotFile");
+			System.exit(1);
+		}
+		try {
+			StandardLicenseCatalog catalog = readLicenseListJson(new File(args[0]));
+			writeFile(catalog, new File(args[1]));
+			System.out.println("Wrote "+String.valueOf(catalog.size())+" licenses from license list version "+
+					catalog.getLicenseListVersion()+" to "+args[1]);
+		} catch (IOException e) {
+			System.err.println("Error creating SPDX license list snapshot: "+e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Calculates the SHA1 checksums for a list of files using a bounded pool of worker threads.
+ *
+ * The checksums are returned in the same order as the files were supplied so that
+ * the resulting SPDX document does not depend on the order the workers complete.
+ * Progress is reported to the monitor from the calling thread only.
+ *
+ * @author Gary O'Neall
+ *
+ */
+public class ParallelFileHasher {
+
+	/**
+	 * Upper bound on the number of hashing threads regardless of the number of processors
+	 */
+	static final int MAX_THREADS = 16;
+
+	/**
+	 * Time to wait for a single result before checking for cancellation
+	 */
+	static final long POLL_MILLISECONDS = 100;
+
+	private static final AtomicInteger threadNumber = new AtomicInteger(1);
+
+	private int numThreads;
+	private ChecksumCache checksumCache;
+
+	/**
+	 * @param checksumCache Cache used to look up and store checksums.  May be null.
+	 */
+	public ParallelFileHasher(ChecksumCache checksumCache) {
+		this(checksumCache, getDefaultNumThreads());
+	}
+
+	/**
+	 * @param checksumCache Cache used to look up and store checksums.  May be null.
+	 * @param numThreads Number of worker threads used for hashing
+	 */
+	public ParallelFileHasher(ChecksumCache checksumCache, int numThreads) {
+		if (numThreads < 1) {
+			numThreads = 1;
+		}
+		this.checksumCache = checksumCache;
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * @return Number of hashing threads to use based on the available processors
+	 */
+	public static int getDefaultNumThreads() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		if (processors > MAX_THREADS) {
+			return MAX_THREADS;
+		}
+		return processors;
+	}
+
+	public int getNumThreads() {
+		return this.numThreads;
+	}
+
+	/**
+	 * Calculate the SHA1 checksums for all files.  One unit of work is reported
+	 * to the monitor as each file checksum is complete.
+	 * @param files Files to hash
+	 * @param monitor
+	 * @return checksums in the same order as the files or null if the monitor was canceled
+	 * @throws SpdxProjectException
+	 */
+	public String[] hashFiles(List<IFile> files, IProgressMonitor monitor) throws SpdxProjectException {
+		return hashFiles(files, monitor, null);
+	}
+
+	/**
+	 * Calculate the SHA1 checksums for all files.  One unit of work is reported
+	 * to the monitor as each file checksum is complete.
+	 * @param files Files to hash
+	 * @param monitor
+	 * @param errors If not null, errors for individual files are added to this map and
+	 * the checksum for the file is null.  If null, the first error is thrown.
+	 * @return checksums in the same order as the files or null if the monitor was canceled
+	 * @throws SpdxProjectException
+	 */
+	public String[] hashFiles(List<IFile> files, IProgressMonitor monitor,
+			Map<IFile, SpdxProjectException> errors) throws SpdxProjectException {
+		String[] retval = new String[files.size()];
+		if (files.isEmpty()) {
+			return retval;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, files.size()),
+				new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "SPDX File Hashing " + threadNumber.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			}
+
+		});
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>(files.size());
+			for (final IFile file:files) {
+				results.add(pool.submit(new Callable<String>() {
+
+					@Override
+					public String call() throws Exception {
+						if (checksumCache != null) {
+							return checksumCache.getSha1(file);
+						}
+						return SpdxHelper.generateSha1(file);
+					}
+
+				}));
+			}
+			for (int i = 0; i < retval.length; i++) {
+				try {
+					retval[i] = waitForResult(results.get(i), files.get(i), monitor);
+				} catch (SpdxProjectException e) {
+					if (errors == null) {
+						throw(e);
+					}
+					errors.put(files.get(i), e);
+					monitor.worked(1);
+					continue;
+				}
+				if (retval[i] == null) {
+					return null;	// canceled
+				}
+				monitor.worked(1);
+			}
+			return retval;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Wait for a checksum to complete while checking the monitor for cancellation
+	 * @param result
+	 * @param file
+	 * @param monitor
+	 * @return the checksum or null if canceled
+	 * @throws SpdxProjectException
+	 */
+	private String waitForResult(Future<String> result, IFile file,
+			IProgressMonitor monitor) throws SpdxProjectException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				return null;
+			}
+			try {
+				return result.get(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancel and try again
+			} catch (InterruptedException e) {
+				throw(new SpdxProjectException("Calculation of the SHA1 for file "+file.getName()+" was unexpectedly interrupted", e));
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof SpdxProjectException) {
+					throw((SpdxProjectException)e.getCause());
+				}
+				throw(new SpdxProjectException("Error calculating the SHA1 for file "+file.getName(), e.getCause()));
+			}
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
+
+/**
+ * Record of the files completed by a full scan of a project so that a scan which was
+ * canceled or interrupted by a shutdown can be resumed by the next full build.
+ *
+ * For each completed file the modification stamp, SHA1 and resolved SPDX properties are
+ * appended to a file in the plugin state location.  The records are flushed to disk
+ * periodically during the scan.  A record is only used if the modification stamp of the
+ * file still matches.  The checkpoint is deleted when the scan completes or when any
+ * SPDX property is changed.
+ *
+ * Lookups are safe from multiple threads.  Records must be added from a single thread.
+ * @author Gary O'Neall
+ *
+ */
+public class ScanCheckpoint {
+
+	static final int CHECKPOINT_FILE_VERSION = 1;
+	static final String CHECKPOINT_DIRECTORY = "checkpoints";
+	static final String CHECKPOINT_FILE_EXTENSION = ".checkpoint";
+	/**
+	 * Number of records added between writes to disk
+	 */
+	static final int DEFAULT_FLUSH_INTERVAL = 200;
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	/**
+	 * Upper bound on the length of a string read from the checkpoint file to guard against corrupted files
+	 */
+	static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+	/**
+	 * Upper bound on the number of contributors read for a file to guard against corrupted files
+	 */
+	static final int MAX_CONTRIBUTORS = 64 * 1024;
+
+	/**
+	 * Checkpoint information for a single file
+	 */
+	public static class CheckpointEntry {
+		private long modificationStamp;
+		private String sha1;
+		private ResolvedFileProperties properties;
+
+		CheckpointEntry(long modificationStamp, String sha1, ResolvedFileProperties properties) {
+			this.modificationStamp = modificationStamp;
+			this.sha1 = sha1;
+			this.properties = properties;
+		}
+
+		public long getModificationStamp() {
+			return modificationStamp;
+		}
+
+		public String getSha1() {
+			return sha1;
+		}
+
+		public ResolvedFileProperties getProperties() {
+			return properties;
+		}
+	}
+
+	/**
+	 * Map of project relative path to checkpoint information
+	 */
+	private ConcurrentHashMap<String, CheckpointEntry> entries = new ConcurrentHashMap<String, CheckpointEntry>();
+	private File checkpointFile;
+	private int flushInterval;
+	private DataOutputStream out = null;
+	private int unflushed = 0;
+
+	/**
+	 * @param checkpointFile File used to persist the checkpoint.  If null, the checkpoint is not persisted
+	 */
+	public ScanCheckpoint(File checkpointFile) {
+		this(checkpointFile, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * @param checkpointFile File used to persist the checkpoint.  If null, the checkpoint is not persisted
+	 * @param flushInterval Number of records added between writes to disk
+	 */
+	public ScanCheckpoint(File checkpointFile, int flushInterval) {
+		this.checkpointFile = checkpointFile;
+		this.flushInterval = Math.max(1, flushInterval);
+	}
+
+	/**
+	 * @param projectName
+	 * @return The checkpoint file in the plugin state location for the project
+	 */
+	public static File getDefaultCheckpointFile(String projectName) {
+		Activator plugin = Activator.getDefault();
+		if (plugin == null) {
+			return null;
+		}
+		IPath checkpointDir = plugin.getStateLocation().append(CHECKPOINT_DIRECTORY);
+		return checkpointDir.append(projectName + CHECKPOINT_FILE_EXTENSION).toFile();
+	}
+
+	/**
+	 * @return true if there is a checkpoint from an incomplete scan
+	 */
+	public boolean exists() {
+		return !entries.isEmpty() || (checkpointFile != null && checkpointFile.exists());
+	}
+
+	/**
+	 * Load the records from any previous incomplete scan and start recording new records.
+	 * Errors are logged and result in a scan which is not checkpointed.
+	 */
+	public synchronized void open() {
+		close();
+		entries.clear();
+		if (checkpointFile == null) {
+			return;
+		}
+		load();
+		// rewrite the loaded records so that any partial record at the end is discarded
+		try {
+			File dir = checkpointFile.getParentFile();
+			if (dir != null && !dir.exists() && !dir.mkdirs()) {
+				throw(new IOException("Unable to create SPDX checkpoint directory "+dir.getPath()));
+			}
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(checkpointFile)));
+			out.writeInt(CHECKPOINT_FILE_VERSION);
+			Iterator<Entry<String, CheckpointEntry>> iter = entries.entrySet().iterator();
+			while (iter.hasNext()) {
+				Entry<String, CheckpointEntry> entry = iter.next();
+				writeEntry(entry.getKey(), entry.getValue());
+			}
+			out.flush();
+		} catch (IOException e) {
+			Activator.getDefault().logError("Unable to write SPDX scan checkpoint - the scan will not be resumable", e);
+			closeQuietly();
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return the checkpoint information for the file or null if the file has no
+	 * checkpoint or has changed since the checkpoint
+	 */
+	public CheckpointEntry get(IFile file) {
+		return get(file.getProjectRelativePath().toString(), file.getModificationStamp());
+	}
+
+	/**
+	 * @param path project relative path
+	 * @param modificationStamp current modification stamp of the file
+	 * @return the checkpoint information or null if the path has no checkpoint
+	 * or the modification stamp does not match
+	 */
+	CheckpointEntry get(String path, long modificationStamp) {
+		CheckpointEntry entry = entries.get(path);
+		if (entry == null) {
+			return null;
+		}
+		if (modificationStamp == IResource.NULL_STAMP || modificationStamp != entry.getModificationStamp()) {
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Record a completed file
+	 * @param path project relative path
+	 * @param modificationStamp modification stamp of the file before the checksum was calculated
+	 * @param sha1
+	 * @param properties
+	 */
+	public synchronized void add(String path, long modificationStamp, String sha1,
+			ResolvedFileProperties properties) {
+		if (modificationStamp == IResource.NULL_STAMP) {
+			return;
+		}
+		CheckpointEntry entry = new CheckpointEntry(modificationStamp, sha1, properties);
+		entries.put(path, entry);
+		if (out == null) {
+			return;
+		}
+		try {
+			writeEntry(path, entry);
+			unflushed++;
+			if (unflushed >= flushInterval) {
+				out.flush();
+				unflushed = 0;
+			}
+		} catch (IOException e) {
+			Activator.getDefault().logError("Unable to write SPDX scan checkpoint - the scan will not be resumable", e);
+			closeQuietly();
+		}
+	}
+
+	/**
+	 * Write any unflushed records and stop recording.  The checkpoint file is kept
+	 * so that the scan can be resumed.
+	 */
+	public synchronized void close() {
+		if (out == null) {
+			return;
+		}
+		try {
+			out.close();
+		} catch (IOException e) {
+			Activator.getDefault().logError("IO Error closing SPDX scan checkpoint", e);
+		}
+		out = null;
+		unflushed = 0;
+	}
+
+	private void closeQuietly() {
+		try {
+			if (out != null) {
+				out.close();
+			}
+		} catch (IOException e) {
+			// ignore - already logged the original error
+		}
+		out = null;
+	}
+
+	/**
+	 * Delete the checkpoint file and all records
+	 */
+	public synchronized void delete() {
+		closeQuietly();
+		entries.clear();
+		if (checkpointFile != null && checkpointFile.exists()) {
+			checkpointFile.delete();
+		}
+	}
+
+	/**
+	 * @return number of files recorded
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	private void writeEntry(String path, CheckpointEntry entry) throws IOException {
+		writeString(path);
+		out.writeLong(entry.getModificationStamp());
+		writeString(entry.getSha1());
+		ResolvedFileProperties properties = entry.getProperties();
+		writeString(properties.getConcludedLicense());
+		writeString(properties.getCopyright());
+		writeString(properties.getNotice());
+		writeString(properties.getComment());
+		String[] contributors = properties.getContributors();
+		out.writeInt(contributors.length);
+		for (int i = 0; i < contributors.length; i++) {
+			writeString(contributors[i]);
+		}
+		writeString(properties.getArtifactOfProjectName());
+		writeString(properties.getArtifactOfProjectUrl());
+	}
+
+	/**
+	 * Write a string of any length which may be null
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(UTF8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Load the records from the checkpoint file.  Records after any error, including a
+	 * partial record written when the workbench was shut down, are ignored.
+	 */
+	private void load() {
+		if (!checkpointFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		HashMap<String, CheckpointEntry> loaded = new HashMap<String, CheckpointEntry>();
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)));
+			int version = in.readInt();
+			if (version != CHECKPOINT_FILE_VERSION) {
+				return;	// ignore old versions
+			}
+			while (true) {
+				String path;
+				try {
+					path = readString(in);
+				} catch (EOFException e) {
+					break;	// end of the records
+				}
+				long modificationStamp = in.readLong();
+				String sha1 = readString(in);
+				String license = readString(in);
+				String copyright = readString(in);
+				String notice = readString(in);
+				String comment = readString(in);
+				int numContributors = in.readInt();
+				if (numContributors < 0 || numContributors > MAX_CONTRIBUTORS) {
+					throw(new IOException("Invalid number of contributors in SPDX scan checkpoint"));
+				}
+				String[] contributors = new String[numContributors];
+				for (int i = 0; i < numContributors; i++) {
+					contributors[i] = readString(in);
+				}
+				String projectName = readString(in);
+				String projectUrl = readString(in);
+				loaded.put(path, new CheckpointEntry(modificationStamp, sha1,
+						new ResolvedFileProperties(license, copyright, notice, comment,
+								contributors, projectName, projectUrl)));
+			}
+		} catch (EOFException e) {
+			// partial record at the end - keep the complete records
+		} catch (IOException e) {
+			Activator.getDefault().logError("Error reading SPDX scan checkpoint - the completed records will be used", e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					Activator.getDefault().logError("IO Error closing SPDX scan checkpoint", e);
+				}
+			}
+		}
+		entries.putAll(loaded);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		if (length > MAX_STRING_LENGTH) {
+			throw(new IOException("Invalid string length in SPDX scan checkpoint"));
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, UTF8);
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.ArrayList;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.spdx.spdxeclipse.Activator;
+
+/**
+ * Decides which resources are skipped when scanning a project.  In addition to the
+ * excluded file name patterns, derived resources, team private resources and the
+ * output folders of Java projects are skipped.  When a folder is skipped, none of
+ * its members are visited.
+ *
+ * Instances are immutable and may be shared between threads.
+ * @author Gary O'Neall
+ *
+ */
+public class ScanFilter {
+
+	private ExcludedFilesMatcher excludedFilesMatcher;
+	/**
+	 * Full paths of the output folders
+	 */
+	private IPath[] outputLocations;
+
+	/**
+	 * @param excludedFilesMatcher Matcher for the excluded file and folder names
+	 * @param outputLocations Full paths of folders to skip
+	 */
+	public ScanFilter(ExcludedFilesMatcher excludedFilesMatcher, IPath[] outputLocations) {
+		this.excludedFilesMatcher = excludedFilesMatcher;
+		this.outputLocations = outputLocations;
+	}
+
+	/**
+	 * @param proxy
+	 * @return true if the resource and any members should be skipped
+	 */
+	public boolean isSkipped(IResourceProxy proxy) {
+		if (proxy.isDerived() || proxy.isTeamPrivateMember()) {
+			return true;
+		}
+		if (excludedFilesMatcher.matches(proxy.getName())) {
+			return true;
+		}
+		if (proxy.getType() == IResource.FOLDER && outputLocations.length > 0) {
+			return isInOutputLocation(proxy.requestFullPath());
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a file is derived, team private or in an output folder, including
+	 * checks of the folders containing the file.  The file name patterns are not checked.
+	 * @param file
+	 * @return true if the file should be skipped
+	 */
+	public boolean isSkipped(IFile file) {
+		if (file.isDerived(IResource.CHECK_ANCESTORS) || file.isTeamPrivateMember(IResource.CHECK_ANCESTORS)) {
+			return true;
+		}
+		return isInOutputLocation(file.getFullPath());
+	}
+
+	/**
+	 * @param fullPath
+	 * @return true if the path is one of the output folders or within an output folder
+	 */
+	private boolean isInOutputLocation(IPath fullPath) {
+		for (int i = 0; i < outputLocations.length; i++) {
+			if (outputLocations[i].isPrefixOf(fullPath)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the output folders for a Java project.  Output locations which are the project
+	 * itself are not included since the source files would also be skipped.
+	 * @param project
+	 * @return Full paths of the Java output folders or an empty array if the project is not a Java project
+	 */
+	public static IPath[] getOutputLocations(IProject project) {
+		ArrayList<IPath> retval = new ArrayList<IPath>();
+		try {
+			if (project.isOpen() && project.hasNature(JavaCore.NATURE_ID)) {
+				IJavaProject javaProject = JavaCore.create(project);
+				addOutputLocation(project, javaProject.getOutputLocation(), retval);
+				IClasspathEntry[] entries = javaProject.getRawClasspath();
+				for (int i = 0; i < entries.length; i++) {
+					if (entries[i].getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+						addOutputLocation(project, entries[i].getOutputLocation(), retval);
+					}
+				}
+			}
+		} catch (CoreException e) {
+			Activator.getDefault().logError("Unable to get the Java output folders for project "+project.getName(), e);
+		}
+		return retval.toArray(new IPath[retval.size()]);
+	}
+
+	private static void addOutputLocation(IProject project, IPath outputLocation, ArrayList<IPath> outputLocations) {
+		if (outputLocation != null && !outputLocation.equals(project.getFullPath()) &&
+				!outputLocations.contains(outputLocation)) {
+			outputLocations.add(outputLocation);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.preferences.PreferenceConstants;
+import org.spdx.spdxeclipse.project.SpdxProject.BackgroundBuildJob;
+
+/**
+ * Schedules the background builds for an SPDX project.
+ *
+ * A requested build is not started until no further builds have been requested for
+ * a quiet period so that a burst of property changes results in a single build.  While
+ * a build is waiting, further requests are merged into it - a pending incremental build
+ * is upgraded to a full build if a full build is requested.  Only one build for the
+ * project runs at a time; a build requested while another is running is started once the
+ * running build completes.  A running full build is canceled if another full build
+ * is requested since its results would be replaced.
+ *
+ * None of the methods except waitForBuilds block the caller.
+ * @author Gary O'Neall
+ *
+ */
+public class SpdxBuildScheduler {
+
+	/**
+	 * Default time in milliseconds to wait for further changes before starting a build
+	 */
+	public static final int DEFAULT_QUIET_PERIOD_MILLIS = 500;
+
+	private SpdxProject spdxProject;
+	/**
+	 * Build which has been requested but has not started running
+	 */
+	private BackgroundBuildJob pendingJob = null;
+	/**
+	 * Build which is currently running
+	 */
+	private BackgroundBuildJob runningJob = null;
+
+	private JobChangeAdapter jobListener = new JobChangeAdapter() {
+
+		@Override
+		public void running(IJobChangeEvent event) {
+			jobRunning((BackgroundBuildJob)event.getJob());
+		}
+
+		@Override
+		public void done(IJobChangeEvent event) {
+			jobDone((BackgroundBuildJob)event.getJob());
+		}
+
+	};
+
+	SpdxBuildScheduler(SpdxProject spdxProject) {
+		this.spdxProject = spdxProject;
+	}
+
+	/**
+	 * Request a background build.  The build is started after the quiet period
+	 * unless it is merged with a later request.
+	 * @param kind Kind of build - see IncrementalProjectBuilder
+	 * @return the job which will perform the build
+	 */
+	synchronized BackgroundBuildJob requestBuild(int kind) {
+		if (pendingJob != null) {
+			if (runningJob != null) {
+				// the pending job will be scheduled when the running job completes
+				upgradeKind(pendingJob, kind);
+				cancelRunningFullBuild(pendingJob.getKind());
+				return pendingJob;
+			}
+			if (pendingJob.sleep()) {
+				// restart the quiet period
+				upgradeKind(pendingJob, kind);
+				pendingJob.wakeUp(getQuietPeriod());
+				return pendingJob;
+			}
+			// the pending job has already started running
+			runningJob = pendingJob;
+			pendingJob = null;
+		}
+		pendingJob = spdxProject.createBuildJob(kind);
+		pendingJob.addJobChangeListener(jobListener);
+		if (runningJob != null) {
+			cancelRunningFullBuild(kind);
+		} else {
+			pendingJob.schedule(getQuietPeriod());
+		}
+		return pendingJob;
+	}
+
+	/**
+	 * Block until all requested builds have completed
+	 */
+	void waitForBuilds() {
+		while (true) {
+			BackgroundBuildJob job;
+			synchronized(this) {
+				job = runningJob != null ? runningJob : pendingJob;
+			}
+			if (job == null) {
+				return;
+			}
+			try {
+				job.join();
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Cancel any pending or running builds
+	 */
+	void cancelBuilds() {
+		BackgroundBuildJob pending;
+		BackgroundBuildJob running;
+		synchronized(this) {
+			pending = pendingJob;
+			running = runningJob;
+			pendingJob = null;
+		}
+		if (pending != null) {
+			pending.cancel();
+		}
+		if (running != null) {
+			running.cancel();
+		}
+	}
+
+	private synchronized void jobRunning(BackgroundBuildJob job) {
+		if (job == pendingJob) {
+			pendingJob = null;
+		}
+		runningJob = job;
+	}
+
+	private synchronized void jobDone(BackgroundBuildJob job) {
+		if (job == runningJob) {
+			runningJob = null;
+		}
+		if (job == pendingJob) {
+			// canceled before it started
+			pendingJob = null;
+		}
+		if (runningJob == null && pendingJob != null) {
+			pendingJob.schedule(getQuietPeriod());
+		}
+	}
+
+	private void cancelRunningFullBuild(int kind) {
+		if (kind == IncrementalProjectBuilder.FULL_BUILD &&
+				runningJob.getKind() == IncrementalProjectBuilder.FULL_BUILD) {
+			runningJob.cancel();
+		}
+	}
+
+	private static void upgradeKind(BackgroundBuildJob job, int kind) {
+		if (kind == IncrementalProjectBuilder.FULL_BUILD) {
+			job.setKind(kind);
+		}
+	}
+
+	/**
+	 * @return the time in milliseconds to wait for further changes before starting a build
+	 */
+	static int getQuietPeriod() {
+		Activator plugin = Activator.getDefault();
+		if (plugin == null) {
+			return DEFAULT_QUIET_PERIOD_MILLIS;
+		}
+		int quietPeriod = plugin.getPreferenceStore().getInt(PreferenceConstants.PREF_BUILD_QUIET_PERIOD);
+		if (quietPeriod < 0) {
+			return DEFAULT_QUIET_PERIOD_MILLIS;
+		}
+		return quietPeriod;
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Collection of file changes to be applied to an SPDX project in a single batch.
+ *
+ * Each file is recorded once using the last change reported for the file.  Any errors
+ * for individual files found while the changes are applied are recorded in the change
+ * set so that the remaining files can still be processed.
+ * @author Gary O'Neall
+ *
+ */
+public class SpdxChangeSet {
+
+	static final int ADDED = 1;
+	static final int CHANGED = 2;
+	static final int REMOVED = 3;
+	static final int MOVED = 4;
+
+	/**
+	 * Map of project relative path to the file and kind of change in the order reported
+	 */
+	private LinkedHashMap<String, FileChange> changes = new LinkedHashMap<String, FileChange>();
+	private LinkedHashMap<IFile, SpdxProjectException> errors = new LinkedHashMap<IFile, SpdxProjectException>();
+
+	static class FileChange {
+		IFile file;
+		int kind;
+		String movedFromPath;	// project relative path before a move
+
+		FileChange(IFile file, int kind) {
+			this.file = file;
+			this.kind = kind;
+		}
+	}
+
+	public void fileAdded(IFile file) {
+		put(file, ADDED);
+	}
+
+	public void fileChanged(IFile file) {
+		FileChange previous = changes.get(getPath(file));
+		if (previous != null && previous.kind == ADDED) {
+			return;	// still a new file
+		}
+		put(file, CHANGED);
+	}
+
+	public void fileRemoved(IFile file) {
+		put(file, REMOVED);
+	}
+
+	/**
+	 * Record a file moved or renamed within the project.  The content is unchanged
+	 * so the existing checksum is reused.
+	 * @param fromFile File before the move
+	 * @param toFile File after the move
+	 */
+	public void fileMoved(IFile fromFile, IFile toFile) {
+		put(toFile, MOVED).movedFromPath = getPath(fromFile);
+	}
+
+	/**
+	 * @param relativePath project relative path
+	 * @return true if the file at the path is added or changed in this change set
+	 */
+	public boolean isAddedOrChanged(String relativePath) {
+		FileChange change = changes.get(relativePath);
+		return change != null && (change.kind == ADDED || change.kind == CHANGED);
+	}
+
+	private FileChange put(IFile file, int kind) {
+		String path = getPath(file);
+		changes.remove(path);	// keep the order of the latest change
+		FileChange change = new FileChange(file, kind);
+		changes.put(path, change);
+		return change;
+	}
+
+	private static String getPath(IFile file) {
+		return file.getProjectRelativePath().toString();
+	}
+
+	/**
+	 * @return files added since the last build
+	 */
+	public List<IFile> getAddedFiles() {
+		return getFiles(ADDED);
+	}
+
+	/**
+	 * @return files changed since the last build
+	 */
+	public List<IFile> getChangedFiles() {
+		return getFiles(CHANGED);
+	}
+
+	/**
+	 * @return files removed since the last build
+	 */
+	public List<IFile> getRemovedFiles() {
+		return getFiles(REMOVED);
+	}
+
+	/**
+	 * @return map of the moved files to the project relative path before the move
+	 */
+	public Map<IFile, String> getMovedFiles() {
+		LinkedHashMap<IFile, String> retval = new LinkedHashMap<IFile, String>();
+		for (FileChange change:changes.values()) {
+			if (change.kind == MOVED) {
+				retval.put(change.file, change.movedFromPath);
+			}
+		}
+		return retval;
+	}
+
+	private List<IFile> getFiles(int kind) {
+		ArrayList<IFile> retval = new ArrayList<IFile>();
+		for (FileChange change:changes.values()) {
+			if (change.kind == kind) {
+				retval.add(change.file);
+			}
+		}
+		return retval;
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * @return the number of files changed
+	 */
+	public int size() {
+		return changes.size();
+	}
+
+	/**
+	 * Record an error for a single file
+	 * @param file
+	 * @param error
+	 */
+	public void addError(IFile file, SpdxProjectException error) {
+		errors.put(file, error);
+	}
+
+	/**
+	 * @return map of file to the error found while applying the change for the file
+	 */
+	public Map<IFile, SpdxProjectException> getErrors() {
+		return errors;
+	}
+}
@@ -16,21 +16,28 @@
 */
 package org.spdx.spdxeclipse.project;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.HashSet;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.spdx.rdfparser.DOAPProject;
 import org.spdx.rdfparser.SPDXFile;
 import org.spdx.rdfparser.SPDXLicenseInfo;
 import org.spdx.rdfparser.SPDXLicenseInfoFactory;
 import org.spdx.rdfparser.SpdxRdfConstants;
-import org.spdx.spdxeclipse.properties.SpdxFileProperties;
-import org.spdx.spdxeclipse.properties.SpdxProjectProperties;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.preferences.PreferenceConstants;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
 import org.spdx.spdxspreadsheet.InvalidLicenseStringException;
 
 /**
@@ -84,16 +91,45 @@ public class SpdxHelper {
 		ARCHIVE_EXTENSIONS.add("RPM"); 
 	}
 	
-	static final String SHA1_ALGORITHM = "SHA-1";
+	public static final String SHA1_ALGORITHM = "SHA-1";
+	public static final String SHA256_ALGORITHM = "SHA-256";
+	public static final String MD5_ALGORITHM = "MD5";
+	public static final String[] SUPPORTED_CHECKSUM_ALGORITHMS = new String[] {
+		SHA1_ALGORITHM, SHA256_ALGORITHM, MD5_ALGORITHM};
 	static final String PACKAGE_VERIFICATION_CHARSET = "UTF-8";
-	private static MessageDigest digest;
-	static {
-		try {
-			digest = MessageDigest.getInstance(SHA1_ALGORITHM);
-		} catch (NoSuchAlgorithmException e) {
-			digest = null;
-		};
-	}
+	/**
+	 * Size of the buffer used to read files through a file channel
+	 */
+	static final int CHANNEL_BUFFER_SIZE = 1024 * 1024;
+	/**
+	 * Default size in kilobytes at or above which local files are read through a file channel
+	 */
+	public static final int DEFAULT_LARGE_FILE_THRESHOLD_KB = 1024;
+	
+	/**
+	 * Reusable direct buffers for reading large files through a file channel
+	 */
+	private static final ThreadLocal<ByteBuffer> threadChannelBuffer = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+		}
+		
+	};
+	
+	/**
+	 * Each thread uses its own digests so that files may be converted concurrently
+	 * by multiple projects and worker threads.  The digests are keyed by algorithm name.
+	 */
+	private static final ThreadLocal<HashMap<String, MessageDigest>> threadDigests = new ThreadLocal<HashMap<String, MessageDigest>>() {
+
+		@Override
+		protected HashMap<String, MessageDigest> initialValue() {
+			return new HashMap<String, MessageDigest>();
+		}
+		
+	};
 	
 	/**
 	 * Convert a File resource (implements IFile interface) to an SPDX File
@@ -102,63 +138,56 @@ public class SpdxHelper {
 	 * @throws SpdxProjectException 
 	 */
 	public static SPDXFile convertFile(IFile file) throws SpdxProjectException {
+		return convertFile(file, generateSha1(file));
+	}
+	
+	/**
+	 * Convert a File resource to an SPDX File using a previously calculated SHA1
+	 * @param file
+	 * @param sha1 SHA1 checksum for the file content
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	public static SPDXFile convertFile(IFile file, String sha1) throws SpdxProjectException {
+		return createSpdxFile(file, sha1, resolveFileProperties(file));
+	}
+
+	/**
+	 * Read the SPDX properties for a file.  This method may be called from any thread.
+	 * @param file
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	public static ResolvedFileProperties resolveFileProperties(IFile file) throws SpdxProjectException {
+		try {
+			return ResolvedFileProperties.resolve(file);
+		} catch (CoreException e) {
+			throw new SpdxProjectException("Error getting SPDX file properties for file "+file.getName()+": "+e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Create an SPDX File from previously calculated SHA1 and resolved file properties
+	 * @param file
+	 * @param sha1 SHA1 checksum for the file content
+	 * @param properties Resolved SPDX properties for the file
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	public static SPDXFile createSpdxFile(IFile file, String sha1,
+			ResolvedFileProperties properties) throws SpdxProjectException {
 		String relativePath = file.getProjectRelativePath().toString();
 		String fileType = extensionToFileType(file.getFileExtension());
-		String sha1 = generateSha1(file);
 		SPDXLicenseInfo license;
 		try {
-			String licenseName = SpdxFileProperties.getConcludedLicense(file);
-			if (licenseName == null || licenseName.trim().isEmpty()) {
-				licenseName = SpdxProjectProperties.getDefaultFileLicense(file.getProject());
-			}
-			license = SPDXLicenseInfoFactory.parseSPDXLicenseString(licenseName);
+			license = SPDXLicenseInfoFactory.parseSPDXLicenseString(properties.getConcludedLicense());
 		} catch (InvalidLicenseStringException e) {
 			throw new SpdxProjectException("Invalid license for file - update file properties to a correct license: "+e.getMessage());
-		} catch (CoreException e) {
-			throw new SpdxProjectException("Error getting file property for the concluded license: "+e.getMessage());
-		}
-		String copyright;
-		try {
-			copyright = SpdxFileProperties.getCopyright(file);
-		} catch (CoreException e) {
-			throw new SpdxProjectException("Error getting file property for the file copyright: "+e.getMessage());
-		}
-		String notice;
-		try {
-			notice = SpdxFileProperties.getNotice(file);
-		} catch (CoreException e) {
-			throw new SpdxProjectException("Error getting file property for the file notice: "+e.getMessage());
-		}
-		String comment;
-		try {
-			comment = SpdxFileProperties.getComment(file);
-		} catch (CoreException e) {
-			throw new SpdxProjectException("Error getting file property for the file comment: "+e.getMessage());
-		}
-		String[] contributors;
-		try {
-			contributors = SpdxFileProperties.getContributors(file);
-			if (contributors == null) {
-				contributors = new String[0];
-			}
-		} catch (CoreException e) {
-			throw new SpdxProjectException("Error getting file property for the file contributors: "+e.getMessage());
 		}
 		DOAPProject[] artifactOf;
-		String osProject;
-		try {
-			osProject = SpdxFileProperties.getProjectName(file);
-		} catch (CoreException e) {
-			throw new SpdxProjectException("Error getting file property for the related project name: "+e.getMessage());
-		}
-		if (osProject != null && !osProject.isEmpty()) {
-			String osProjectUrl;
-			try {
-				osProjectUrl = SpdxFileProperties.getProjectUrl(file);
-			} catch (CoreException e) {
-				throw new SpdxProjectException("Error getting file property for the related project URL: "+e.getMessage());
-			}
-			artifactOf = new DOAPProject[] {new DOAPProject(osProject, osProjectUrl)};
+		if (!properties.getArtifactOfProjectName().isEmpty()) {
+			artifactOf = new DOAPProject[] {new DOAPProject(properties.getArtifactOfProjectName(),
+					properties.getArtifactOfProjectUrl())};
 		} else {
 			artifactOf = new DOAPProject[0];
 		}
@@ -167,41 +196,184 @@ public class SpdxHelper {
 		SPDXLicenseInfo concludedLicense = license;
 		
 		return new SPDXFile(relativePath, fileType, 
-				sha1, concludedLicense, new SPDXLicenseInfo[] {license}, "", copyright,
-				artifactOf, comment, null, contributors, notice);
+				sha1, concludedLicense, new SPDXLicenseInfo[] {license}, "", properties.getCopyright(),
+				artifactOf, properties.getComment(), null, properties.getContributors(), properties.getNotice());
 	}
 
+	/**
+	 * Generate the SHA1 for a file.  This method is thread safe.
+	 * @param file
+	 * @return
+	 * @throws SpdxProjectException
+	 */
 	public static String generateSha1(IFile file) throws SpdxProjectException {
+		return generateSha1(file, getThreadDigest(SHA1_ALGORITHM));
+	}
+	
+	/**
+	 * Generate the checksums for a file for all of the algorithms.  The file content
+	 * is read only once and each buffer is fed to all of the digests.
+	 * This method is thread safe.
+	 * @param file
+	 * @param algorithms Message digest algorithm names (e.g. SHA-1, SHA-256, MD5)
+	 * @return map of algorithm name to the hex checksum value
+	 * @throws SpdxProjectException
+	 */
+	public static HashMap<String, String> generateChecksums(IFile file, String[] algorithms) throws SpdxProjectException {
+		MessageDigest[] digests = new MessageDigest[algorithms.length];
+		for (int i = 0; i < algorithms.length; i++) {
+			digests[i] = getThreadDigest(algorithms[i]);
+		}
+		updateDigests(file, digests);
+		HashMap<String, String> retval = new HashMap<String, String>();
+		for (int i = 0; i < algorithms.length; i++) {
+			retval.put(algorithms[i], convertChecksumToString(digests[i].digest()));
+		}
+		return retval;
+	}
+	
+	/**
+	 * @param algorithm
+	 * @return the message digest for the algorithm owned by the current thread
+	 * @throws SpdxProjectException
+	 */
+	private static MessageDigest getThreadDigest(String algorithm) throws SpdxProjectException {
+		HashMap<String, MessageDigest> digests = threadDigests.get();
+		MessageDigest digest = digests.get(algorithm);
 		if (digest == null) {
 			try {
-				digest = MessageDigest.getInstance(SHA1_ALGORITHM);
+				digest = MessageDigest.getInstance(algorithm);
 			} catch (NoSuchAlgorithmException e) {
-				throw(new SpdxProjectException("Unable to create the message digest for generating the File SHA1"));
+				throw(new SpdxProjectException("Unable to create the message digest "+algorithm+" for generating the file checksum", e));
+			}
+			digests.put(algorithm, digest);
+		}
+		return digest;
+	}
+
+	/**
+	 * Generate the SHA1 for a file using the supplied digest.  The digest must not
+	 * be used by any other thread while the SHA1 is being calculated.
+	 * @param file
+	 * @param digest
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	public static String generateSha1(IFile file, MessageDigest digest) throws SpdxProjectException {
+		updateDigests(file, new MessageDigest[] {digest});
+		return convertChecksumToString(digest.digest());
+	}
+	
+	/**
+	 * Reset the digests and update all of them with the content of the file in a
+	 * single pass.  The digests must not be used by any other thread.
+	 * @param file
+	 * @param digests
+	 * @throws SpdxProjectException
+	 */
+	private static void updateDigests(IFile file, MessageDigest[] digests) throws SpdxProjectException {
+		resetDigests(digests);
+		File localFile = getLargeLocalFile(file);
+		if (localFile != null) {
+			try {
+				updateDigestsFromChannel(localFile, digests);
+				return;
+			} catch (IOException e) {
+				// fall back to reading the resource contents
+				resetDigests(digests);
 			}
 		}
-		digest.reset();
 		InputStream in;
 		try {
 			in = file.getContents();
 		} catch (CoreException e1) {
-			throw(new SpdxProjectException("IO getting file content while calculating the SHA1"));
+			throw(new SpdxProjectException("IO getting file content while calculating the checksum"));
 		}
 		try {
 			byte[] buffer = new byte[2048];
 			int numBytes = in.read(buffer);
 			while (numBytes >= 0) {
-				digest.update(buffer, 0, numBytes);
+				for (int i = 0; i < digests.length; i++) {
+					digests[i].update(buffer, 0, numBytes);
+				}
 				numBytes = in.read(buffer);
 			}
-			return convertChecksumToString(digest.digest());
 		} catch (IOException e) {
-			throw(new SpdxProjectException("IO error reading file input stream while calculating the SHA1"));
+			throw(new SpdxProjectException("IO error reading file input stream while calculating the checksum"));
 		} finally {
 			try {
 				in.close();
 			} catch (IOException e) {
-				throw(new SpdxProjectException("IO error closing file input stream while calculating the SHA1"));
+				throw(new SpdxProjectException("IO error closing file input stream while calculating the checksum"));
+			}
+		}
+	}
+	
+	private static void resetDigests(MessageDigest[] digests) {
+		for (int i = 0; i < digests.length; i++) {
+			digests[i].reset();
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return the local file system file if the file is stored locally and is at
+	 * least the size of the large file threshold preference, otherwise null
+	 */
+	private static File getLargeLocalFile(IFile file) {
+		IPath location = file.getLocation();
+		if (location == null) {
+			return null;	// not stored in the local file system
+		}
+		File localFile = location.toFile();
+		if (!localFile.isFile()) {
+			return null;
+		}
+		long threshold = (long)getLargeFileThresholdKb() * 1024L;
+		if (localFile.length() < threshold) {
+			return null;
+		}
+		return localFile;
+	}
+	
+	/**
+	 * @return the size in kilobytes at or above which local files are read through a file channel
+	 */
+	private static int getLargeFileThresholdKb() {
+		Activator plugin = Activator.getDefault();
+		if (plugin == null) {
+			return DEFAULT_LARGE_FILE_THRESHOLD_KB;
+		}
+		int threshold = plugin.getPreferenceStore().getInt(PreferenceConstants.PREF_LARGE_FILE_HASH_THRESHOLD);
+		if (threshold < 0) {
+			return DEFAULT_LARGE_FILE_THRESHOLD_KB;
+		}
+		return threshold;
+	}
+
+	/**
+	 * Update the digests with the contents of a local file using a file channel
+	 * and a reusable direct buffer
+	 * @param localFile
+	 * @param digests
+	 * @throws IOException
+	 */
+	private static void updateDigestsFromChannel(File localFile, MessageDigest[] digests) throws IOException {
+		ByteBuffer buffer = threadChannelBuffer.get();
+		FileInputStream in = new FileInputStream(localFile);
+		try {
+			FileChannel channel = in.getChannel();
+			buffer.clear();
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				for (int i = 0; i < digests.length; i++) {
+					buffer.rewind();	// each digest consumes the buffer
+					digests[i].update(buffer);
+				}
+				buffer.clear();
 			}
+		} finally {
+			in.close();
 		}
 	}
 
@@ -16,6 +16,8 @@
 */
 package org.spdx.spdxeclipse.project;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PipedInputStream;
@@ -25,29 +27,35 @@ import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.regex.Matcher;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.ui.PlatformUI;
 import org.spdx.compare.LicenseCompareHelper;
@@ -66,11 +74,17 @@ import org.spdx.rdfparser.SPDXNonStandardLicense;
 import org.spdx.rdfparser.SPDXReview;
 import org.spdx.rdfparser.SpdxNoAssertionLicense;
 import org.spdx.rdfparser.SpdxPackageVerificationCode;
+import org.spdx.rdfparser.SpdxRdfConstants;
 import org.spdx.rdfparser.SpdxVerificationHelper;
 import org.spdx.spdxeclipse.Activator;
 import org.spdx.spdxeclipse.builders.SpdxBuilder;
 import org.spdx.spdxeclipse.nature.SpdxProjectNature;
+import org.spdx.spdxeclipse.preferences.SpdxProjectPreferences;
 import org.spdx.spdxeclipse.properties.PropertyConstants;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
+import org.spdx.spdxeclipse.properties.SpdxFileProperties;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyBatch;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyCache;
 import org.spdx.spdxeclipse.properties.SpdxProjectProperties;
 import org.spdx.spdxspreadsheet.InvalidLicenseStringException;
 
@@ -92,6 +106,11 @@ import com.hp.hpl.jena.rdf.model.ModelFactory;
 public class SpdxProject {
 	
 	static final String DEFAULT_FILE_TYPE = "RDF/XML-ABBREV";
+	/**
+	 * Maximum number of files added or removed individually in a batch before all
+	 * files in the SPDX document are replaced in a single update
+	 */
+	static final int MAX_INDIVIDUAL_FILE_UPDATES = 100;
 	
 	SPDXDocument spdxDoc = null;
 	String projectName = null;
@@ -101,14 +120,32 @@ public class SpdxProject {
 	 * Map of fileName, SPDXFile for all files in the SPDX document
 	 */
 	HashMap<String, SPDXFile> spdxFiles = new HashMap<String, SPDXFile>();
+	/**
+	 * Sorted checksums of the spdxFiles used to maintain the package verification code
+	 */
+	VerificationCodeIndex verificationCodeIndex = new VerificationCodeIndex();
+	/**
+	 * Path, SHA1 of the content and modification stamp of the SPDX file last written
+	 * by this project.  Used to skip writing unchanged content which would otherwise
+	 * trigger another build.
+	 */
+	private String lastWrittenPath = null;
+	private String lastWrittenSha1 = null;
+	private long lastWrittenModificationStamp = IResource.NULL_STAMP;
 	
 	/**
-	 * Hashmap to map the SPDX license ID to friendly license names used in SPDX.
-	 * For standard licenses, the ID and friendly name will be the same.
+	 * Hashmap to map the SPDX license ID to friendly license names used in SPDX
+	 * for the licenses specific to this project.  The standard licenses are in the
+	 * shared StandardLicenseCatalog and are not included.
 	 * For custom license text, a new extractedLicenseInfo will be added and
 	 * the friendly name will be a user assigned name
 	 */
 	HashMap<String, String> availableLicenses = new HashMap<String, String>();
+	/**
+	 * Map of the standard license list IDs not known to the SPDX tools license parser
+	 * to the extracted license added to the SPDX document for the license
+	 */
+	HashMap<String, SPDXNonStandardLicense> catalogLicenses = new HashMap<String, SPDXNonStandardLicense>();
 	/**
 	 * All licenses found within the files
 	 */
@@ -119,18 +156,47 @@ public class SpdxProject {
 	 * document, this variable will be set to true
 	 */
 	private boolean fileRescanRequired = false;
+	/**
+	 * Number of times a rescan has been requested.  Used so that a full scan in progress
+	 * does not clear a rescan requested while it was running.
+	 */
+	private int fileRescanRequests = 0;
 	/**
 	 * Array of Regex patterns of file names to exclude from the verification code
 	 */
 	Pattern[] excludedFilesPatterns = new Pattern[0];
+	/**
+	 * Compiled matcher for the excludedFilesPatterns
+	 */
+	ExcludedFilesMatcher excludedFilesMatcher = new ExcludedFilesMatcher(excludedFilesPatterns);
+	/**
+	 * Full paths of the Java output folders for the project
+	 */
+	IPath[] outputLocations = new IPath[0];
+	/**
+	 * Filter for the resources skipped when scanning the project
+	 */
+	ScanFilter scanFilter = new ScanFilter(excludedFilesMatcher, outputLocations);
 	/**
 	 * List of file directories to include in the scan
 	 */
 	String[] includedFileDirectories = new String[0];
+	/**
+	 * Precomputed trie of the includedFileDirectories
+	 */
+	IncludedDirectoryTrie includedDirectoryTrie = new IncludedDirectoryTrie(includedFileDirectories);
+	/**
+	 * Cache of file checksums persisted across builds and workspace sessions
+	 */
+	ChecksumCache checksumCache;
+	/**
+	 * Files completed by a full scan which has not yet finished
+	 */
+	ScanCheckpoint scanCheckpoint;
 	
 	class BackgroundBuildJob extends WorkspaceJob {
 		
-		private int kind;
+		private volatile int kind;
 
 		public BackgroundBuildJob(int kind) {
 			super("SPDX Build");
@@ -141,9 +207,33 @@ public class SpdxProject {
 			return kind;
 		}
 
+		/**
+		 * Change the kind of build - only valid before the job has started running
+		 * @param kind
+		 */
+		void setKind(int kind) {
+			this.kind = kind;
+		}
+
 		@Override
 		public IStatus runInWorkspace(IProgressMonitor monitor)
 				throws CoreException {
+			if (kind == IncrementalProjectBuilder.FULL_BUILD) {
+				// scan each directory in its own job rather than holding the project for the whole build
+				if (!isCreated()) {
+					return Status.OK_STATUS;
+				}
+				try {
+					if (!rescanDirectories(monitor)) {
+						return Status.CANCEL_STATUS;
+					}
+					save(monitor);
+				} catch (SpdxProjectException e) {
+					Activator.getDefault().logError("Error rescanning SPDX project "+projectName, e);
+					return new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Error rescanning SPDX project: "+e.getMessage(), e);
+				}
+				return Status.OK_STATUS;
+			}
 			project.build(kind, SpdxBuilder.ID, new HashMap<String, String>(), monitor);
 			return Status.OK_STATUS;
 		}
@@ -154,9 +244,9 @@ public class SpdxProject {
 		}
 	}
 	/**
-	 * Background job to run builds when properties change
+	 * Schedules the background builds run when properties change
 	 */
-	BackgroundBuildJob buildJob = null;
+	SpdxBuildScheduler buildScheduler = new SpdxBuildScheduler(this);
 	
 	/**
 	 * This should only be called from the SpdxProjectFactory class
@@ -169,15 +259,10 @@ public class SpdxProject {
 
 		this.projectName = projectName;
 		project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
-		// initialize the available licenses from SPDX licenses
-		String[] stdLicenseIds = SPDXLicenseInfoFactory.getStandardLicenseIds();
-		for (int i = 0; i < stdLicenseIds.length; i++) {
-			this.availableLicenses.put(stdLicenseIds[i], stdLicenseIds[i]);
-		}
-		this.availableLicenses.put(SPDXLicenseInfoFactory.NOASSERTION_LICENSE_NAME, 
-				SPDXLicenseInfoFactory.NOASSERTION_LICENSE_NAME);
-		this.availableLicenses.put(SPDXLicenseInfoFactory.NONE_LICENSE_NAME, 
-				SPDXLicenseInfoFactory.NONE_LICENSE_NAME);
+		checksumCache = new ChecksumCache(ChecksumCache.getDefaultCacheFile(projectName));
+		refreshChecksumAlgorithms();
+		scanCheckpoint = new ScanCheckpoint(ScanCheckpoint.getDefaultCheckpointFile(projectName));
+		initAvailableLicenses();
 		if (isCreated()) {
 			String fileName;
 			try {
@@ -194,6 +279,19 @@ public class SpdxProject {
 		}
 	}
 
+	/**
+	 * Initialize the project specific available licenses to the special
+	 * NOASSERTION and NONE values.  The standard licenses come from the StandardLicenseCatalog.
+	 */
+	private void initAvailableLicenses() {
+		this.availableLicenses.clear();
+		this.catalogLicenses.clear();
+		this.availableLicenses.put(SPDXLicenseInfoFactory.NOASSERTION_LICENSE_NAME, 
+				SPDXLicenseInfoFactory.NOASSERTION_LICENSE_NAME);
+		this.availableLicenses.put(SPDXLicenseInfoFactory.NONE_LICENSE_NAME, 
+				SPDXLicenseInfoFactory.NONE_LICENSE_NAME);
+	}
+
 	private void addNature() throws SpdxProjectException {
 	   try {
 	      IProjectDescription description = project.getDescription();
@@ -290,8 +388,10 @@ public class SpdxProject {
 		}
 		this.refreshExcluedFilePatterns();
 		this.refreshIncludedFileDirectories();
+		this.refreshOutputLocations();
 		// add the files
 		this.spdxFiles.clear();
+		this.verificationCodeIndex.clear();
 		SPDXFile[] spdxFiles;
 		try {
 			spdxFiles = this.spdxDoc.getFileReferences();
@@ -301,6 +401,7 @@ public class SpdxProject {
 		}
 		for (int i = 0; i < spdxFiles.length; i++) {
 			this.spdxFiles.put(spdxFiles[i].getName(), spdxFiles[i]);
+			this.verificationCodeIndex.put(spdxFiles[i].getName(), spdxFiles[i].getSha1());
 		}
 	}
 
@@ -309,9 +410,12 @@ public class SpdxProject {
 	 * @throws SpdxProjectException 
 	 */
 	protected void close(IProgressMonitor monitor) throws SpdxProjectException {
+		// builds waiting for the quiet period would otherwise run against a closed project
+		buildScheduler.cancelBuilds();
 		if (dirty) {
 			this.save(monitor);
 		}
+		checksumCache.save();
 	}
 
 	/**
@@ -394,6 +498,7 @@ public class SpdxProject {
 			if (SpdxProjectProperties.isSpdxInitialized(project)) {
 				IFile saveFile = project.getFile(SpdxProjectProperties.getSpdxFileName(project));
 				saveAs(saveFile, monitor);
+				checksumCache.save();
 			}
 		} catch (CoreException e) {
 			Activator.getDefault().logError("Error getting SPDX Project Properties", e);
@@ -422,11 +527,13 @@ public class SpdxProject {
 		IContainer root = project.getProject();
 		refreshExcluedFilePatterns();
 		refreshIncludedFileDirectories();
+		refreshOutputLocations();
 		SPDXDocument previousDoc = this.spdxDoc;	// save to copy over any values which we do not have properties for
 		this.fileRescanRequired = true;
 		spdxFiles.clear();
+		verificationCodeIndex.clear();
 		licensesFromFiles.clear();
-		availableLicenses.clear();
+		initAvailableLicenses();
 		try {
 			this.createDefaultSpdxDoc();
 		} catch (IOException e) {
@@ -439,6 +546,310 @@ public class SpdxProject {
 		updateSpdxPackageFromProjectResources(monitor, previousDoc);
 		updateSpdxFilesFromProjectResources(spdxResource.getName(), root, monitor);
 	}
+	
+	/**
+	 * Bring the SPDX file information in sync with the project resources by applying
+	 * only the files added, removed or changed since the SPDX files were last updated.
+	 * Unlike refresh, the existing SPDX document is kept and files with unchanged
+	 * content are not converted again.  Changes to the file content are detected
+	 * using the checksum cache so only new or modified files are read.
+	 * @param monitor
+	 * @return the changes applied including any errors for individual files
+	 * @throws SpdxProjectException
+	 */
+	public synchronized SpdxChangeSet reconcile(IProgressMonitor monitor) throws SpdxProjectException {
+		if (scanCheckpoint.exists()) {
+			// a full scan was interrupted and the SPDX files are incomplete - resume the scan
+			try {
+				refresh(monitor);
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error resuming SPDX file scan", e);
+				throw(new SpdxProjectException("Error resuming SPDX file scan", e));
+			}
+			return new SpdxChangeSet();
+		}
+		refreshExcluedFilePatterns();
+		refreshIncludedFileDirectories();
+		refreshOutputLocations();
+		this.fileRescanRequired = true;	// until the reconcile completes
+		SpdxChangeSet changeSet = new SpdxChangeSet();
+		monitor.beginTask("Reconciling SPDX files", 3);
+		HashMap<String, IFile> projectFiles = new HashMap<String, IFile>();
+		ArrayList<IFile> existingFiles = new ArrayList<IFile>();
+		for (IContainer folder:getIncludedFolders(project)) {
+			try {
+				collectFiles(folder, projectFiles, existingFiles, changeSet);
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error collecting file information files", e);
+				throw(new SpdxProjectException("Error collecting file information files", e));
+			}
+		}
+		for (String path:spdxFiles.keySet()) {
+			if (!projectFiles.containsKey(path)) {
+				changeSet.fileRemoved(project.getFile(path));
+			}
+		}
+		monitor.worked(1);
+		if (monitor.isCanceled()) {
+			return changeSet;
+		}
+		IProgressMonitor hashMonitor = new SubProgressMonitor(monitor, 1);
+		hashMonitor.beginTask("Checking SPDX files for changes", existingFiles.size());
+		String[] sha1s = new ParallelFileHasher(checksumCache).hashFiles(existingFiles, hashMonitor, changeSet.getErrors());
+		hashMonitor.done();
+		if (sha1s == null) {
+			checksumCache.save();	// keep the completed checksums for the next reconcile
+			return changeSet;	// canceled
+		}
+		for (int i = 0; i < sha1s.length; i++) {
+			IFile file = existingFiles.get(i);
+			if (sha1s[i] != null && !sha1s[i].equals(spdxFiles.get(file.getProjectRelativePath().toString()).getSha1())) {
+				changeSet.fileChanged(file);
+			}
+		}
+		applyChanges(changeSet, new SubProgressMonitor(monitor, 1));
+		if (monitor.isCanceled()) {
+			requestFileRescan();
+			checksumCache.save();
+			return changeSet;
+		}
+		checksumCache.retainAll(spdxFiles.keySet());
+		this.fileRescanRequired = false;
+		monitor.done();
+		return changeSet;
+	}
+	
+	/**
+	 * Rescan all included directories.  Each directory is scanned by a separate job with a
+	 * scheduling rule on just that directory so that workspace operations on other folders
+	 * are not blocked by the scan.  The SPDX project is only locked while the results of
+	 * each directory are merged as the scan of that directory completes.
+	 * @param monitor
+	 * @return false if the scan was canceled
+	 * @throws SpdxProjectException
+	 */
+	public boolean rescanDirectories(IProgressMonitor monitor) throws SpdxProjectException {
+		List<IContainer> folders;
+		ScanFilter filter;
+		int rescanRequests;
+		synchronized(this) {
+			refreshExcluedFilePatterns();
+			refreshIncludedFileDirectories();
+			refreshOutputLocations();
+			this.fileRescanRequired = true;	// until the results are merged
+			rescanRequests = this.fileRescanRequests;
+			folders = getIncludedFolders(project);
+			filter = this.scanFilter;
+		}
+		monitor.beginTask("Scanning SPDX directories", folders.size() + 1);
+		// share the hashing threads between the directories scanned at the same time
+		int hashThreads = Math.max(1, ParallelFileHasher.getDefaultNumThreads() / Math.max(1, folders.size()));
+		ArrayList<DirectoryScanJob> remainingJobs = new ArrayList<DirectoryScanJob>();
+		try {
+			for (IContainer folder:folders) {
+				DirectoryScanJob scanJob = new DirectoryScanJob(folder, filter, checksumCache, hashThreads);
+				scanJob.schedule();
+				remainingJobs.add(scanJob);
+			}
+			while (!remainingJobs.isEmpty()) {
+				if (monitor.isCanceled()) {
+					checksumCache.save();	// keep the completed checksums for the next scan
+					return false;
+				}
+				boolean merged = false;
+				Iterator<DirectoryScanJob> iter = remainingJobs.iterator();
+				while (iter.hasNext()) {
+					DirectoryScanJob scanJob = iter.next();
+					IStatus result = scanJob.getResult();
+					if (result == null) {
+						continue;	// still running
+					}
+					iter.remove();
+					if (result.getSeverity() == IStatus.CANCEL) {
+						checksumCache.save();
+						return false;
+					}
+					if (!result.isOK()) {
+						throw(new SpdxProjectException(result.getMessage(), result.getException()));
+					}
+					mergeDirectoryResults(scanJob.getFolder(), scanJob.getResults());
+					merged = true;
+					monitor.worked(1);
+				}
+				if (!merged && !remainingJobs.isEmpty()) {
+					try {
+						Thread.sleep(SpdxScanPipeline.POLL_MILLISECONDS);
+					} catch (InterruptedException e) {
+						throw(new SpdxProjectException("SPDX directory scan was unexpectedly interrupted", e));
+					}
+				}
+			}
+		} finally {
+			// only the jobs not yet merged remain - includes any left when a merge fails
+			cancelScanJobs(remainingJobs);
+		}
+		completeRescan(folders, rescanRequests);
+		monitor.done();
+		return true;
+	}
+	
+	private static void cancelScanJobs(List<DirectoryScanJob> scanJobs) {
+		for (DirectoryScanJob scanJob:scanJobs) {
+			scanJob.cancel();
+		}
+	}
+	
+	/**
+	 * Update the SPDX files from the results of a scan of a single included directory.
+	 * Only files which are new or whose checksum changed are updated - property changes to
+	 * existing files are already applied as they are made.  Results for files
+	 * modified since they were scanned are skipped since the change is applied by an
+	 * incremental build.  Files in the directory which were not found by the scan are
+	 * only removed if they no longer exist or are no longer included.
+	 * @param folder Folder which was scanned
+	 * @param results Map of project relative path to scanned file for all files found in the folder
+	 * @throws SpdxProjectException
+	 */
+	synchronized void mergeDirectoryResults(IContainer folder, Map<String, DirectoryScanJob.ScannedFile> results) throws SpdxProjectException {
+		ArrayList<SPDXFile> addedSpdxFiles = new ArrayList<SPDXFile>();
+		HashSet<SPDXLicenseInfo> seenLicenses = new HashSet<SPDXLicenseInfo>();
+		boolean changed = false;
+		Iterator<Entry<String, DirectoryScanJob.ScannedFile>> iter = results.entrySet().iterator();
+		while (iter.hasNext()) {
+			Entry<String, DirectoryScanJob.ScannedFile> entry = iter.next();
+			String relativePath = entry.getKey();
+			DirectoryScanJob.ScannedFile scannedFile = entry.getValue();
+			IFile file = scannedFile.getFile();
+			if (scannedFile.getModificationStamp() == IResource.NULL_STAMP ||
+					file.getModificationStamp() != scannedFile.getModificationStamp()) {
+				continue;	// changed since the scan
+			}
+			SPDXFile origFile = this.spdxFiles.get(relativePath);
+			if (origFile != null && scannedFile.getSha1().equals(origFile.getSha1())) {
+				continue;	// unchanged
+			}
+			// the file properties may have been changed since the scan - normally resolved from the property cache
+			SPDXFile spdxFile = createSpdxFile(file,
+					scannedFile.getSha1(), SpdxHelper.resolveFileProperties(file));
+			changed = true;
+			if (origFile == null) {
+				this.spdxFiles.put(relativePath, spdxFile);
+				addedSpdxFiles.add(spdxFile);
+			} else {
+				copyFileInformation(file, origFile, spdxFile);
+			}
+			this.verificationCodeIndex.put(relativePath, spdxFile.getSha1());
+			seenLicenses.addAll(Arrays.asList(spdxFile.getSeenLicenses()));
+		}
+		IPath folderPath = folder.getProjectRelativePath();
+		ArrayList<String> removedPaths = new ArrayList<String>();
+		Iterator<String> pathIter = this.spdxFiles.keySet().iterator();
+		while (pathIter.hasNext()) {
+			String relativePath = pathIter.next();
+			if (!results.containsKey(relativePath) && folderPath.isPrefixOf(new Path(relativePath)) &&
+					!isIncludedProjectFile(relativePath)) {
+				pathIter.remove();
+				this.verificationCodeIndex.remove(relativePath);
+				removedPaths.add(relativePath);
+			}
+		}
+		if (!changed && removedPaths.isEmpty()) {
+			return;
+		}
+		updateDocumentFiles(addedSpdxFiles, removedPaths);
+		this.licensesFromFiles.addAll(seenLicenses);
+		this.dirty = true;
+	}
+	
+	/**
+	 * Complete a rescan once the results of all included directories have been merged
+	 * by removing any files outside of the scanned directories
+	 * @param folders Folders which were scanned
+	 * @param rescanRequests Number of rescan requests when the scan started
+	 * @throws SpdxProjectException
+	 */
+	private synchronized void completeRescan(List<IContainer> folders, int rescanRequests) throws SpdxProjectException {
+		ArrayList<String> removedPaths = new ArrayList<String>();
+		Iterator<String> pathIter = this.spdxFiles.keySet().iterator();
+		while (pathIter.hasNext()) {
+			String relativePath = pathIter.next();
+			if (!isInFolder(relativePath, folders) && !isIncludedProjectFile(relativePath)) {
+				pathIter.remove();
+				this.verificationCodeIndex.remove(relativePath);
+				removedPaths.add(relativePath);
+			}
+		}
+		if (!removedPaths.isEmpty()) {
+			updateDocumentFiles(new ArrayList<SPDXFile>(), removedPaths);
+			this.dirty = true;
+		}
+		checksumCache.retainAll(spdxFiles.keySet());
+		scanCheckpoint.delete();	// any interrupted full scan is now complete
+		if (rescanRequests == this.fileRescanRequests) {
+			this.fileRescanRequired = false;
+		}	// otherwise a rescan was requested while scanning
+	}
+	
+	private static boolean isInFolder(String relativePath, List<IContainer> folders) {
+		Path path = new Path(relativePath);
+		for (IContainer folder:folders) {
+			if (folder.getProjectRelativePath().isPrefixOf(path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param relativePath project relative path
+	 * @return true if the file currently exists and is included in the SPDX analysis
+	 */
+	private boolean isIncludedProjectFile(String relativePath) {
+		IFile file = project.getFile(relativePath);
+		return file.exists() && fileShouldBeIncluded(file);
+	}
+	
+	/**
+	 * Collect all non-excluded files within a folder and its subfolders recording
+	 * files not already in the SPDX analysis as added
+	 * @param folder
+	 * @param projectFiles Map of project relative path to file for all files found
+	 * @param existingFiles Files found which are already in the SPDX analysis
+	 * @param changeSet
+	 * @throws CoreException
+	 */
+	private void collectFiles(final IContainer folder, final Map<String, IFile> projectFiles,
+			final List<IFile> existingFiles, final SpdxChangeSet changeSet) throws CoreException {
+		folder.accept(new IResourceProxyVisitor() {
+			
+			boolean root = true;
+
+			@Override
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (root) {
+					root = false;	// the exclusions only apply to the contents of the folder
+					return true;
+				}
+				if (scanFilter.isSkipped(proxy)) {
+					return false;
+				}
+				if (proxy.getType() == IResource.FILE) {
+					IFile file = (IFile)proxy.requestResource();
+					String path = file.getProjectRelativePath().toString();
+					if (projectFiles.put(path, file) == null) {
+						if (spdxFiles.containsKey(path)) {
+							existingFiles.add(file);
+						} else {
+							changeSet.fileAdded(file);
+						}
+					}
+					return false;
+				}
+				return proxy.getType() == IResource.FOLDER;
+			}
+			
+		}, IResource.NONE);
+	}
 
 
 	/**
@@ -583,15 +994,128 @@ public class SpdxProject {
 		}
 	}
 
+	/**
+	 * Convert any license from the standard license catalog which is not known to the SPDX tools
+	 * license parser into an extracted license using the license name and text from the catalog.
+	 * The parser treats these licenses as non-standard licenses without any license text.
+	 * @param license parsed license
+	 * @return
+	 * @throws SpdxProjectException 
+	 */
+	protected SPDXLicenseInfo convertCatalogLicenses(SPDXLicenseInfo license) throws SpdxProjectException {
+		if (license instanceof SPDXLicenseSet) {
+			SPDXLicenseInfo[] originalMembers = ((SPDXLicenseSet)license).getSPDXLicenseInfos();
+			SPDXLicenseInfo[] members = new SPDXLicenseInfo[originalMembers.length];
+			boolean converted = false;
+			for (int i = 0; i < members.length; i++) {
+				members[i] = convertCatalogLicenses(originalMembers[i]);
+				if (members[i] != originalMembers[i]) {
+					converted = true;
+				}
+			}
+			if (!converted) {
+				return license;
+			} else if (license instanceof SPDXConjunctiveLicenseSet) {
+				return new SPDXConjunctiveLicenseSet(members);
+			} else if (license instanceof SPDXDisjunctiveLicenseSet) {
+				return new SPDXDisjunctiveLicenseSet(members);
+			} else {
+				throw(new SpdxProjectException("Unknown license set type - can not convert "+license.toString()));
+			}
+		} else if (license instanceof SPDXNonStandardLicense) {
+			String catalogId = ((SPDXNonStandardLicense)license).getId();
+			StandardLicenseCatalog catalog = StandardLicenseCatalog.getCatalog();
+			if (!catalog.contains(catalogId)) {
+				return license;
+			}
+			return getCatalogLicense(catalog, catalogId);
+		} else {
+			return license;	// no need to convert other license types
+		}
+	}
+	
+	/**
+	 * @param catalog
+	 * @param catalogId standard license ID not known to the SPDX tools license parser
+	 * @return the extracted license in the SPDX document for the license, adding it if needed
+	 * @throws SpdxProjectException
+	 */
+	private synchronized SPDXNonStandardLicense getCatalogLicense(StandardLicenseCatalog catalog,
+			String catalogId) throws SpdxProjectException {
+		SPDXNonStandardLicense retval = this.catalogLicenses.get(catalogId);
+		if (retval != null) {
+			return retval;
+		}
+		String text = catalog.getNormalizedText(catalogId);
+		if (text == null) {
+			throw(new SpdxProjectException("License "+catalogId+" is not supported by the SPDX tools and no license text is available.  "+
+					"Import an SPDX license list which includes the license texts."));
+		}
+		retval = getNonStdLicenseWithText(text);
+		if (retval == null) {
+			String licenseName = catalog.getLicenseName(catalogId);
+			retval = new SPDXNonStandardLicense(getNextAvailableLicenseId(), text,
+					licenseName == null ? catalogId : licenseName, new String[0],
+					"SPDX license list license "+catalogId);
+			addLicense(retval);
+		}
+		this.catalogLicenses.put(catalogId, retval);
+		return retval;
+	}
+	
+	/**
+	 * Convert a File resource to an SPDX File converting any catalog licenses
+	 * @param file
+	 * @param sha1 SHA1 checksum for the file content
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	private SPDXFile convertFile(IFile file, String sha1) throws SpdxProjectException {
+		return createSpdxFile(file, sha1, SpdxHelper.resolveFileProperties(file));
+	}
+	
+	/**
+	 * Create an SPDX File from previously calculated SHA1 and resolved file properties
+	 * converting any catalog licenses
+	 * @param file
+	 * @param sha1 SHA1 checksum for the file content
+	 * @param properties Resolved SPDX properties for the file
+	 * @return
+	 * @throws SpdxProjectException
+	 */
+	private SPDXFile createSpdxFile(IFile file, String sha1, ResolvedFileProperties properties) throws SpdxProjectException {
+		SPDXFile retval = SpdxHelper.createSpdxFile(file, sha1, properties);
+		SPDXLicenseInfo license = convertCatalogLicenses(retval.getConcludedLicenses());
+		if (license != retval.getConcludedLicenses()) {
+			retval.setConcludedLicenses(license);
+			retval.setSeenLicenses(new SPDXLicenseInfo[] {license});
+		}
+		return retval;
+	}
+
 	private synchronized void refreshIncludedFileDirectories() throws SpdxProjectException {
 		try {
 			includedFileDirectories = SpdxProjectProperties.getIncludedResourceDirectories(project.getProject());
+			includedDirectoryTrie = new IncludedDirectoryTrie(includedFileDirectories);
 		} catch (CoreException e) {
 			Activator.getDefault().logError("Error getting included resources properties", e);
 			throw(new SpdxProjectException("Error getting included resources properties",e));
 		}
 	}
 
+	/**
+	 * Refresh the checksum algorithms calculated for each file from the project properties
+	 * @throws SpdxProjectException
+	 */
+	private void refreshChecksumAlgorithms() throws SpdxProjectException {
+		try {
+			checksumCache.setAlgorithms(SpdxProjectProperties.getChecksumAlgorithms(project));
+		} catch (CoreException e) {
+			Activator.getDefault().logError("Error getting checksum algorithms property", e);
+			throw(new SpdxProjectException("Error getting checksum algorithms property",e));
+		}
+	}
+
 	/**
 	 * Refresh the excluded file patterns from the project properties
 	 * @throws SpdxProjectException 
@@ -608,56 +1132,73 @@ public class SpdxProject {
 		for (int i = 0; i < excludedFilesPatternRegexes.length; i++) {
 			excludedFilesPatterns[i] = Pattern.compile(excludedFilesPatternRegexes[i]);
 		}
+		excludedFilesMatcher = new ExcludedFilesMatcher(excludedFilesPatterns);
+		scanFilter = new ScanFilter(excludedFilesMatcher, outputLocations);
+	}
+	
+	/**
+	 * Refresh the Java output folders skipped when scanning the project
+	 */
+	private synchronized void refreshOutputLocations() {
+		outputLocations = ScanFilter.getOutputLocations(project);
+		scanFilter = new ScanFilter(excludedFilesMatcher, outputLocations);
 	}
 
 	public synchronized void saveAs(IFile spdxResource, IProgressMonitor monitor) throws SpdxProjectException {
 		if (this.fileRescanRequired) {
-			refresh(spdxResource, monitor);
+			// rescan in a background build rather than holding the project lock for a full refresh
+			backgroundFullBuild(IncrementalProjectBuilder.FULL_BUILD);
 		}
-		PipedInputStream in = new PipedInputStream();
-
+		flushVerificationCode();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		spdxDoc.getModel().write(out, DEFAULT_FILE_TYPE);
+		byte[] content = out.toByteArray();
+		String sha1;
 		try {
-			final PipedOutputStream out = new PipedOutputStream(in);
-			// need to write in a separate thread
-			Runnable writer = new Runnable() {
-
-				@Override
-				public void run() {
-					spdxDoc.getModel().write(out, DEFAULT_FILE_TYPE);
-					try {
-						out.close();
-					} catch (IOException e) {
-						Activator.getDefault().logError("IO Error closing SPDX pipe", e);
-					}
-				}
-				
-			};
-			Thread writerThread = new Thread(writer);
-			writerThread.start();
-			spdxResource.setContents(in, true, false, monitor);
-			writerThread.join();	// just to make sure it finishes
+			sha1 = SpdxHelper.convertChecksumToString(MessageDigest.getInstance(SpdxHelper.SHA1_ALGORITHM).digest(content));
+		} catch (NoSuchAlgorithmException e) {
+			Activator.getDefault().logError("Error calculating the SPDX file SHA1", e);
+			throw(new SpdxProjectException("Unable to calculate the SPDX file SHA1", e));
+		}
+		String path = spdxResource.getFullPath().toString();
+		if (sha1.equals(this.lastWrittenSha1) && path.equals(this.lastWrittenPath) &&
+				spdxResource.exists() && spdxResource.getModificationStamp() == this.lastWrittenModificationStamp) {
+			// content unchanged - writing would only trigger another build
+			this.dirty = false;
+			return;
+		}
+		try {
+			spdxResource.setContents(new ByteArrayInputStream(content), true, false, monitor);
+			this.lastWrittenPath = path;
+			this.lastWrittenSha1 = sha1;
+			this.lastWrittenModificationStamp = spdxResource.getModificationStamp();
 			this.dirty = false;
 		} catch (CoreException e1) {
 			throw(new SpdxProjectException("Unable to create SPDX file.", e1));
-		} catch (IOException e) {
-			throw(new SpdxProjectException("IO Error writing SPDX file.", e));
-		} catch (InterruptedException e) {
-			throw(new SpdxProjectException("Writing of the SPDX file was unexpectedly interrupted", e));
-		} finally {
-			try {
-				in.close();
-			} catch (IOException e) {
-				throw(new SpdxProjectException("Unable to close SPDX file.",e));
-			}
 		}
 	}
 
 	/**
-	 * @return List of defined license names available to the SPDX project.  This includes
+	 * @return Sorted list of defined license names available to the SPDX project.  This includes
 	 * both standard license names and license text added specifically for this project
 	 */
 	public synchronized String[] getAvailableLicenseNames() {
-		return this.availableLicenses.values().toArray(new String[this.availableLicenses.keySet().size()]);
+		// the standard license IDs are already sorted - only the few project licenses are sorted here
+		String[] standardLicenseIds = StandardLicenseCatalog.getCatalog().getLicenseIds();
+		String[] projectLicenses = this.availableLicenses.values().toArray(new String[this.availableLicenses.size()]);
+		Arrays.sort(projectLicenses);
+		String[] retval = new String[standardLicenseIds.length + projectLicenses.length];
+		int standardIndex = 0;
+		int projectIndex = 0;
+		for (int i = 0; i < retval.length; i++) {
+			if (projectIndex >= projectLicenses.length || (standardIndex < standardLicenseIds.length &&
+					standardLicenseIds[standardIndex].compareTo(projectLicenses[projectIndex]) <= 0)) {
+				retval[i] = standardLicenseIds[standardIndex++];
+			} else {
+				retval[i] = projectLicenses[projectIndex++];
+			}
+		}
+		return retval;
 	}
 
 	public SPDXDocument getSpdxDoc() {
@@ -680,18 +1221,86 @@ public class SpdxProject {
 		if (oldValue != null && oldValue.equals(newValue)) {
 			return;	// value didn't really change
 		}
+		// the resolved properties in any checkpoint of an incomplete scan may no longer be valid
+		scanCheckpoint.delete();
+		applyPropertyChange(resource, property, oldValue, newValue);
+	}
+	
+	/**
+	 * Called when a batch of file properties has been changed.  All of the SPDX files
+	 * are updated while holding the project lock and each distinct license string is
+	 * only parsed once.  All of the licenses are parsed before any SPDX file is updated
+	 * so that an invalid license string does not leave the SPDX document partially updated.
+	 * @param changes
+	 * @throws SpdxProjectException
+	 */
+	public synchronized void filePropertiesChanged(List<SpdxFilePropertyBatch.PropertyChange> changes) throws SpdxProjectException {
+		if (changes.isEmpty()) {
+			return;
+		}
+		HashMap<String, SPDXLicenseInfo> parsedLicenses = new HashMap<String, SPDXLicenseInfo>();
+		for (SpdxFilePropertyBatch.PropertyChange change:changes) {
+			String newValue = change.getNewValue();
+			if (change.getPropertyName().equals(PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE) &&
+					!parsedLicenses.containsKey(newValue)) {
+				parsedLicenses.put(newValue, parseFileConcludedLicense(newValue));
+			}
+		}
+		scanCheckpoint.delete();
+		for (SpdxFilePropertyBatch.PropertyChange change:changes) {
+			String newValue = change.getNewValue();
+			if (change.getOldValue() != null && change.getOldValue().equals(newValue)) {
+				continue;
+			}
+			if (change.getPropertyName().equals(PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE)) {
+				setFileConcludedLicense(change.getFile(), parsedLicenses.get(newValue));
+			} else {
+				applyPropertyChange(change.getFile(), change.getPropertyName(),
+						change.getOldValue(), newValue);
+			}
+		}
+	}
+
+	private void applyPropertyChange(IResource resource, String property,
+			final String oldValue, final String newValue) throws SpdxProjectException {
 		if (property.equals(PropertyConstants.PROP_EXCLUDED_FILE_PATTERNS)) {
 			this.refreshExcluedFilePatterns();
-			this.fileRescanRequired  = true;	// long running operation to get back in sync, mark for future run
+			requestFileRescan();	// long running operation to get back in sync, mark for future run
 			backgroundFullBuild(IncrementalProjectBuilder.FULL_BUILD);
 		} else if (property.equals(PropertyConstants.PROP_INCLUDED_RESOURCE_DIRECTORIES)) {
 			this.refreshIncludedFileDirectories();
-			this.fileRescanRequired = true;
+			requestFileRescan();
+			backgroundFullBuild(IncrementalProjectBuilder.FULL_BUILD);
+		} else if (property.equals(PropertyConstants.PROP_SPDX_CHECKSUM_ALGORITHMS)) {
+			// the property is stored after the notification
+			checksumCache.setAlgorithms(SpdxProjectProperties.parseChecksumAlgorithms(newValue));
+			requestFileRescan();
 			backgroundFullBuild(IncrementalProjectBuilder.FULL_BUILD);
 		} else if (property.equals(PropertyConstants.PROP_SPDX_DEFAULT_FILE_COPYRIGHT)) {
-			// nothing to do here - leaving this in the code as a placeholder
+			// the property is stored after the notification
+			String copyright = newValue;
+			if (copyright == null) {
+				copyright = SpdxProjectPreferences.getDefaultSpdxFileCopyright(project);
+			}
+			updateDefaultFileCopyright(copyright);
 		} else if (property.equals(PropertyConstants.PROP_SPDX_DEFAULT_FILE_LICENSE)) {
-			// nothing to do here - leaving this in the code as a placeholder
+			String license = newValue;
+			if (license == null) {
+				license = SpdxProjectPreferences.getDefaultFileLicense(project);
+			}
+			updateDefaultFileLicense(license);
+		} else if (property.equals(PropertyConstants.PROP_SPDX_DEFAULT_FILE_NOTICE)) {
+			String notice = newValue;
+			if (notice == null) {
+				notice = SpdxProjectPreferences.getDefaultSpdxFileNotice(project);
+			}
+			updateDefaultFileNotice(notice);
+		} else if (property.equals(PropertyConstants.PROP_SPDX_DEFAULT_FILE_CONTRIBUTORS)) {
+			String contributors = newValue;
+			if (contributors == null) {
+				contributors = SpdxProjectPreferences.getDefaultSpdxFileDefaultContributors(project);
+			}
+			updateDefaultFileContributors(SpdxProjectProperties.parseDefaultFileContributors(contributors));
 		} else if (property.equals(PropertyConstants.PROP_SPDX_DOC_URL)) {
 			// Not currently supported - there is no way to update the Document URI
 			Activator.getDefault().logError("Unsupported property change - SPDX Document URL", new SpdxProjectException("Unsupported property change - SPDX Document URL"));
@@ -706,24 +1315,193 @@ public class SpdxProject {
 			updateFileCopyright(resource, oldValue, newValue);
 		} else if (property.equals(PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE)) {
 			updateFileConcludedLicense(resource, oldValue, newValue);
+		} else if (property.equals(PropertyConstants.PROP_SPDX_FILE_NOTICE)) {
+			updateFileNotice(resource, newValue);
+		} else if (property.equals(PropertyConstants.PROP_SPDX_FILE_COMMENT)) {
+			updateFileComment(resource, newValue);
+		} else if (property.equals(PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS)) {
+			updateFileContributors(resource, newValue);
+		}
+	}
+
+	/**
+	 * Called when a preference used to resolve the project default file copyright,
+	 * license, notice or contributors has changed.  Updates the SPDX files which use
+	 * the project defaults.
+	 * @throws SpdxProjectException
+	 */
+	public void defaultFilePropertiesChanged() throws SpdxProjectException {
+		String copyright;
+		String license;
+		String notice;
+		String[] contributors;
+		try {
+			copyright = SpdxProjectProperties.getDefaultFileCopyright(project);
+			license = SpdxProjectProperties.getDefaultFileLicense(project);
+			notice = SpdxProjectProperties.getDefaultFileNotice(project);
+			contributors = SpdxProjectProperties.getDefaultFileContributors(project);
+		} catch (CoreException e) {
+			Activator.getDefault().logError("Error getting the project default file properties", e);
+			throw(new SpdxProjectException("Error getting the project default file properties.  See log for details.",e));
+		}
+		scanCheckpoint.delete();
+		updateDefaultFileCopyright(copyright);
+		updateDefaultFileLicense(license);
+		updateDefaultFileNotice(notice);
+		updateDefaultFileContributors(contributors);
+	}
+	
+	/**
+	 * Set the copyright of all SPDX files which do not have a file specific copyright
+	 * @param copyright new project default file copyright
+	 * @throws SpdxProjectException
+	 */
+	private synchronized void updateDefaultFileCopyright(String copyright) throws SpdxProjectException {
+		if (copyright == null) {
+			copyright = SpdxRdfConstants.NOASSERTION_VALUE;
+		}
+		for (String filePath:getFilesUsingDefault(PropertyConstants.PROP_SPDX_FILE_COPYRIGHT)) {
+			this.spdxFiles.get(filePath).setCopyright(copyright);
+			this.dirty = true;
+		}
+	}
+	
+	/**
+	 * Set the concluded license of all SPDX files which do not have a file specific concluded license
+	 * @param licenseString new project default file license
+	 * @throws SpdxProjectException
+	 */
+	private synchronized void updateDefaultFileLicense(String licenseString) throws SpdxProjectException {
+		SPDXLicenseInfo license;
+		if (licenseString == null || licenseString.isEmpty()) {
+			license = new SpdxNoAssertionLicense();
+		} else {
+			license = parseConcludedLicense(licenseString);
+		}
+		for (String filePath:getFilesUsingDefault(PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE)) {
+			this.spdxFiles.get(filePath).setConcludedLicenses(license);
+			this.dirty = true;
+		}
+	}
+	
+	/**
+	 * Set the notice text of all SPDX files which do not have a file specific notice
+	 * @param notice new project default file notice
+	 * @throws SpdxProjectException
+	 */
+	private synchronized void updateDefaultFileNotice(String notice) throws SpdxProjectException {
+		if (notice == null) {
+			notice = "";
+		}
+		for (String filePath:getFilesUsingDefault(PropertyConstants.PROP_SPDX_FILE_NOTICE)) {
+			this.spdxFiles.get(filePath).setNoticeText(notice);
+			this.dirty = true;
+		}
+	}
+	
+	/**
+	 * Set the contributors of all SPDX files which do not have file specific contributors
+	 * @param contributors new project default file contributors
+	 * @throws SpdxProjectException
+	 */
+	private synchronized void updateDefaultFileContributors(String[] contributors) throws SpdxProjectException {
+		contributors = trimContributors(contributors);
+		for (String filePath:getFilesUsingDefault(PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS)) {
+			this.spdxFiles.get(filePath).setContributors(contributors);
+			this.dirty = true;
 		}
 	}
+	
+	/**
+	 * @param contributors
+	 * @return the contributors with whitespace trimmed and without any empty contributors
+	 */
+	private static String[] trimContributors(String[] contributors) {
+		ArrayList<String> retval = new ArrayList<String>();
+		if (contributors != null) {
+			for (String contributor:contributors) {
+				if (!contributor.trim().isEmpty()) {
+					retval.add(contributor.trim());
+				}
+			}
+		}
+		return retval.toArray(new String[retval.size()]);
+	}
+	
+	/**
+	 * @param fileProperty Unqualified file property name
+	 * @return project relative paths of the SPDX files with no file specific value for the property
+	 * @throws SpdxProjectException
+	 */
+	private List<String> getFilesUsingDefault(String fileProperty) throws SpdxProjectException {
+		SpdxFilePropertyCache propertyCache = SpdxFilePropertyCache.getCache(project);
+		ArrayList<String> retval = new ArrayList<String>();
+		for (String filePath:this.spdxFiles.keySet()) {
+			IFile file = project.getFile(filePath);
+			if (!file.exists()) {
+				continue;	// will be removed on the next build
+			}
+			String value;
+			try {
+				value = propertyCache.getProperty(file, fileProperty);
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error getting file property for file "+filePath, e);
+				throw(new SpdxProjectException("Error getting file property for file "+filePath+".  See log for details.",e));
+			}
+			if (value == null || value.isEmpty()) {
+				retval.add(filePath);
+			}
+		}
+		return retval;
+	}
 
 	private void updateFileConcludedLicense(IResource resource,
 			String oldValue, String newValue) throws SpdxProjectException {
 		String filePath = resource.getProjectRelativePath().toString();
-		SPDXFile file = this.spdxFiles.get(filePath);
-		if (file == null) {
+		if (!this.spdxFiles.containsKey(filePath)) {
 			return;
 		}
+		setFileConcludedLicense(resource, parseConcludedLicense(newValue));
+	}
+	
+	/**
+	 * @param licenseString file concluded license property value
+	 * @return the parsed license or the parsed project default file license if the property value has been removed
+	 * @throws SpdxProjectException
+	 */
+	private SPDXLicenseInfo parseFileConcludedLicense(String licenseString) throws SpdxProjectException {
+		if (licenseString == null || licenseString.isEmpty()) {
+			try {
+				licenseString = SpdxFilePropertyCache.getCache(project).getDefaultFileLicense();
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error getting the project default file license", e);
+				throw(new SpdxProjectException("Error getting the project default file license.  See log for details.",e));
+			}
+			if (licenseString == null || licenseString.isEmpty()) {
+				return new SpdxNoAssertionLicense();
+			}
+		}
+		return parseConcludedLicense(licenseString);
+	}
+	
+	private SPDXLicenseInfo parseConcludedLicense(String licenseString) throws SpdxProjectException {
 		try {
-			file.setConcludedLicenses(SPDXLicenseInfoFactory.parseSPDXLicenseString(newValue));
-			this.dirty = true;
+			return convertCatalogLicenses(SPDXLicenseInfoFactory.parseSPDXLicenseString(licenseString));
 		} catch (InvalidLicenseStringException e) {
-			Activator.getDefault().logError("Invalid license string for file update: "+newValue, e);
+			Activator.getDefault().logError("Invalid license string for file update: "+licenseString, e);
 			throw(new SpdxProjectException("Invalid license string: "+e.getMessage()));
 		}
 	}
+	
+	private void setFileConcludedLicense(IResource resource, SPDXLicenseInfo license) {
+		String filePath = resource.getProjectRelativePath().toString();
+		SPDXFile file = this.spdxFiles.get(filePath);
+		if (file == null) {
+			return;
+		}
+		file.setConcludedLicenses(license);
+		this.dirty = true;
+	}
 
 	private void updateFileCopyright(IResource resource, String oldValue,
 			String newValue) {
@@ -736,6 +1514,56 @@ public class SpdxProject {
 		this.dirty = true;
 	}
 
+	private void updateFileNotice(IResource resource, String newValue) throws SpdxProjectException {
+		SPDXFile file = this.spdxFiles.get(resource.getProjectRelativePath().toString());
+		if (file == null) {
+			return;
+		}
+		String notice = newValue;
+		if (notice == null || notice.isEmpty()) {
+			try {
+				notice = SpdxFilePropertyCache.getCache(project).getDefaultFileNotice();
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error getting the project default file notice", e);
+				throw(new SpdxProjectException("Error getting the project default file notice.  See log for details.",e));
+			}
+			if (notice == null) {
+				notice = "";
+			}
+		}
+		file.setNoticeText(notice);
+		this.dirty = true;
+	}
+
+	private void updateFileComment(IResource resource, String newValue) {
+		SPDXFile file = this.spdxFiles.get(resource.getProjectRelativePath().toString());
+		if (file == null) {
+			return;
+		}
+		file.setComment(newValue == null ? "" : newValue);
+		this.dirty = true;
+	}
+
+	private void updateFileContributors(IResource resource, String newValue) throws SpdxProjectException {
+		SPDXFile file = this.spdxFiles.get(resource.getProjectRelativePath().toString());
+		if (file == null) {
+			return;
+		}
+		String[] contributors;
+		if (newValue == null || newValue.trim().isEmpty()) {
+			try {
+				contributors = trimContributors(SpdxFilePropertyCache.getCache(project).getDefaultFileContributors());
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error getting the project default file contributors", e);
+				throw(new SpdxProjectException("Error getting the project default file contributors.  See log for details.",e));
+			}
+		} else {
+			contributors = SpdxFileProperties.stringToStringArray(newValue);
+		}
+		file.setContributors(contributors);
+		this.dirty = true;
+	}
+
 	private void updateFileArtfactOfProject(IResource resource,
 			String oldProjectName, String newProjectName) {
 		String filePath = resource.getProjectRelativePath().toString();
@@ -846,42 +1674,41 @@ public class SpdxProject {
 	protected synchronized void updateSpdxFilesFromProjectResources(String spdxFileName, 
 			IContainer root, IProgressMonitor monitor) throws SpdxProjectException {
 
-		int numFiles = 0;
-		for (int i = 0; i < includedFileDirectories.length; i++) {
-			IContainer folder = null;
-			if (includedFileDirectories[i].equals("/") || includedFileDirectories[i].equals("\\") || includedFileDirectories[i].isEmpty()) {
-				folder = root;
-			} else {
-				Path path = new Path(includedFileDirectories[i]);
-				folder = root.getFolder(path);
-			}
-			if (folder.exists()) {
-				try {
-					numFiles = numFiles + countFiles(folder, excludedFilesPatterns);
-				} catch (CoreException e) {
-					Activator.getDefault().logError("Error counting files", e);
-					throw(new SpdxProjectException("Error counting files", e));
-				}
-			}
+		List<IContainer> folders = getIncludedFolders(root);
+		// the number of files is not known until the traversal stage completes
+		monitor.beginTask("Adding files to SPDX", IProgressMonitor.UNKNOWN);
+		checksumCache.resetCounters();
+		if (monitor.isCanceled()) {
+			return;	// the file rescan required flag remains set
 		}
-		monitor.beginTask("Adding files to SPDX", numFiles);
-		for (int i = 0; i < includedFileDirectories.length; i++) {
-			IContainer folder = null;
-			if (includedFileDirectories[i].equals("/") || includedFileDirectories[i].equals("\\") || includedFileDirectories[i].isEmpty()) {
-				folder = root;
-			} else {
-				Path path = new Path(includedFileDirectories[i]);
-				folder = root.getFolder(path);
-			}
-			if (folder.exists()) {
-				try {
-					collectFilesInformation(folder, monitor);
-				} catch (CoreException e) {
-					Activator.getDefault().logError("Error collecting file information files", e);
-					throw(new SpdxProjectException("Error collecting file information files", e));
+		SpdxScanPipeline pipeline = new SpdxScanPipeline(checksumCache, scanFilter);
+		// resume from any files completed by a previous scan which did not finish
+		scanCheckpoint.open();
+		pipeline.setCheckpoint(scanCheckpoint);
+		boolean completed;
+		try {
+			completed = pipeline.scan(folders, new SpdxScanPipeline.ScanResultHandler() {
+	
+				@Override
+				public void fileScanned(IFile file, long modificationStamp, String sha1,
+						ResolvedFileProperties properties) throws SpdxProjectException {
+					addScannedFile(file, sha1, properties);
 				}
-			}
-		}	
+				
+			}, monitor);
+		} finally {
+			scanCheckpoint.close();
+		}
+		if (!completed) {
+			// canceled - the file rescan required flag remains set and the next scan resumes from the checkpoint
+			checksumCache.save();
+			return;
+		}
+		scanCheckpoint.delete();
+		checksumCache.retainAll(spdxFiles.keySet());
+		if (Activator.getDefault().isDebugging()) {
+			Activator.getDefault().logInfo("SPDX refresh for project "+projectName+" "+checksumCache.getStatistics());
+		}
 		try {
 			getSpdxDoc().getSpdxPackage().setFiles(spdxFiles.values().toArray(new SPDXFile[spdxFiles.size()]));
 			getSpdxDoc().getSpdxPackage().setLicenseInfoFromFiles(licensesFromFiles.toArray(new SPDXLicenseInfo[licensesFromFiles.size()]));
@@ -892,61 +1719,60 @@ public class SpdxProject {
 			throw(new SpdxProjectException("Error adding files to SPDX document: "+e.getMessage(), e));
 		} 
 	}
-	private void collectFilesInformation(IContainer folder, IProgressMonitor monitor) throws CoreException, SpdxProjectException {
-		if (monitor.isCanceled()) {
-			return;
-		}
-		IResource[] children = folder.members();
-		for (int i = 0; i < children.length; i++) {
-			if (monitor.isCanceled()) {
-				return;
-			}
-			if (!isExcluded(children[i].getName())) {
-				if (children[i] instanceof IFile) {
-					IFile child = (IFile)children[i];
-					SPDXFile file = SpdxHelper.convertFile(child);
-					this.spdxFiles.put(child.getProjectRelativePath().toString(), file);
-					SPDXLicenseInfo[] seenLicenses = file.getSeenLicenses();
-					for (int j = 0; j < seenLicenses.length; j++) {
-						licensesFromFiles.add(seenLicenses[j]);
-					}
-					monitor.worked(1);
-				} else if (children[i] instanceof IFolder) {
-					IFolder childFolder = (IFolder)children[i];
-					collectFilesInformation(childFolder, monitor);
-				}
+	
+	/**
+	 * @param root
+	 * @return the existing folders for the included file directories
+	 */
+	private List<IContainer> getIncludedFolders(IContainer root) {
+		ArrayList<IContainer> folders = new ArrayList<IContainer>();
+		for (int i = 0; i < includedFileDirectories.length; i++) {
+			IContainer folder = null;
+			if (includedFileDirectories[i].equals("/") || includedFileDirectories[i].equals("\\") || includedFileDirectories[i].isEmpty()) {
+				folder = root;
+			} else {
+				Path path = new Path(includedFileDirectories[i]);
+				folder = root.getFolder(path);
 			}
-		}
-	}
-
-	private boolean isExcluded(String name) {
-		for (int i = 0; i < this.excludedFilesPatterns.length; i++) {
-			Matcher matcher = this.excludedFilesPatterns[i].matcher(name);
-			if (matcher.matches()) {
-				return true;
+			if (folder.exists()) {
+				folders.add(folder);
 			}
 		}
-		return false;
+		return folders;
 	}
 	
-	
-	private int countFiles(IContainer folder, Pattern[] excludedFilesPattern) throws CoreException {
-		int retval = 0;
-		IResource[] children = folder.members();
-		for (int i = 0; i < children.length; i++) {
-			if (!isExcluded(children[i].getName())) {
-				if (children[i] instanceof IFile) {
-					retval++;
-				} else if (children[i] instanceof IFolder) {
-					IFolder childFolder = (IFolder)children[i];
-					retval = retval + countFiles(childFolder, excludedFilesPattern);
-				}
-			}
+	/**
+	 * Assemble the SPDX file for a scanned file and add it to the project file information
+	 * @param file
+	 * @param sha1
+	 * @param properties
+	 * @throws SpdxProjectException
+	 */
+	private void addScannedFile(IFile file, String sha1, ResolvedFileProperties properties) throws SpdxProjectException {
+		SPDXFile spdxFile = createSpdxFile(file, sha1, properties);
+		String relativePath = file.getProjectRelativePath().toString();
+		this.spdxFiles.put(relativePath, spdxFile);
+		this.verificationCodeIndex.put(relativePath, sha1);
+		SPDXLicenseInfo[] seenLicenses = spdxFile.getSeenLicenses();
+		for (int j = 0; j < seenLicenses.length; j++) {
+			licensesFromFiles.add(seenLicenses[j]);
 		}
-		return retval;
+	}
+
+	private boolean isExcluded(String name) {
+		return this.excludedFilesMatcher.matches(name);
 	}
 	
-	private SpdxPackageVerificationCode calculatePackageVerificationCode(
+	
+	/**
+	 * Calculate the package verification code from all of the files.  This is the
+	 * reference implementation for the incrementally maintained verificationCodeIndex.
+	 * @param spdxFiles
+	 * @param excludedFileNamesFromVerificationCode
+	 * @return
+	 * @throws NoSuchAlgorithmException
+	 */
+	static SpdxPackageVerificationCode calculatePackageVerificationCode(
 			Collection<SPDXFile> spdxFiles,
 			ArrayList<String> excludedFileNamesFromVerificationCode) throws NoSuchAlgorithmException {
 		ArrayList<String> fileChecksums = new ArrayList<String>();
@@ -968,7 +1794,7 @@ public class SpdxProject {
 				new String[excludedFileNamesFromVerificationCode.size()]));
 	}
 
-	private boolean includeInVerificationCode(String name, ArrayList<String> excludedFileNamesFromVerificationCode) {
+	private static boolean includeInVerificationCode(String name, ArrayList<String> excludedFileNamesFromVerificationCode) {
 		for (int i = 0; i < excludedFileNamesFromVerificationCode.size(); i++) {
 			if (excludedFileNamesFromVerificationCode.get(i).equals(name)) {
 				return false;
@@ -986,7 +1812,8 @@ public class SpdxProject {
 		if (idError != null && !idError.isEmpty()) {
 			return false;
 		}
-		return !this.availableLicenses.containsKey(licenseId);
+		return !this.availableLicenses.containsKey(licenseId) &&
+				!StandardLicenseCatalog.getCatalog().contains(licenseId);
 	}
 	
 	public SPDXNonStandardLicense getNonStdLicenseWithText(String text) throws SpdxProjectException {
@@ -1029,7 +1856,19 @@ public class SpdxProject {
 	 * @param rescanRequired True if a complete refresh and rescan is required for an accurate SPDX file
 	 */
 	public synchronized void setFileRescanRequired(boolean rescanRequired) {
-		this.fileRescanRequired = rescanRequired;
+		if (rescanRequired) {
+			requestFileRescan();
+		} else {
+			this.fileRescanRequired = false;
+		}
+	}
+	
+	/**
+	 * Mark the SPDX files as out of sync with the project files
+	 */
+	private void requestFileRescan() {
+		this.fileRescanRequired = true;
+		this.fileRescanRequests++;
 	}
 
 	/**
@@ -1038,22 +1877,12 @@ public class SpdxProject {
 	 * @return
 	 */
 	public synchronized boolean fileShouldBeIncluded(IFile file) {
-		boolean inIncludedDirectory = false;
-		for (int i = 0; i < this.includedFileDirectories.length; i++) {
-			IContainer folder = null;
-			if (includedFileDirectories[i].equals("/") || includedFileDirectories[i].equals("\\") || includedFileDirectories[i].isEmpty()) {
-				folder = project;
-			} else {
-				Path path = new Path(includedFileDirectories[i]);
-				folder = project.getFolder(path);
-			}
-			if (folder.getFullPath().matchingFirstSegments(file.getFullPath()) == folder.getFullPath().segmentCount()) {
-				inIncludedDirectory = true;
-				break;
-			}
+		IPath fullPath = file.getFullPath();
+		if (fullPath.segmentCount() < 1 || !fullPath.segment(0).equals(projectName)) {
+			return false;	// not in this project
 		}
-		if (inIncludedDirectory) {
-			return !this.isExcluded(file.getName());
+		if (includedDirectoryTrie.isIncluded(fullPath, 1)) {
+			return !this.isExcluded(file.getName()) && !scanFilter.isSkipped(file);
 		} else {
 			return false;
 		}
@@ -1071,7 +1900,7 @@ public class SpdxProject {
 			if (this.spdxFiles.containsKey(relativePath)) {
 				throw(new SpdxProjectException("Can not add file "+file.getName()+".  File already exists in analysis.  Use UpdateFile to update the file information."));
 			}
-			SPDXFile spdxFile = SpdxHelper.convertFile(file);
+			SPDXFile spdxFile = convertFile(file, checksumCache.getSha1(file));
 			try {
 				this.spdxDoc.getSpdxPackage().addFile(spdxFile);
 				this.dirty = true;
@@ -1080,7 +1909,7 @@ public class SpdxProject {
 				throw(new SpdxProjectException("SPDX error adding file "+file.getName()));
 			}
 			this.spdxFiles.put(relativePath, spdxFile);
-			updateVerificationCodeFromFiles();
+			this.verificationCodeIndex.put(relativePath, spdxFile.getSha1());
 			SPDXLicenseInfo[] seenLicenses = spdxFile.getSeenLicenses();
 			for (int j = 0; j < seenLicenses.length; j++) {
 				licensesFromFiles.add(seenLicenses[j]);
@@ -1090,8 +1919,11 @@ public class SpdxProject {
 	
 	
 
-	protected void updateVerificationCodeFromFiles() throws SpdxProjectException {
-		ArrayList<String> excludedFileNamesFromVerificationCode = new ArrayList<String>();
+	/**
+	 * @return SPDX file names excluded from the package verification code
+	 * @throws SpdxProjectException
+	 */
+	private String[] getVerificationCodeExcludedFileNames() throws SpdxProjectException {
 		String spdxFileName;
 		try {
 			spdxFileName = SpdxProjectProperties.getSpdxFileName(project);
@@ -1100,11 +1932,30 @@ public class SpdxProject {
 			throw(new SpdxProjectException("Unable to access SPDX file name property"));
 		}
 		if (this.spdxFiles.containsKey(spdxFileName)) {
-			excludedFileNamesFromVerificationCode.add(spdxFileName);
-		}			
+			return new String[] {spdxFileName};
+		} else {
+			return new String[0];
+		}
+	}
+	
+	/**
+	 * Update the verification code in the SPDX document only if any files have
+	 * changed since the verification code was last updated
+	 * @throws SpdxProjectException
+	 */
+	private void flushVerificationCode() throws SpdxProjectException {
+		if (this.verificationCodeIndex.isChanged(getVerificationCodeExcludedFileNames())) {
+			updateVerificationCodeFromFiles();
+		}
+	}
+
+	protected void updateVerificationCodeFromFiles() throws SpdxProjectException {
+		String[] excludedFileNamesFromVerificationCode = getVerificationCodeExcludedFileNames();
 		SpdxPackageVerificationCode verificationCode;
 		try {
-			verificationCode = this.calculatePackageVerificationCode(spdxFiles.values(), excludedFileNamesFromVerificationCode);
+			verificationCode = new SpdxPackageVerificationCode(
+					this.verificationCodeIndex.getVerificationCodeValue(excludedFileNamesFromVerificationCode),
+					excludedFileNamesFromVerificationCode);
 		} catch (NoSuchAlgorithmException e) {
 			Activator.getDefault().logError("Error calculating verification code", e);
 			throw(new SpdxProjectException("Unable to calculate verification code"));
@@ -1133,7 +1984,20 @@ public class SpdxProject {
 		if (origFile == null) {
 			throw(new SpdxProjectException("Can not update file "+file.getName()+".  File does not exist."));
 		}
-		SPDXFile spdxFile = SpdxHelper.convertFile(file);
+		SPDXFile spdxFile = convertFile(file, checksumCache.getSha1(file));
+		copyFileInformation(file, origFile, spdxFile);
+		this.verificationCodeIndex.put(relativePath, spdxFile.getSha1());
+		this.dirty = true;
+	}
+	
+	/**
+	 * Copy the file information from a newly converted SPDX file to the SPDX file in the document
+	 * @param file
+	 * @param origFile SPDX file in the document
+	 * @param spdxFile newly converted SPDX file
+	 * @throws SpdxProjectException
+	 */
+	private void copyFileInformation(IFile file, SPDXFile origFile, SPDXFile spdxFile) throws SpdxProjectException {
 		origFile.setArtifactOf(spdxFile.getArtifactOf());
 		origFile.setComment(spdxFile.getComment());
 		origFile.setConcludedLicenses(spdxFile.getConcludedLicenses());
@@ -1155,8 +2019,6 @@ public class SpdxProject {
 			Activator.getDefault().logError("Error updating file type for "+file.getName(), e);
 			throw(new SpdxProjectException("Can not update file "+file.getName()+".  Invalid file type."));
 		}
-		updateVerificationCodeFromFiles();	
-		this.dirty = true;
 	}
 
 	/**
@@ -1171,15 +2033,161 @@ public class SpdxProject {
 			return;
 		}
 		this.spdxFiles.remove(relativePath);
+		this.verificationCodeIndex.remove(relativePath);
+		checksumCache.remove(relativePath);
 		try {
 			this.spdxDoc.getSpdxPackage().removeFile(relativePath);
 		} catch (InvalidSPDXAnalysisException e) {
 			Activator.getDefault().logError("Error removing file "+file.getName(), e);
 			throw(new SpdxProjectException("SPDX error removing file "+file.getName()));
 		}
-		updateVerificationCodeFromFiles();	
 		this.dirty = true;
 	}
+	
+	/**
+	 * Apply a batch of file changes to the SPDX analysis.  The checksums for all added
+	 * and changed files are calculated in parallel, the licenses seen in the files are
+	 * merged once and the SPDX document is updated once.  The package verification code
+	 * is updated when the project is saved.  Files moved within the project reuse the
+	 * cached checksum of the original path if the file has not changed.  A file moved from
+	 * a path which is itself added or changed in the same change set (e.g. a new file created
+	 * at the original path) is treated as a new file and the original path is kept.
+	 * 
+	 * Errors for individual files are recorded in the change set and do not stop the
+	 * remaining changes from being applied.
+	 * @param changeSet
+	 * @param monitor
+	 * @throws SpdxProjectException
+	 */
+	public synchronized void applyChanges(SpdxChangeSet changeSet, IProgressMonitor monitor) throws SpdxProjectException {
+		if (changeSet.isEmpty()) {
+			return;
+		}
+		ArrayList<IFile> filesToConvert = new ArrayList<IFile>();
+		for (IFile file:changeSet.getAddedFiles()) {
+			if (!isExcluded(file.getName())) {
+				filesToConvert.add(file);
+			}
+		}
+		for (IFile file:changeSet.getChangedFiles()) {
+			if (!isExcluded(file.getProjectRelativePath().toString())) {
+				filesToConvert.add(file);
+			}
+		}
+		monitor.beginTask("Updating SPDX files", filesToConvert.size());
+		String[] sha1s = new ParallelFileHasher(checksumCache).hashFiles(filesToConvert, monitor, changeSet.getErrors());
+		if (sha1s == null) {
+			// canceled - the remaining changes will be picked up by a rescan
+			requestFileRescan();
+			return;
+		}
+		ArrayList<SPDXFile> addedSpdxFiles = new ArrayList<SPDXFile>();
+		HashSet<SPDXLicenseInfo> seenLicenses = new HashSet<SPDXLicenseInfo>();
+		for (int i = 0; i < sha1s.length; i++) {
+			if (sha1s[i] == null) {
+				continue;	// error recorded in the change set
+			}
+			IFile file = filesToConvert.get(i);
+			String relativePath = file.getProjectRelativePath().toString();
+			try {
+				SPDXFile spdxFile = convertFile(file, sha1s[i]);
+				SPDXFile origFile = this.spdxFiles.get(relativePath);
+				if (origFile == null) {
+					this.spdxFiles.put(relativePath, spdxFile);
+					addedSpdxFiles.add(spdxFile);
+				} else {
+					copyFileInformation(file, origFile, spdxFile);
+				}
+				this.verificationCodeIndex.put(relativePath, sha1s[i]);
+				seenLicenses.addAll(Arrays.asList(spdxFile.getSeenLicenses()));
+			} catch (SpdxProjectException e) {
+				changeSet.addError(file, e);
+			}
+		}
+		ArrayList<String> removedPaths = new ArrayList<String>();
+		Iterator<Entry<IFile, String>> moveIter = changeSet.getMovedFiles().entrySet().iterator();
+		while (moveIter.hasNext()) {
+			Entry<IFile, String> move = moveIter.next();
+			IFile file = move.getKey();
+			String fromPath = move.getValue();
+			SPDXFile fromSpdxFile = null;
+			if (!changeSet.isAddedOrChanged(fromPath)) {
+				fromSpdxFile = this.spdxFiles.get(fromPath);
+			}	// otherwise the SPDX file at the original path is for the new file at that path
+			try {
+				SPDXFile spdxFile;
+				if (fromSpdxFile == null) {
+					// not previously in the analysis - treat as a new file
+					spdxFile = convertFile(file, checksumCache.getSha1(file));
+				} else {
+					// the file may have also been changed since the move
+					Map<String, String> checksums = checksumCache.move(fromPath, file);
+					String sha1 = checksums == null ? checksumCache.getSha1(file) :
+						checksums.get(SpdxHelper.SHA1_ALGORITHM);
+					spdxFile = convertFile(file, sha1);
+					this.spdxFiles.remove(fromPath);
+					this.verificationCodeIndex.remove(fromPath);
+					removedPaths.add(fromPath);
+				}
+				String relativePath = file.getProjectRelativePath().toString();
+				SPDXFile origFile = this.spdxFiles.get(relativePath);
+				if (origFile == null) {
+					this.spdxFiles.put(relativePath, spdxFile);
+					addedSpdxFiles.add(spdxFile);
+				} else {
+					copyFileInformation(file, origFile, spdxFile);
+				}
+				this.verificationCodeIndex.put(relativePath, spdxFile.getSha1());
+				seenLicenses.addAll(Arrays.asList(spdxFile.getSeenLicenses()));
+			} catch (SpdxProjectException e) {
+				changeSet.addError(file, e);
+			}
+		}
+		for (IFile file:changeSet.getRemovedFiles()) {
+			String relativePath = file.getProjectRelativePath().toString();
+			if (this.spdxFiles.remove(relativePath) != null) {
+				this.verificationCodeIndex.remove(relativePath);
+				checksumCache.remove(relativePath);
+				removedPaths.add(relativePath);
+			}
+		}
+		updateDocumentFiles(addedSpdxFiles, removedPaths);
+		this.licensesFromFiles.addAll(seenLicenses);
+		this.dirty = true;
+		monitor.done();
+	}
+	
+	/**
+	 * Add and remove files in the SPDX document.  Large batches replace all of the
+	 * files in a single model update rather than updating the model for each file.
+	 * @param addedFiles
+	 * @param removedPaths
+	 * @throws SpdxProjectException
+	 */
+	private void updateDocumentFiles(List<SPDXFile> addedFiles, List<String> removedPaths) throws SpdxProjectException {
+		try {
+			if (addedFiles.size() + removedPaths.size() > MAX_INDIVIDUAL_FILE_UPDATES) {
+				this.spdxDoc.getSpdxPackage().setFiles(spdxFiles.values().toArray(new SPDXFile[spdxFiles.size()]));
+			} else {
+				for (String path:removedPaths) {
+					this.spdxDoc.getSpdxPackage().removeFile(path);
+				}
+				for (SPDXFile spdxFile:addedFiles) {
+					this.spdxDoc.getSpdxPackage().addFile(spdxFile);
+				}
+			}
+		} catch (InvalidSPDXAnalysisException e) {
+			Activator.getDefault().logError("Error updating files in the SPDX document", e);
+			throw(new SpdxProjectException("SPDX error updating files: "+e.getMessage(), e));
+		}
+	}
+
+	/**
+	 * @return true if the SPDX information has changed since it was last saved
+	 */
+	public synchronized boolean isDirty() {
+		return this.dirty;
+	}
 
 	/**
 	 * @return true if a file rescan is required
@@ -1189,25 +2197,25 @@ public class SpdxProject {
 	}
 	
 	/**
-	 * Invokes a background build for the project
+	 * Requests a background build for the project.  Does not block - the build
+	 * is started once no further builds have been requested for the quiet period
+	 * and is merged with any build requested in the meantime.
 	 * @param kind
-	 * @return buildJob Job created which should be scheduled or running.  Returned so that the call can join on the job completion.
+	 * @return buildJob Job which will run the build.  Returned so that the call can join on the job completion.
 	 */
 	public WorkspaceJob backgroundFullBuild(final int kind) {
-		if (buildJob != null) {		
-			if (buildJob.getResult() == null && buildJob.getKind() == IncrementalProjectBuilder.FULL_BUILD) {
-				buildJob.cancel();
-			}
-			try {
-				buildJob.join();
-			} catch (InterruptedException e) {
-				// ignore
-			}
-		}
-		this.buildJob = new BackgroundBuildJob(kind);
-//		buildJob.setRule(this.project);		 - Not needed since the build function does a runInWorkspace command for the project.  Uncommenting will cause a rule conflict error
-		buildJob.schedule();
-		return buildJob;
+		return buildScheduler.requestBuild(kind);
+	}
+	
+	/**
+	 * Create a job to run a build - called by the build scheduler
+	 * @param kind
+	 * @return
+	 */
+	BackgroundBuildJob createBuildJob(int kind) {
+		BackgroundBuildJob job = new BackgroundBuildJob(kind);
+//		job.setRule(this.project);		 - Not needed since the build function does a runInWorkspace command for the project.  Uncommenting will cause a rule conflict error
+		return job;
 	}
 
 	/**
@@ -1216,6 +2224,7 @@ public class SpdxProject {
 	 */
 	public synchronized void setIncludedFileDirectories(String[] includedFileDirectories) {
 		this.includedFileDirectories = includedFileDirectories;
+		this.includedDirectoryTrie = new IncludedDirectoryTrie(includedFileDirectories);
 	}
 
 	/**
@@ -1224,19 +2233,35 @@ public class SpdxProject {
 	 */
 	public synchronized void setExcludedFilePatterns(Pattern[] excludedFilesPatterns) {
 		this.excludedFilesPatterns = excludedFilesPatterns;
+		this.excludedFilesMatcher = new ExcludedFilesMatcher(excludedFilesPatterns);
+		this.scanFilter = new ScanFilter(excludedFilesMatcher, outputLocations);
 	}
 	
 	public void waitForBuildJob() {
-		if (this.buildJob != null) {
-			try {
-				this.buildJob.join();
-			} catch (InterruptedException e) {
-				// ignore
-			}
-		}
+		buildScheduler.waitForBuilds();
 	}
 
 	public void disableSpdx() throws CoreException, SpdxProjectException {
 		SpdxProjectProperties.setSpdxInitialized(project, false);
+		checksumCache.delete();
+		scanCheckpoint.delete();
+	}
+	
+	/**
+	 * @return the cache of file checksums for this project
+	 */
+	public ChecksumCache getChecksumCache() {
+		return this.checksumCache;
+	}
+	
+	/**
+	 * Get the checksums for a file for all of the checksum algorithms configured for the project.
+	 * The SPDX document only records the SHA1, the other checksums are available here.
+	 * @param file
+	 * @return map of algorithm name (e.g. SHA-256) to checksum value
+	 * @throws SpdxProjectException
+	 */
+	public Map<String, String> getFileChecksums(IFile file) throws SpdxProjectException {
+		return checksumCache.getChecksums(file);
 	}
 }
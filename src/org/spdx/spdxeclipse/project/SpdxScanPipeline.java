@@ -0,0 +1,490 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
+
+/**
+ * Scans the files in a project as a pipeline of separate stages connected by bounded queues:
+ * <ol>
+ * <li>Traversal of the included folders on a single thread</li>
+ * <li>Checksum calculation on a pool of hashing threads</li>
+ * <li>Reading the SPDX file properties on a pool of property threads</li>
+ * <li>Assembly of the results on the calling thread in traversal order</li>
+ * </ol>
+ * Each stage can start on a file as soon as the previous stage is done with it so
+ * the file I/O for hashing overlaps the traversal and property reads.  The bounded
+ * queues limit the memory used when one stage is slower than the others.
+ *
+ * If the monitor is canceled, all stages stop taking new work, the queues are
+ * drained and the worker threads are joined before returning.
+ *
+ * If a scan checkpoint is supplied, files recorded in the checkpoint are not hashed
+ * or resolved again and each newly completed file is added to the checkpoint.
+ * @author Gary O'Neall
+ *
+ */
+public class SpdxScanPipeline {
+
+	/**
+	 * Receives the scanned files in traversal order on the thread which called scan
+	 */
+	public interface ScanResultHandler {
+		/**
+		 * @param file
+		 * @param modificationStamp Modification stamp of the file before the checksum was calculated
+		 * @param sha1 SHA1 checksum for the file content
+		 * @param properties Resolved SPDX properties for the file
+		 * @throws SpdxProjectException
+		 */
+		public void fileScanned(IFile file, long modificationStamp, String sha1,
+				ResolvedFileProperties properties) throws SpdxProjectException;
+	}
+
+	/**
+	 * Default capacity for each of the queues between stages
+	 */
+	static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	/**
+	 * Default number of threads reading the file properties
+	 */
+	static final int DEFAULT_PROPERTY_THREADS = 2;
+
+	/**
+	 * Time to wait on a queue before checking for cancellation
+	 */
+	static final long POLL_MILLISECONDS = 100;
+
+	/**
+	 * Number of files between progress sub task updates
+	 */
+	static final int PROGRESS_INTERVAL = 100;
+
+	private static final AtomicInteger threadNumber = new AtomicInteger(1);
+
+	/**
+	 * File moving through the pipeline
+	 */
+	static class ScanItem {
+		int sequence;
+		IFile file;
+		long modificationStamp = IResource.NULL_STAMP;
+		boolean fromCheckpoint = false;
+		String sha1;
+		ResolvedFileProperties properties;
+		SpdxProjectException error;
+
+		ScanItem(int sequence, IFile file) {
+			this.sequence = sequence;
+			this.file = file;
+		}
+	}
+
+	/**
+	 * Marks the end of the items for a consumer
+	 */
+	private static final ScanItem END = new ScanItem(-1, null);
+
+	private ChecksumCache checksumCache;
+	private ScanCheckpoint checkpoint = null;
+	private ScanFilter scanFilter;
+	private int hashThreads;
+	private int propertyThreads;
+	private int queueCapacity;
+
+	private BlockingQueue<ScanItem> toHash;
+	private BlockingQueue<ScanItem> toResolve;
+	private BlockingQueue<ScanItem> toAssemble;
+	private volatile boolean stopped;
+	private volatile SpdxProjectException failure;
+	private volatile int discovered;
+
+	/**
+	 * @param checksumCache Cache used to look up and store checksums.  May be null.
+	 * @param scanFilter Filter for the files and folders to skip
+	 */
+	public SpdxScanPipeline(ChecksumCache checksumCache, ScanFilter scanFilter) {
+		this(checksumCache, scanFilter, ParallelFileHasher.getDefaultNumThreads(),
+				DEFAULT_PROPERTY_THREADS, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * @param checksumCache Cache used to look up and store checksums.  May be null.
+	 * @param scanFilter Filter for the files and folders to skip
+	 * @param hashThreads Number of threads calculating checksums
+	 * @param propertyThreads Number of threads reading file properties
+	 * @param queueCapacity Capacity of each queue between stages
+	 */
+	public SpdxScanPipeline(ChecksumCache checksumCache, ScanFilter scanFilter,
+			int hashThreads, int propertyThreads, int queueCapacity) {
+		this.checksumCache = checksumCache;
+		this.scanFilter = scanFilter;
+		this.hashThreads = Math.max(1, hashThreads);
+		this.propertyThreads = Math.max(1, propertyThreads);
+		this.queueCapacity = Math.max(1, queueCapacity);
+	}
+
+	/**
+	 * @param checkpoint Checkpoint used to skip files completed by a previous scan and
+	 * to record the files completed by this scan.  May be null.
+	 */
+	public void setCheckpoint(ScanCheckpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	/**
+	 * Scan all non-excluded files in the folders.  One unit of work is reported to
+	 * the monitor for each file passed to the handler.
+	 * @param folders Folders to scan including all subfolders
+	 * @param handler Handler for the scanned files, called on this thread
+	 * @param monitor
+	 * @return false if the monitor was canceled
+	 * @throws SpdxProjectException
+	 */
+	public boolean scan(List<IContainer> folders, ScanResultHandler handler,
+			IProgressMonitor monitor) throws SpdxProjectException {
+		toHash = new ArrayBlockingQueue<ScanItem>(queueCapacity);
+		toResolve = new ArrayBlockingQueue<ScanItem>(queueCapacity);
+		toAssemble = new ArrayBlockingQueue<ScanItem>(queueCapacity);
+		stopped = false;
+		failure = null;
+		discovered = 0;
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		threads.add(startThread("SPDX File Traversal", createTraversalStage(folders)));
+		AtomicInteger remainingHashers = new AtomicInteger(hashThreads);
+		for (int i = 0; i < hashThreads; i++) {
+			threads.add(startThread("SPDX File Hashing", createHashStage(remainingHashers)));
+		}
+		AtomicInteger remainingResolvers = new AtomicInteger(propertyThreads);
+		for (int i = 0; i < propertyThreads; i++) {
+			threads.add(startThread("SPDX File Properties", createPropertyStage(remainingResolvers)));
+		}
+		try {
+			return assemble(handler, monitor);
+		} finally {
+			stop(threads);
+		}
+	}
+
+	/**
+	 * Pass the completed items to the handler in traversal order
+	 * @param handler
+	 * @param monitor
+	 * @return false if canceled
+	 * @throws SpdxProjectException
+	 */
+	private boolean assemble(ScanResultHandler handler, IProgressMonitor monitor) throws SpdxProjectException {
+		HashMap<Integer, ScanItem> pending = new HashMap<Integer, ScanItem>();
+		int nextSequence = 0;
+		while (true) {
+			if (monitor.isCanceled()) {
+				return false;
+			}
+			if (failure != null) {
+				throw(failure);
+			}
+			ScanItem item;
+			try {
+				item = toAssemble.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				throw(new SpdxProjectException("Scan of project files was unexpectedly interrupted", e));
+			}
+			if (item == null) {
+				continue;
+			}
+			if (item == END) {
+				return true;
+			}
+			pending.put(item.sequence, item);
+			item = pending.remove(nextSequence);
+			while (item != null) {
+				if (item.error != null) {
+					throw(item.error);
+				}
+				handler.fileScanned(item.file, item.modificationStamp, item.sha1, item.properties);
+				if (checkpoint != null && !item.fromCheckpoint) {
+					checkpoint.add(item.file.getProjectRelativePath().toString(),
+							item.modificationStamp, item.sha1, item.properties);
+				}
+				monitor.worked(1);
+				nextSequence++;
+				if (nextSequence % PROGRESS_INTERVAL == 0) {
+					monitor.subTask("Added "+String.valueOf(nextSequence)+" of "+
+							String.valueOf(discovered)+" files found");
+				}
+				item = pending.remove(nextSequence);
+			}
+		}
+	}
+
+	private Runnable createTraversalStage(final List<IContainer> folders) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					for (IContainer folder:folders) {
+						if (stopped) {
+							return;
+						}
+						traverse(folder);
+					}
+					for (int i = 0; i < hashThreads; i++) {
+						put(toHash, END);
+					}
+				} catch (CoreException e) {
+					fail(new SpdxProjectException("Error collecting file information files", e));
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Queue all non-excluded files within a folder and its subfolders for hashing.
+	 * Resource proxies are used so that only the included files are materialized as resources.
+	 * @param folder
+	 * @throws CoreException
+	 */
+	private void traverse(IContainer folder) throws CoreException {
+		folder.accept(new IResourceProxyVisitor() {
+
+			boolean root = true;
+
+			@Override
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (stopped) {
+					return false;
+				}
+				if (root) {
+					root = false;	// the exclusions only apply to the contents of the folder
+					return true;
+				}
+				if (scanFilter.isSkipped(proxy)) {
+					return false;
+				}
+				if (proxy.getType() == IResource.FILE) {
+					put(toHash, new ScanItem(discovered, (IFile)proxy.requestResource()));
+					discovered++;	// only updated by the traversal thread
+					return false;
+				}
+				return proxy.getType() == IResource.FOLDER;
+			}
+
+		}, IResource.NONE);
+	}
+
+	private Runnable createHashStage(final AtomicInteger remainingHashers) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				ScanItem item = take(toHash);
+				while (item != null && item != END) {
+					if (!restoreFromCheckpoint(item)) {
+						try {
+							item.modificationStamp = item.file.getModificationStamp();
+							if (checksumCache != null) {
+								item.sha1 = checksumCache.getSha1(item.file);
+							} else {
+								item.sha1 = SpdxHelper.generateSha1(item.file);
+							}
+						} catch (SpdxProjectException e) {
+							item.error = e;
+						}
+					}
+					if (!put(toResolve, item)) {
+						return;
+					}
+					item = take(toHash);
+				}
+				if (item == END && remainingHashers.decrementAndGet() == 0) {
+					for (int i = 0; i < propertyThreads; i++) {
+						put(toResolve, END);
+					}
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Fill in the checksum and properties for an item completed by a previous scan
+	 * @param item
+	 * @return true if the item was found in the checkpoint
+	 */
+	private boolean restoreFromCheckpoint(ScanItem item) {
+		if (checkpoint == null) {
+			return false;
+		}
+		ScanCheckpoint.CheckpointEntry entry = checkpoint.get(item.file);
+		if (entry == null) {
+			return false;
+		}
+		item.modificationStamp = entry.getModificationStamp();
+		item.sha1 = entry.getSha1();
+		item.properties = entry.getProperties();
+		item.fromCheckpoint = true;
+		return true;
+	}
+
+	private Runnable createPropertyStage(final AtomicInteger remainingResolvers) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				ScanItem item = take(toResolve);
+				while (item != null && item != END) {
+					if (item.error == null && item.properties == null) {
+						try {
+							item.properties = SpdxHelper.resolveFileProperties(item.file);
+						} catch (SpdxProjectException e) {
+							item.error = e;
+						}
+					}
+					if (!put(toAssemble, item)) {
+						return;
+					}
+					item = take(toResolve);
+				}
+				if (item == END && remainingResolvers.decrementAndGet() == 0) {
+					put(toAssemble, END);
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * Add an item to a queue waiting for space unless the pipeline is stopped
+	 * @param queue
+	 * @param item
+	 * @return false if the pipeline was stopped before the item could be added
+	 */
+	private boolean put(BlockingQueue<ScanItem> queue, ScanItem item) {
+		try {
+			while (!stopped) {
+				if (queue.offer(item, POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			stopped = true;
+		}
+		return false;
+	}
+
+	/**
+	 * Take the next item from a queue unless the pipeline is stopped
+	 * @param queue
+	 * @return the next item or null if the pipeline was stopped
+	 */
+	private ScanItem take(BlockingQueue<ScanItem> queue) {
+		try {
+			while (!stopped) {
+				ScanItem item = queue.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+				if (item != null) {
+					return item;
+				}
+			}
+		} catch (InterruptedException e) {
+			stopped = true;
+		}
+		return null;
+	}
+
+	private void fail(SpdxProjectException e) {
+		if (failure == null) {
+			failure = e;
+		}
+		stopped = true;
+	}
+
+	/**
+	 * Start a thread for a stage.  Any unexpected exception in the stage stops the pipeline
+	 * so that the other stages do not wait for items which will never arrive.
+	 * @param name
+	 * @param stage
+	 * @return
+	 */
+	private Thread startThread(String name, final Runnable stage) {
+		Runnable guardedStage = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					stage.run();
+				} catch (RuntimeException e) {
+					fail(new SpdxProjectException("Unexpected error scanning project files", e));
+				} catch (Error e) {
+					fail(new SpdxProjectException("Unexpected error scanning project files", e));
+					throw(e);
+				}
+			}
+
+		};
+		Thread t = new Thread(guardedStage, name + " " + threadNumber.getAndIncrement());
+		t.setDaemon(true);
+		t.start();
+		return t;
+	}
+
+	/**
+	 * Stop all stages, drain the queues and wait for the worker threads to finish
+	 * @param threads
+	 */
+	private void stop(List<Thread> threads) {
+		stopped = true;
+		boolean interrupted = false;
+		for (Thread t:threads) {
+			while (t.isAlive()) {
+				drainQueues();
+				try {
+					t.join(POLL_MILLISECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		drainQueues();
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void drainQueues() {
+		toHash.clear();
+		toResolve.clear();
+		toAssemble.clear();
+	}
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.spdx.rdfparser.SPDXLicenseInfoFactory;
+import org.spdx.spdxeclipse.Activator;
+
+/**
+ * Immutable list of the SPDX standard licenses shared by all SPDX projects and
+ * license selection controls.
+ *
+ * The catalog is loaded once per session.  warmInBackground is called when the
+ * plugin starts so that the catalog is normally loaded before it is first needed.
+ * If it has not finished loading, getCatalog waits for it.
+ *
+ * The catalog is loaded from the first of a license list snapshot imported into the
+ * plugin state location, the snapshot bundled with the plugin or the license list in
+ * the SPDX tools library.  License names and texts are only available when loaded
+ * from a snapshot.  See LicenseListSnapshot.
+ * 
+ * A license list imported from a snapshot may contain licenses which the license
+ * parser in the SPDX tools library does not know.  The names and texts in the
+ * catalog are used by SpdxProject to add those licenses to the SPDX document as
+ * extracted licenses when they are used.
+ * @author Gary O'Neall
+ *
+ */
+public class StandardLicenseCatalog {
+
+	/**
+	 * Job to load the catalog when the plugin starts
+	 */
+	static class LoadCatalogJob extends Job {
+
+		LoadCatalogJob() {
+			super("Loading SPDX standard licenses");
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			getCatalog();
+			return Status.OK_STATUS;
+		}
+	}
+
+	private static StandardLicenseCatalog catalog = null;
+
+	private String licenseListVersion;
+	/**
+	 * Sorted standard license IDs
+	 */
+	private String[] licenseIds;
+	private Set<String> licenseIdSet;
+	/**
+	 * Map of license ID to license name
+	 */
+	private Map<String, String> licenseNames;
+	/**
+	 * Map of license ID to the normalized license text
+	 */
+	private Map<String, String> licenseTexts;
+
+	StandardLicenseCatalog(String[] licenseIds) {
+		this(null, licenseIds, new HashMap<String, String>(), new HashMap<String, String>());
+	}
+
+	/**
+	 * @param licenseListVersion Version of the SPDX license list
+	 * @param licenseIds Standard license IDs
+	 * @param licenseNames Map of license ID to license name
+	 * @param licenseTexts Map of license ID to normalized license text
+	 */
+	StandardLicenseCatalog(String licenseListVersion, String[] licenseIds,
+			Map<String, String> licenseNames, Map<String, String> licenseTexts) {
+		this.licenseListVersion = licenseListVersion;
+		this.licenseIds = licenseIds.clone();
+		Arrays.sort(this.licenseIds);
+		this.licenseIdSet = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(this.licenseIds)));
+		this.licenseNames = Collections.unmodifiableMap(new HashMap<String, String>(licenseNames));
+		this.licenseTexts = Collections.unmodifiableMap(new HashMap<String, String>(licenseTexts));
+	}
+
+	/**
+	 * @return the shared catalog, loading it if it has not already been loaded
+	 */
+	public static synchronized StandardLicenseCatalog getCatalog() {
+		if (catalog == null) {
+			catalog = load();
+		}
+		return catalog;
+	}
+
+	/**
+	 * Replace the shared catalog.  Called when a new license list has been imported.
+	 * @param newCatalog
+	 */
+	public static synchronized void setCatalog(StandardLicenseCatalog newCatalog) {
+		catalog = newCatalog;
+	}
+
+	/**
+	 * Load the catalog in a background job.  Called when the plugin is started.
+	 */
+	public static void warmInBackground() {
+		new LoadCatalogJob().schedule();
+	}
+
+	/**
+	 * Load the catalog from the imported snapshot, the bundled snapshot or the SPDX tools library
+	 * @return
+	 */
+	private static StandardLicenseCatalog load() {
+		File importedSnapshot = LicenseListSnapshot.getImportedSnapshotFile();
+		if (importedSnapshot != null && importedSnapshot.exists()) {
+			try {
+				return readSnapshot(new FileInputStream(importedSnapshot));
+			} catch (IOException e) {
+				logError("Error reading imported SPDX license list "+importedSnapshot.getPath()+" - using the bundled license list", e);
+			}
+		}
+		InputStream bundledSnapshot = LicenseListSnapshot.getBundledSnapshot();
+		if (bundledSnapshot != null) {
+			try {
+				return readSnapshot(bundledSnapshot);
+			} catch (IOException e) {
+				logError("Error reading bundled SPDX license list - using the SPDX tools license list", e);
+			}
+		}
+		return new StandardLicenseCatalog(SPDXLicenseInfoFactory.getLicenseListVersion(),
+				SPDXLicenseInfoFactory.getStandardLicenseIds(),
+				new HashMap<String, String>(), new HashMap<String, String>());
+	}
+
+	private static StandardLicenseCatalog readSnapshot(InputStream in) throws IOException {
+		try {
+			return LicenseListSnapshot.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void logError(String msg, Exception e) {
+		Activator plugin = Activator.getDefault();
+		if (plugin != null) {
+			plugin.logError(msg, e);
+		}
+	}
+
+	/**
+	 * @return Version of the SPDX license list or null if not known
+	 */
+	public String getLicenseListVersion() {
+		return licenseListVersion;
+	}
+
+	/**
+	 * @return sorted standard license IDs
+	 */
+	public String[] getLicenseIds() {
+		return licenseIds.clone();
+	}
+
+	/**
+	 * @param licenseId
+	 * @return true if the ID is a standard license ID
+	 */
+	public boolean contains(String licenseId) {
+		return licenseIdSet.contains(licenseId);
+	}
+
+	/**
+	 * @param licenseId
+	 * @return the name of the license or null if not available
+	 */
+	public String getLicenseName(String licenseId) {
+		return licenseNames.get(licenseId);
+	}
+
+	/**
+	 * @param licenseId
+	 * @return the license text with whitespace normalized or null if not available
+	 */
+	public String getNormalizedText(String licenseId) {
+		return licenseTexts.get(licenseId);
+	}
+
+	/**
+	 * @return number of standard licenses
+	 */
+	public int size() {
+		return licenseIds.length;
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Maintains the sorted file checksums used to calculate the SPDX package verification code.
+ *
+ * Adding, updating and removing a file takes logarithmic time.  The verification code
+ * digest is only calculated when it is requested after the checksums have changed.
+ *
+ * This class is not thread safe - access is synchronized by the owning SPDX project.
+ * @author Gary O'Neall
+ *
+ */
+public class VerificationCodeIndex {
+
+	static final Charset VERIFICATION_CODE_CHARSET = Charset.forName("UTF-8");
+
+	/**
+	 * Map of file path to the file SHA1
+	 */
+	private HashMap<String, String> pathChecksums = new HashMap<String, String>();
+	/**
+	 * Sorted multiset of the file SHA1s - the value is the number of files with the checksum
+	 */
+	private TreeMap<String, Integer> checksumCounts = new TreeMap<String, Integer>();
+
+	private String verificationCodeValue = null;
+	private String[] verificationCodeExcludedPaths = null;
+
+	/**
+	 * Add or update the checksum for a file
+	 * @param path SPDX file name (project relative path)
+	 * @param sha1 SHA1 for the file
+	 */
+	public void put(String path, String sha1) {
+		String previous = pathChecksums.put(path, sha1);
+		if (previous != null) {
+			if (previous.equals(sha1)) {
+				return;
+			}
+			decrement(previous);
+		}
+		Integer count = checksumCounts.get(sha1);
+		if (count == null) {
+			checksumCounts.put(sha1, 1);
+		} else {
+			checksumCounts.put(sha1, count + 1);
+		}
+		verificationCodeValue = null;
+	}
+
+	/**
+	 * Remove the checksum for a file
+	 * @param path SPDX file name (project relative path)
+	 */
+	public void remove(String path) {
+		String previous = pathChecksums.remove(path);
+		if (previous != null) {
+			decrement(previous);
+			verificationCodeValue = null;
+		}
+	}
+
+	private void decrement(String sha1) {
+		Integer count = checksumCounts.get(sha1);
+		if (count == null) {
+			return;
+		}
+		if (count <= 1) {
+			checksumCounts.remove(sha1);
+		} else {
+			checksumCounts.put(sha1, count - 1);
+		}
+	}
+
+	/**
+	 * Remove all checksums
+	 */
+	public void clear() {
+		pathChecksums.clear();
+		checksumCounts.clear();
+		verificationCodeValue = null;
+	}
+
+	/**
+	 * @return number of files in the index
+	 */
+	public int size() {
+		return pathChecksums.size();
+	}
+
+	/**
+	 * @param path
+	 * @return the SHA1 for the file or null if the file is not in the index
+	 */
+	public String getChecksum(String path) {
+		return pathChecksums.get(path);
+	}
+
+	/**
+	 * @param excludedPaths SPDX file names to exclude from the verification code
+	 * @return true if the verification code has changed since it was last calculated
+	 */
+	public boolean isChanged(String[] excludedPaths) {
+		return verificationCodeValue == null ||
+				!Arrays.equals(excludedPaths, verificationCodeExcludedPaths);
+	}
+
+	/**
+	 * Get the package verification code value.  The value is only recalculated
+	 * if the checksums or the excluded paths have changed.
+	 * @param excludedPaths SPDX file names to exclude from the verification code
+	 * @return the hex SHA1 verification code value
+	 * @throws NoSuchAlgorithmException
+	 */
+	public String getVerificationCodeValue(String[] excludedPaths) throws NoSuchAlgorithmException {
+		if (!isChanged(excludedPaths)) {
+			return verificationCodeValue;
+		}
+		// number of occurrences of each checksum to skip for the excluded files
+		HashMap<String, Integer> skipped = new HashMap<String, Integer>();
+		for (int i = 0; i < excludedPaths.length; i++) {
+			String sha1 = pathChecksums.get(excludedPaths[i]);
+			if (sha1 != null) {
+				Integer count = skipped.get(sha1);
+				skipped.put(sha1, count == null ? 1 : count + 1);
+			}
+		}
+		MessageDigest verificationCodeDigest = MessageDigest.getInstance(SpdxHelper.SHA1_ALGORITHM);
+		Iterator<Entry<String, Integer>> iter = checksumCounts.entrySet().iterator();
+		while (iter.hasNext()) {
+			Entry<String, Integer> entry = iter.next();
+			int count = entry.getValue();
+			Integer skip = skipped.get(entry.getKey());
+			if (skip != null) {
+				count = count - skip;
+			}
+			byte[] hashInput = entry.getKey().getBytes(VERIFICATION_CODE_CHARSET);
+			for (int i = 0; i < count; i++) {
+				verificationCodeDigest.update(hashInput);
+			}
+		}
+		verificationCodeValue = SpdxHelper.convertChecksumToString(verificationCodeDigest.digest());
+		verificationCodeExcludedPaths = excludedPaths.clone();
+		return verificationCodeValue;
+	}
+}
@@ -30,6 +30,7 @@ public class PropertyConstants {
 	public static final String PROP_SPDX_DEFAULT_FILE_COPYRIGHT = "spdxProejctDefaultFileCopyright";
 	public static final String PROP_SPDX_DEFAULT_FILE_NOTICE = "spdxDefaultFileNotice";
 	public static final String PROP_SPDX_DEFAULT_FILE_CONTRIBUTORS = "spdxDefaultFileContributors";
+	public static final String PROP_SPDX_CHECKSUM_ALGORITHMS = "spdxChecksumAlgorithms";
 	
 	public static final String PROP_SPDX_FILE_CONCLUDED_LICENSE = "spdxFileConcludedLicense";
 	public static final String PROP_SPDX_FILE_COPYRIGHT = "spdxFileCopyright";
@@ -38,6 +39,10 @@ public class PropertyConstants {
 	public static final String PROP_SPDX_FILE_COMMENT = "spdxFileComment";
 	public static final String PROP_SPDX_FILE_NOTICE = "spdxFileNotice";
 	public static final String PROP_SPDX_FILE_CONTRIBUTORS = "spdxFileContributors";
+	/**
+	 * Single record holding all of the file properties - see SpdxFileRecord
+	 */
+	public static final String PROP_SPDX_FILE_RECORD = "spdxFileRecord";
 	
 	public static final String PROP_INCLUDED_RESOURCE_DIRECTORIES = "spdxIncludedResourceDirectories";
 	public static final String PROP_EXCLUDED_FILE_PATTERNS = "spdxExcludedFilePatterns";
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.properties;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Immutable snapshot of the SPDX property values for a file with any project
+ * defaults already applied.  Resolving the properties is separated from creating
+ * the SPDX file so that the property reads can be done on a different thread.
+ * @author Gary O'Neall
+ *
+ */
+public class ResolvedFileProperties {
+
+	private String concludedLicense;
+	private String copyright;
+	private String notice;
+	private String comment;
+	private String[] contributors;
+	private String artifactOfProjectName;
+	private String artifactOfProjectUrl;
+
+	/**
+	 * @param concludedLicense License string for the concluded license
+	 * @param copyright
+	 * @param notice
+	 * @param comment
+	 * @param contributors
+	 * @param artifactOfProjectName Empty if the file is not an artifact of a project
+	 * @param artifactOfProjectUrl
+	 */
+	public ResolvedFileProperties(String concludedLicense, String copyright,
+			String notice, String comment, String[] contributors,
+			String artifactOfProjectName, String artifactOfProjectUrl) {
+		this.concludedLicense = concludedLicense;
+		this.copyright = copyright;
+		this.notice = notice;
+		this.comment = comment;
+		this.contributors = contributors;
+		this.artifactOfProjectName = artifactOfProjectName;
+		this.artifactOfProjectUrl = artifactOfProjectUrl;
+	}
+
+	/**
+	 * Read the SPDX properties for a file
+	 * @param file
+	 * @return
+	 * @throws CoreException
+	 */
+	public static ResolvedFileProperties resolve(IFile file) throws CoreException {
+		String license = SpdxFileProperties.getConcludedLicense(file);
+		if (license == null || license.trim().isEmpty()) {
+			license = SpdxFilePropertyCache.getCache(file.getProject()).getDefaultFileLicense();
+		}
+		String[] contributors = SpdxFileProperties.getContributors(file);
+		if (contributors == null) {
+			contributors = new String[0];
+		}
+		String projectName = SpdxFileProperties.getProjectName(file);
+		String projectUrl = "";
+		if (projectName != null && !projectName.isEmpty()) {
+			projectUrl = SpdxFileProperties.getProjectUrl(file);
+		} else {
+			projectName = "";
+		}
+		return new ResolvedFileProperties(license, SpdxFileProperties.getCopyright(file),
+				SpdxFileProperties.getNotice(file), SpdxFileProperties.getComment(file),
+				contributors, projectName, projectUrl);
+	}
+
+	public String getConcludedLicense() {
+		return concludedLicense;
+	}
+
+	public String getCopyright() {
+		return copyright;
+	}
+
+	public String getNotice() {
+		return notice;
+	}
+
+	public String getComment() {
+		return comment;
+	}
+
+	public String[] getContributors() {
+		return contributors.clone();
+	}
+
+	/**
+	 * @return the name of the project the file is an artifact of or an empty string
+	 */
+	public String getArtifactOfProjectName() {
+		return artifactOfProjectName;
+	}
+
+	public String getArtifactOfProjectUrl() {
+		return artifactOfProjectUrl;
+	}
+}
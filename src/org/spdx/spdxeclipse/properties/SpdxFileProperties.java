@@ -17,12 +17,19 @@
 package org.spdx.spdxeclipse.properties;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
-import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.rdfparser.SpdxNoAssertionLicense;
@@ -35,20 +42,19 @@ import org.spdx.spdxeclipse.project.SpdxProjectFactory;
 * Class used to manage the file properties associated with SPDX
  * 
  * If a property has not been set, the property will be retrieved from the 
- * Project property and the property will be initialized to that preference
+ * Project property.  The default is not stored on the file so that the file
+ * follows any later change to the project default.
+ * 
+ * Properties are read and written through the SpdxFilePropertyCache for the project
  * @author Gary O'Neall
  *
  */
 public class SpdxFileProperties {
 	
-	static final String LIST_SEPARATOR = ";";	// used to separate lists.  Must be regex friendly (not spec. char) and must not appear in a file name path
-
 	public static String getConcludedLicense(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE);
-		String license = file.getPersistentProperty(qName);
+		String license = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE);
 		if (license == null || license.isEmpty()) {
-			license = SpdxProjectProperties.getDefaultFileLicense(file.getProject());		
-			file.setPersistentProperty(qName, license);
+			license = SpdxFilePropertyCache.getCache(file.getProject()).getDefaultFileLicense();
 		}
 		if (license == null) {
 			license = new SpdxNoAssertionLicense().toString();
@@ -57,18 +63,15 @@ public class SpdxFileProperties {
 	}
 	
 	public static void setConcludedLicense(IFile file, String concludedLicense) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE, oldValue, concludedLicense);
-		file.setPersistentProperty(qName, concludedLicense);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE, concludedLicense);
 	}
 
 	public static String getCopyright(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT);
-		String copyright = file.getPersistentProperty(qName);
+		String copyright = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT);
 		if (copyright == null || copyright.isEmpty()) {
-			copyright = SpdxProjectProperties.getDefaultFileCopyright(file.getProject());	
-			file.setPersistentProperty(qName, copyright);
+			copyright = SpdxFilePropertyCache.getCache(file.getProject()).getDefaultFileCopyright();
 		}
 		if (copyright == null) {
 			copyright = SpdxRdfConstants.NOASSERTION_VALUE;
@@ -77,18 +80,15 @@ public class SpdxFileProperties {
 	}
 	
 	public static void setCopyright(IFile file, String copyright) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT, oldValue, copyright);
-		file.setPersistentProperty(qName, copyright);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT, copyright);
 	}
 	
 	public static String getNotice(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_NOTICE);
-		String notice = file.getPersistentProperty(qName);
+		String notice = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_NOTICE);
 		if (notice == null || notice.isEmpty()) {
-			notice = SpdxProjectProperties.getDefaultFileNotice(file.getProject());	
-			file.setPersistentProperty(qName, notice);
+			notice = SpdxFilePropertyCache.getCache(file.getProject()).getDefaultFileNotice();
 		}
 		if (notice == null) {
 			notice = "";
@@ -97,15 +97,13 @@ public class SpdxFileProperties {
 	}
 	
 	public static void setNotice(IFile file, String notice) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_NOTICE);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_NOTICE);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_NOTICE, oldValue, notice);
-		file.setPersistentProperty(qName, notice);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_NOTICE, notice);
 	}
 	
 	public static String getComment(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_COMMENT);
-		String comment = file.getPersistentProperty(qName);
+		String comment = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COMMENT);
 		if (comment == null) {
 			return "";
 		}
@@ -113,59 +111,53 @@ public class SpdxFileProperties {
 	}
 	
 	public static void setComment(IFile file, String comment) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_COMMENT);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COMMENT);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_COMMENT, oldValue, comment);
-		file.setPersistentProperty(qName, comment);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COMMENT, comment);
 	}
 	
 	public static String[] getContributors(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS);
-		String contributors = file.getPersistentProperty(qName);
+		String contributors = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS);
 		if (contributors == null || contributors.trim().isEmpty()) {
-			String[] defaultContributors = SpdxProjectProperties.getDefaultFileContributors(file.getProject());
+			String[] defaultContributors = SpdxFilePropertyCache.getCache(file.getProject()).getDefaultFileContributors();
 			contributors = stringArrayToString(defaultContributors);
-			file.setPersistentProperty(qName, contributors);
 		}
 		return stringToStringArray(contributors);
 	}
 	
 	public static void setContributors(IFile file, String[] contributors) throws CoreException {
 		String sContributors = stringArrayToString(contributors);
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS, oldValue, sContributors);
-		file.setPersistentProperty(qName, sContributors);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS, sContributors);
 	}
 
 	/**
-	 * Converts an array of strings to a string by inserting delimiters
+	 * Converts an array of strings to a string using the escaped list encoding of SpdxFileRecord
 	 * @param sa
 	 * @return
 	 */
-	private static String stringArrayToString(String[] sa) {
+	static String stringArrayToString(String[] sa) {
 		if (sa== null || sa.length == 0) {
 			return "";
 		}
-		StringBuilder sb = new StringBuilder();
-		sb.append(sa[0].trim());
-		for (int i = 1; i < sa.length; i++) {
-			sb.append(LIST_SEPARATOR);
-			sb.append(sa[i].trim());
+		String[] trimmed = new String[sa.length];
+		for (int i = 0; i < sa.length; i++) {
+			trimmed[i] = sa[i].trim();
 		}
-		return sb.toString();
+		return SpdxFileRecord.encodeList(trimmed);
 	}
 	
 	/**
-	 * Converts a delimited list to an array of strings
+	 * Converts an encoded list, such as a stored contributors property value, to an array of strings
 	 * @param s
 	 * @return
 	 */
-	private static String[] stringToStringArray(String s) {
+	public static String[] stringToStringArray(String s) {
 		if (s == null || s.trim().isEmpty()) {
 			return new String[0];
 		}
-		String[] retval = s.split(LIST_SEPARATOR);
+		String[] retval = SpdxFileRecord.decodeList(s);
 		for (int i = 0; i < retval.length; i++) {
 			retval[i] = retval[i].trim();
 		}
@@ -179,8 +171,7 @@ public class SpdxFileProperties {
 	 * @throws CoreException 
 	 */
 	public static String getProjectName(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT);
-		String projectName = file.getPersistentProperty(qName);
+		String projectName = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT);
 		if (projectName == null) {
 			projectName = "";
 		}
@@ -193,10 +184,9 @@ public class SpdxFileProperties {
 	 * @throws CoreException
 	 */
 	public static void setProjectName(IFile file, String projectName) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT, oldValue, projectName);
-		file.setPersistentProperty(qName, projectName);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT, projectName);
 	}
 
 	/**
@@ -206,8 +196,7 @@ public class SpdxFileProperties {
 	 * @throws CoreException 
 	 */
 	public static String getProjectUrl(IFile file) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL);
-		String projectUrl = file.getPersistentProperty(qName);
+		String projectUrl = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL);
 		if (projectUrl == null) {
 			projectUrl = "";
 		}
@@ -220,10 +209,143 @@ public class SpdxFileProperties {
 	 * @throws CoreException
 	 */
 	public static void setProjectUrl(IFile file, String url) throws CoreException {
-		QualifiedName qName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL);
-		String oldValue = file.getPersistentProperty(qName);
+		String oldValue = getFileProperty(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL);
 		notifySpdxProject(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL, oldValue, url);
-		file.setPersistentProperty(qName, url);
+		setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL, url);
+	}
+	
+	/**
+	 * Remove any file properties stored with a value identical to the current project
+	 * default.  Earlier versions of the plugin stored the project default on every file
+	 * the first time the property was read.
+	 * @param project
+	 * @param monitor
+	 * @return Number of properties removed
+	 * @throws CoreException
+	 */
+	public static int removeDefaultValues(IProject project, IProgressMonitor monitor) throws CoreException {
+		List<IFile> files = getFiles(project);
+		SpdxFilePropertyCache cache = SpdxFilePropertyCache.getCache(project);
+		String defaultLicense = cache.getDefaultFileLicense();
+		String defaultCopyright = cache.getDefaultFileCopyright();
+		String defaultNotice = cache.getDefaultFileNotice();
+		String[] defaultContributors = stringToStringArray(stringArrayToString(cache.getDefaultFileContributors()));
+		monitor.beginTask("Removing default SPDX file properties", files.size());
+		int numRemoved = 0;
+		try {
+			for (IFile file:files) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				Map<String, String> properties = cache.getProperties(file);
+				if (isDefaultValue(properties.get(PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE), defaultLicense)) {
+					setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE, null);
+					numRemoved++;
+				}
+				if (isDefaultValue(properties.get(PropertyConstants.PROP_SPDX_FILE_COPYRIGHT), defaultCopyright)) {
+					setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT, null);
+					numRemoved++;
+				}
+				if (isDefaultValue(properties.get(PropertyConstants.PROP_SPDX_FILE_NOTICE), defaultNotice)) {
+					setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_NOTICE, null);
+					numRemoved++;
+				}
+				String contributors = properties.get(PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS);
+				if (contributors != null && (contributors.trim().isEmpty() ||
+						Arrays.equals(stringToStringArray(contributors), defaultContributors))) {
+					setFileProperty(file, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS, null);
+					numRemoved++;
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+		return numRemoved;
+	}
+	
+	/**
+	 * Convert the properties stored by earlier versions of the plugin as one persistent
+	 * property per SPDX property to a single record per file
+	 * @param project
+	 * @param monitor
+	 * @return Number of files converted
+	 * @throws CoreException
+	 */
+	public static int migrateToRecords(IProject project, IProgressMonitor monitor) throws CoreException {
+		List<IFile> files = getFiles(project);
+		SpdxFilePropertyCache cache = SpdxFilePropertyCache.getCache(project);
+		monitor.beginTask("Converting SPDX file properties", files.size());
+		int numMigrated = 0;
+		try {
+			for (IFile file:files) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				if (cache.migrate(file)) {
+					numMigrated++;
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+		return numMigrated;
+	}
+	
+	/**
+	 * @param project
+	 * @return All files in the project
+	 * @throws CoreException
+	 */
+	private static List<IFile> getFiles(IProject project) throws CoreException {
+		final ArrayList<IFile> files = new ArrayList<IFile>();
+		project.accept(new IResourceProxyVisitor() {
+
+			@Override
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.getType() == IResource.FILE) {
+					files.add((IFile)proxy.requestResource());
+				}
+				return true;
+			}
+			
+		}, IResource.NONE);
+		return files;
+	}
+	
+	/**
+	 * @param storedValue
+	 * @param defaultValue
+	 * @return true if a value is stored and the getter would return the same value without it
+	 */
+	private static boolean isDefaultValue(String storedValue, String defaultValue) {
+		if (storedValue == null) {
+			return false;
+		}
+		return storedValue.isEmpty() || storedValue.equals(defaultValue);
+	}
+	
+	/**
+	 * Get a stored file property from the project property cache
+	 * @param file
+	 * @param propertyName
+	 * @return the stored value or null if not set
+	 * @throws CoreException
+	 */
+	private static String getFileProperty(IFile file, String propertyName) throws CoreException {
+		return SpdxFilePropertyCache.getCache(file.getProject()).getProperty(file, propertyName);
+	}
+	
+	/**
+	 * Store a file property keeping the project property cache up to date
+	 * @param file
+	 * @param propertyName
+	 * @param value
+	 * @throws CoreException
+	 */
+	private static void setFileProperty(IFile file, String propertyName, String value) throws CoreException {
+		SpdxFilePropertyCache.getCache(file.getProject()).setProperty(file, propertyName, value);
 	}
 	
 	/**
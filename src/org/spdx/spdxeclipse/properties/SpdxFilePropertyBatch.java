@@ -0,0 +1,283 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.properties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.spdx.rdfparser.InvalidSPDXAnalysisException;
+import org.spdx.rdfparser.SPDXLicenseInfoFactory;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.project.SpdxProject;
+import org.spdx.spdxeclipse.project.SpdxProjectException;
+import org.spdx.spdxeclipse.project.SpdxProjectFactory;
+import org.spdx.spdxspreadsheet.InvalidLicenseStringException;
+
+/**
+ * Collects changes to the SPDX properties of many files and applies them together.
+ *
+ * The changes are stored in a single workspace operation.  Each SPDX project is
+ * notified once with all of the changes to its files and saved once, rather than
+ * once per property as when using the setters in SpdxFileProperties.
+ *
+ * If the same property of a file is set more than once, only the last value is applied.
+ * All of the concluded licenses are validated before any change is stored.
+ * @author Gary O'Neall
+ *
+ */
+public class SpdxFilePropertyBatch {
+
+	/**
+	 * A property change applied by the batch
+	 */
+	public static class PropertyChange {
+		private IFile file;
+		private String propertyName;
+		private String oldValue;
+		private String newValue;
+
+		PropertyChange(IFile file, String propertyName, String oldValue, String newValue) {
+			this.file = file;
+			this.propertyName = propertyName;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		public IFile getFile() {
+			return file;
+		}
+
+		/**
+		 * @return Unqualified property name
+		 */
+		public String getPropertyName() {
+			return propertyName;
+		}
+
+		/**
+		 * @return Previously stored value or null if the property was not set
+		 */
+		public String getOldValue() {
+			return oldValue;
+		}
+
+		public String getNewValue() {
+			return newValue;
+		}
+	}
+
+	/**
+	 * Pending changes keyed by the file path and property name
+	 */
+	private LinkedHashMap<String, PropertyChange> pendingChanges = new LinkedHashMap<String, PropertyChange>();
+
+	public void setConcludedLicense(IFile file, String concludedLicense) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE, concludedLicense);
+	}
+
+	public void setCopyright(IFile file, String copyright) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT, copyright);
+	}
+
+	public void setNotice(IFile file, String notice) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_NOTICE, notice);
+	}
+
+	public void setComment(IFile file, String comment) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_COMMENT, comment);
+	}
+
+	public void setContributors(IFile file, String[] contributors) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS, SpdxFileProperties.stringArrayToString(contributors));
+	}
+
+	/**
+	 * @param file
+	 * @param projectName ArtifactOf Project Name
+	 */
+	public void setProjectName(IFile file, String projectName) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT, projectName);
+	}
+
+	/**
+	 * @param file
+	 * @param url ArtifactOf Project URL
+	 */
+	public void setProjectUrl(IFile file, String url) {
+		set(file, PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL, url);
+	}
+
+	private void set(IFile file, String propertyName, String value) {
+		pendingChanges.put(file.getFullPath().toString() + "#" + propertyName,
+				new PropertyChange(file, propertyName, null, value));
+	}
+
+	/**
+	 * @return Number of pending property changes
+	 */
+	public int size() {
+		return pendingChanges.size();
+	}
+
+	/**
+	 * Store all of the pending changes, notify the SPDX projects and save the SPDX projects
+	 * @param monitor
+	 * @return The changes which were applied - properties already set to the new value are not included
+	 * @throws CoreException
+	 */
+	public List<PropertyChange> apply(IProgressMonitor monitor) throws CoreException {
+		validateConcludedLicenses();
+		final LinkedHashMap<IProject, List<PropertyChange>> projectChanges = new LinkedHashMap<IProject, List<PropertyChange>>();
+		ISchedulingRule rule = null;
+		Iterator<PropertyChange> iter = pendingChanges.values().iterator();
+		while (iter.hasNext()) {
+			IProject project = iter.next().getFile().getProject();
+			if (!projectChanges.containsKey(project)) {
+				projectChanges.put(project, new ArrayList<PropertyChange>());
+				rule = MultiRule.combine(rule, project);
+			}
+		}
+		final List<PropertyChange> retval = new ArrayList<PropertyChange>();
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				monitor.beginTask("Setting SPDX properties", pendingChanges.size() + projectChanges.size());
+				try {
+					storeChanges(projectChanges, new SubProgressMonitor(monitor, pendingChanges.size()));
+					Iterator<Entry<IProject, List<PropertyChange>>> projectIter = projectChanges.entrySet().iterator();
+					while (projectIter.hasNext()) {
+						Entry<IProject, List<PropertyChange>> entry = projectIter.next();
+						notifySpdxProject(entry.getKey(), entry.getValue(), new SubProgressMonitor(monitor, 1));
+						retval.addAll(entry.getValue());
+					}
+				} finally {
+					monitor.done();
+				}
+			}
+
+		}, rule, IWorkspace.AVOID_UPDATE, monitor);
+		pendingChanges.clear();
+		return retval;
+	}
+
+	/**
+	 * Parse all of the pending concluded licenses so that an invalid license string
+	 * is rejected before any of the changes are stored
+	 * @throws CoreException
+	 */
+	private void validateConcludedLicenses() throws CoreException {
+		HashSet<String> validLicenses = new HashSet<String>();
+		Iterator<PropertyChange> iter = pendingChanges.values().iterator();
+		while (iter.hasNext()) {
+			PropertyChange pending = iter.next();
+			String license = pending.getNewValue();
+			if (!pending.getPropertyName().equals(PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE) ||
+					license == null || license.isEmpty() || validLicenses.contains(license)) {
+				continue;
+			}
+			try {
+				SPDXLicenseInfoFactory.parseSPDXLicenseString(license);
+			} catch (InvalidLicenseStringException e) {
+				Activator.getDefault().logError("Invalid concluded license for file "+pending.getFile().getName()+": "+license, e);
+				Status status = new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Invalid concluded license for file "+
+						pending.getFile().getName()+": "+e.getMessage(), e);
+				throw new CoreException(status);
+			}
+			validLicenses.add(license);
+		}
+	}
+
+	/**
+	 * Store the pending changes
+	 * @param projectChanges Map of project to changes which is updated with the stored changes
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	private void storeChanges(LinkedHashMap<IProject, List<PropertyChange>> projectChanges,
+			IProgressMonitor monitor) throws CoreException {
+		monitor.beginTask("Storing SPDX properties", pendingChanges.size());
+		try {
+			Iterator<PropertyChange> iter = pendingChanges.values().iterator();
+			while (iter.hasNext()) {
+				PropertyChange pending = iter.next();
+				IFile file = pending.getFile();
+				SpdxFilePropertyCache cache = SpdxFilePropertyCache.getCache(file.getProject());
+				String oldValue = cache.getProperty(file, pending.getPropertyName());
+				String newValue = pending.getNewValue();
+				if (oldValue == null ? newValue != null : !oldValue.equals(newValue)) {
+					cache.setProperty(file, pending.getPropertyName(), newValue);
+					projectChanges.get(file.getProject()).add(new PropertyChange(file,
+							pending.getPropertyName(), oldValue, newValue));
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Notifies the SPDX project of all property changes for the project and saves the
+	 * SPDX project if SPDX has been initialized for the project
+	 * @param project
+	 * @param changes
+	 * @param monitor
+	 * @throws CoreException
+	 */
+	private void notifySpdxProject(IProject project, List<PropertyChange> changes,
+			IProgressMonitor monitor) throws CoreException {
+		if (changes.isEmpty()) {
+			return;
+		}
+		try {
+			if (SpdxProjectProperties.isSpdxInitialized(project) && SpdxProjectFactory.isSpdxProjectOpen(project.getName())) {
+				SpdxProject spdxProject = SpdxProjectFactory.getSpdxProject(project.getName(), monitor);
+				spdxProject.filePropertiesChanged(changes);
+				spdxProject.save(monitor);
+			}
+		} catch (IOException e) {
+			Activator.getDefault().logError("IO Error getting spdx project", e);
+			Status status = new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "IO Error getting spdx project", e);
+			throw new CoreException(status);
+		} catch (InvalidSPDXAnalysisException e) {
+			Activator.getDefault().logError("Invalid SPDX Analysis error getting spdx project", e);
+			Status status = new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Invalid SPDX Analysis error getting spdx project", e);
+			throw new CoreException(status);
+		} catch (SpdxProjectException e) {
+			Activator.getDefault().logError("Error updating the new property values in the SPDX project", e);
+			Status status = new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Error updating the new property values in the SPDX project", e);
+			throw new CoreException(status);
+		}
+	}
+}
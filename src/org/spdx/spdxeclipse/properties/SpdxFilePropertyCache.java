@@ -0,0 +1,365 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.properties;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.preferences.SpdxProjectPreferences;
+
+/**
+ * In memory cache of the SPDX persistent properties for the files in a project.
+ *
+ * All of the SPDX properties for a file are read from the property store in a single
+ * call the first time any property of the file is requested.  See SpdxFileRecord for
+ * how the properties are stored.  The project default file
+ * properties are also cached so that resolving the defaults for a file does not
+ * read the project properties.
+ *
+ * The cache is kept coherent by the setters in SpdxFileProperties and SpdxProjectProperties
+ * and by a resource change listener which drops the entries for added, removed and moved
+ * files and for closed or deleted projects.  The project defaults are also dropped
+ * when an SPDX preference changes.  Properties set directly on the resource
+ * without using these classes will not be seen until the entry is dropped.
+ * @author Gary O'Neall
+ *
+ */
+public class SpdxFilePropertyCache {
+
+	/**
+	 * Default file property values for a project
+	 */
+	static class ProjectDefaults {
+		String license;
+		String copyright;
+		String notice;
+		String[] contributors;
+	}
+
+	/**
+	 * Listens for resource changes which invalidate cached properties
+	 */
+	static class CacheInvalidator implements IResourceChangeListener {
+
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getType() == IResourceChangeEvent.PRE_CLOSE ||
+					event.getType() == IResourceChangeEvent.PRE_DELETE) {
+				if (event.getResource() != null) {
+					removeCache(event.getResource().getName());
+					SpdxProjectPreferences.removeCache(event.getResource().getName());
+				}
+				return;
+			}
+			IResourceDelta delta = event.getDelta();
+			if (delta == null || projectCaches.isEmpty()) {
+				return;
+			}
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+
+					@Override
+					public boolean visit(IResourceDelta resourceDelta)
+							throws CoreException {
+						IResource resource = resourceDelta.getResource();
+						if (resource.getType() == IResource.PROJECT) {
+							if (resourceDelta.getKind() != IResourceDelta.CHANGED ||
+									(resourceDelta.getFlags() & IResourceDelta.OPEN) != 0) {
+								// the project preference node is replaced when a project is opened
+								SpdxProjectPreferences.removeCache(resource.getName());
+							}
+							SpdxFilePropertyCache cache = projectCaches.get(resource.getName());
+							if (cache == null) {
+								return false;	// nothing cached for this project
+							}
+							if (resourceDelta.getKind() != IResourceDelta.CHANGED ||
+									(resourceDelta.getFlags() & IResourceDelta.OPEN) != 0) {
+								removeCache(resource.getName());
+								return false;
+							}
+						} else if (resource.getType() == IResource.FILE) {
+							if (resourceDelta.getKind() == IResourceDelta.ADDED ||
+									resourceDelta.getKind() == IResourceDelta.REMOVED) {
+								SpdxFilePropertyCache cache = projectCaches.get(resource.getProject().getName());
+								if (cache != null) {
+									cache.invalidate((IFile)resource);
+								}
+							}
+						}
+						return true;
+					}
+
+				});
+			} catch (CoreException e) {
+				Activator.getDefault().logError("Error updating the SPDX file property cache - clearing the cache", e);
+				projectCaches.clear();
+			}
+		}
+	}
+
+	/**
+	 * Map of project name to the property cache for the project
+	 */
+	static ConcurrentHashMap<String, SpdxFilePropertyCache> projectCaches = new ConcurrentHashMap<String, SpdxFilePropertyCache>();
+
+	private static CacheInvalidator invalidator = null;
+
+	private IProject project;
+	/**
+	 * Map of project relative path to an unmodifiable map of the local property name to value
+	 */
+	private ConcurrentHashMap<String, Map<String, String>> fileProperties = new ConcurrentHashMap<String, Map<String, String>>();
+	private volatile ProjectDefaults projectDefaults = null;
+	/**
+	 * Incremented whenever a property is changed or invalidated so that a value read
+	 * from the property store concurrently with the change is not cached
+	 */
+	private volatile long generation = 0;
+
+	SpdxFilePropertyCache(IProject project) {
+		this.project = project;
+	}
+
+	/**
+	 * Start listening for resource changes.  Called when the plugin is started.
+	 */
+	public static synchronized void startListening() {
+		if (invalidator == null) {
+			invalidator = new CacheInvalidator();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(invalidator,
+					IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+		}
+	}
+
+	/**
+	 * Stop listening for resource changes and clear all cached properties.  Called when the plugin is stopped.
+	 */
+	public static synchronized void stopListening() {
+		if (invalidator != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(invalidator);
+			invalidator = null;
+		}
+		projectCaches.clear();
+	}
+
+	/**
+	 * @param project
+	 * @return The property cache for the project
+	 */
+	public static SpdxFilePropertyCache getCache(IProject project) {
+		SpdxFilePropertyCache cache = projectCaches.get(project.getName());
+		if (cache == null) {
+			cache = new SpdxFilePropertyCache(project);
+			SpdxFilePropertyCache existing = projectCaches.putIfAbsent(project.getName(), cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Remove all cached properties for a project
+	 * @param projectName
+	 */
+	public static void removeCache(String projectName) {
+		SpdxFilePropertyCache cache = projectCaches.remove(projectName);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Drop the cached project default file properties for a project.  Called when
+	 * a preference used to resolve the defaults is changed.
+	 * @param projectName
+	 */
+	public static void invalidateProjectDefaults(String projectName) {
+		SpdxFilePropertyCache cache = projectCaches.get(projectName);
+		if (cache != null) {
+			cache.invalidateDefaults();
+		}
+	}
+
+	/**
+	 * Drop the cached project default file properties for all projects.  Called when
+	 * a workspace preference used to resolve the defaults is changed.
+	 */
+	public static void invalidateAllProjectDefaults() {
+		Iterator<SpdxFilePropertyCache> iter = projectCaches.values().iterator();
+		while (iter.hasNext()) {
+			iter.next().invalidateDefaults();
+		}
+	}
+
+	/**
+	 * @param file
+	 * @param propertyName Unqualified SPDX property name
+	 * @return the stored value of the property or null if it has not been set
+	 * @throws CoreException
+	 */
+	public String getProperty(IFile file, String propertyName) throws CoreException {
+		return getProperties(file).get(propertyName);
+	}
+
+	/**
+	 * Store a property value and update the cache
+	 * @param file
+	 * @param propertyName Unqualified SPDX property name
+	 * @param value
+	 * @throws CoreException
+	 */
+	public synchronized void setProperty(IFile file, String propertyName, String value) throws CoreException {
+		Map<String, String> updated = SpdxFileRecord.update(file, propertyName, value);
+		generation++;
+		fileProperties.put(file.getProjectRelativePath().toString(), updated);
+	}
+
+	/**
+	 * Convert any properties stored by earlier versions of the plugin to a single record
+	 * @param file
+	 * @return true if the file had properties to convert
+	 * @throws CoreException
+	 */
+	public synchronized boolean migrate(IFile file) throws CoreException {
+		boolean retval = SpdxFileRecord.migrate(file);
+		if (retval) {
+			invalidate(file);
+		}
+		return retval;
+	}
+
+	/**
+	 * Get all of the SPDX properties for a file reading them from the property store if not cached
+	 * @param file
+	 * @return unmodifiable map of unqualified property name to value
+	 * @throws CoreException
+	 */
+	Map<String, String> getProperties(IFile file) throws CoreException {
+		String path = file.getProjectRelativePath().toString();
+		Map<String, String> retval = fileProperties.get(path);
+		if (retval != null) {
+			return retval;
+		}
+		long startGeneration = generation;
+		retval = SpdxFileRecord.read(file);
+		synchronized(this) {
+			if (startGeneration == generation) {
+				Map<String, String> existing = fileProperties.putIfAbsent(path, retval);
+				if (existing != null) {
+					retval = existing;
+				}
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * @return The project default file license
+	 * @throws CoreException
+	 */
+	public String getDefaultFileLicense() throws CoreException {
+		return getProjectDefaults().license;
+	}
+
+	/**
+	 * @return The project default file copyright
+	 * @throws CoreException
+	 */
+	public String getDefaultFileCopyright() throws CoreException {
+		return getProjectDefaults().copyright;
+	}
+
+	/**
+	 * @return The project default file notice
+	 * @throws CoreException
+	 */
+	public String getDefaultFileNotice() throws CoreException {
+		return getProjectDefaults().notice;
+	}
+
+	/**
+	 * @return The project default file contributors
+	 * @throws CoreException
+	 */
+	public String[] getDefaultFileContributors() throws CoreException {
+		return getProjectDefaults().contributors.clone();
+	}
+
+	private ProjectDefaults getProjectDefaults() throws CoreException {
+		ProjectDefaults retval = this.projectDefaults;
+		if (retval != null) {
+			return retval;
+		}
+		long startGeneration = generation;
+		retval = new ProjectDefaults();
+		retval.license = SpdxProjectProperties.getDefaultFileLicense(project);
+		retval.copyright = SpdxProjectProperties.getDefaultFileCopyright(project);
+		retval.notice = SpdxProjectProperties.getDefaultFileNotice(project);
+		retval.contributors = SpdxProjectProperties.getDefaultFileContributors(project);
+		synchronized(this) {
+			if (startGeneration == generation) {
+				this.projectDefaults = retval;
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * Drop the cached project default file properties.  Called when a default is changed.
+	 */
+	public synchronized void invalidateDefaults() {
+		generation++;
+		this.projectDefaults = null;
+	}
+
+	/**
+	 * Drop the cached properties for a file
+	 * @param file
+	 */
+	public synchronized void invalidate(IFile file) {
+		generation++;
+		fileProperties.remove(file.getProjectRelativePath().toString());
+	}
+
+	/**
+	 * Drop all cached properties
+	 */
+	public synchronized void clear() {
+		generation++;
+		fileProperties.clear();
+		this.projectDefaults = null;
+	}
+
+	/**
+	 * @return Number of files with cached properties
+	 */
+	public int size() {
+		return fileProperties.size();
+	}
+}
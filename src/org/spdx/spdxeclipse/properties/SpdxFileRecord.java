@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.properties;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.spdx.spdxeclipse.Activator;
+
+/**
+ * Stores all of the SPDX properties for a file in a single persistent property record.
+ *
+ * The record starts with the codec version followed by the properties as
+ * <code>name=value</code> fields separated by semicolons.  Backslash escapes any
+ * separator or backslash within a name or value.  List values use the same escaping
+ * so that list items may contain semicolons.
+ *
+ * The workspace limits the length of a persistent property so a long record is split
+ * over continuation properties named with a numeric suffix.
+ *
+ * Properties stored by earlier versions as one persistent property per SPDX property
+ * are read if the record does not contain the property and are converted to the record
+ * the next time a property of the file is set or when the file is migrated.
+ * @author Gary O'Neall
+ *
+ */
+public class SpdxFileRecord {
+
+	static final int RECORD_VERSION = 1;
+	static final char ESCAPE = '\\';
+	static final char FIELD_SEPARATOR = ';';
+	static final char VALUE_SEPARATOR = '=';
+	static final char LIST_SEPARATOR = ';';
+	/**
+	 * Maximum length of a persistent property value supported by the workspace
+	 */
+	static final int MAX_PROPERTY_LENGTH = 2 * 1024;
+	static final String CHUNK_SUFFIX_SEPARATOR = ".";
+
+	/**
+	 * Properties stored as individual persistent properties by earlier versions
+	 */
+	static final String[] LEGACY_PROPERTIES = new String[] {
+		PropertyConstants.PROP_SPDX_FILE_CONCLUDED_LICENSE,
+		PropertyConstants.PROP_SPDX_FILE_COPYRIGHT,
+		PropertyConstants.PROP_SPDX_FILE_NOTICE,
+		PropertyConstants.PROP_SPDX_FILE_COMMENT,
+		PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS,
+		PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_PROJECT,
+		PropertyConstants.PROP_SPDX_FILE_ARTIFACT_OF_URL
+	};
+	static final String LEGACY_LIST_SEPARATOR = ";";
+
+	/**
+	 * Read the SPDX properties for a file with a single request to the property store
+	 * @param file
+	 * @return Unmodifiable map of unqualified property name to value
+	 * @throws CoreException
+	 */
+	public static Map<String, String> read(IFile file) throws CoreException {
+		if (!file.exists()) {
+			return Collections.unmodifiableMap(new HashMap<String, String>());
+		}
+		return Collections.unmodifiableMap(toValues(file, file.getPersistentProperties()));
+	}
+
+	/**
+	 * Set a single SPDX property for a file storing all of the properties as a record
+	 * @param file
+	 * @param propertyName Unqualified property name
+	 * @param value Value to store or null to remove the property
+	 * @return Unmodifiable map of the stored property values
+	 * @throws CoreException
+	 */
+	public static Map<String, String> update(IFile file, String propertyName, String value) throws CoreException {
+		Map<QualifiedName, String> stored = file.getPersistentProperties();
+		HashMap<String, String> values = toValues(file, stored);
+		if (value == null) {
+			values.remove(propertyName);
+		} else {
+			values.put(propertyName, value);
+		}
+		write(file, values, stored);
+		return Collections.unmodifiableMap(values);
+	}
+
+	/**
+	 * Convert any properties stored by earlier versions to a record
+	 * @param file
+	 * @return true if the file had properties to convert
+	 * @throws CoreException
+	 */
+	public static boolean migrate(IFile file) throws CoreException {
+		if (!file.exists()) {
+			return false;
+		}
+		Map<QualifiedName, String> stored = file.getPersistentProperties();
+		boolean hasLegacy = false;
+		for (int i = 0; i < LEGACY_PROPERTIES.length; i++) {
+			if (stored.containsKey(qualifiedName(LEGACY_PROPERTIES[i]))) {
+				hasLegacy = true;
+				break;
+			}
+		}
+		if (!hasLegacy) {
+			return false;
+		}
+		write(file, toValues(file, stored), stored);
+		return true;
+	}
+
+	/**
+	 * Get the property values from the stored persistent properties
+	 * @param file
+	 * @param stored
+	 * @return
+	 */
+	private static HashMap<String, String> toValues(IFile file, Map<QualifiedName, String> stored) {
+		HashMap<String, String> retval = new HashMap<String, String>();
+		String record = getStoredRecord(stored);
+		if (record != null) {
+			try {
+				retval.putAll(decode(record));
+			} catch (ParseException e) {
+				Activator.getDefault().logError("Invalid SPDX property record for file "+file.getFullPath().toString(), e);
+			}
+		}
+		for (int i = 0; i < LEGACY_PROPERTIES.length; i++) {
+			String legacyValue = stored.get(qualifiedName(LEGACY_PROPERTIES[i]));
+			if (legacyValue != null && !retval.containsKey(LEGACY_PROPERTIES[i])) {
+				if (LEGACY_PROPERTIES[i].equals(PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS)) {
+					legacyValue = encodeList(legacyValue.split(LEGACY_LIST_SEPARATOR));
+				}
+				retval.put(LEGACY_PROPERTIES[i], legacyValue);
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * Store the values as a record removing any legacy properties and unused continuation properties
+	 * @param file
+	 * @param values
+	 * @param stored Currently stored persistent properties
+	 * @throws CoreException
+	 */
+	private static void write(IFile file, Map<String, String> values,
+			Map<QualifiedName, String> stored) throws CoreException {
+		String[] chunks = new String[0];
+		if (!values.isEmpty()) {
+			chunks = toChunks(encode(values));
+		}
+		for (int i = 0; i < chunks.length; i++) {
+			file.setPersistentProperty(chunkName(i), chunks[i]);
+		}
+		int chunkNum = chunks.length;
+		while (stored.containsKey(chunkName(chunkNum))) {
+			file.setPersistentProperty(chunkName(chunkNum), null);
+			chunkNum++;
+		}
+		for (int i = 0; i < LEGACY_PROPERTIES.length; i++) {
+			QualifiedName legacyName = qualifiedName(LEGACY_PROPERTIES[i]);
+			if (stored.containsKey(legacyName)) {
+				file.setPersistentProperty(legacyName, null);
+			}
+		}
+	}
+
+	/**
+	 * @param stored
+	 * @return The record from the persistent properties including any continuations or null if there is no record
+	 */
+	private static String getStoredRecord(Map<QualifiedName, String> stored) {
+		String chunk = stored.get(chunkName(0));
+		if (chunk == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder(chunk);
+		int chunkNum = 1;
+		chunk = stored.get(chunkName(chunkNum));
+		while (chunk != null) {
+			sb.append(chunk);
+			chunkNum++;
+			chunk = stored.get(chunkName(chunkNum));
+		}
+		return sb.toString();
+	}
+
+	private static QualifiedName qualifiedName(String propertyName) {
+		return new QualifiedName(Activator.PLUGIN_ID, propertyName);
+	}
+
+	/**
+	 * @param chunkNum
+	 * @return Name of the persistent property holding a part of the record
+	 */
+	static QualifiedName chunkName(int chunkNum) {
+		if (chunkNum == 0) {
+			return qualifiedName(PropertyConstants.PROP_SPDX_FILE_RECORD);
+		} else {
+			return qualifiedName(PropertyConstants.PROP_SPDX_FILE_RECORD + CHUNK_SUFFIX_SEPARATOR + String.valueOf(chunkNum));
+		}
+	}
+
+	/**
+	 * Split an encoded record into parts short enough to be stored as persistent properties
+	 * @param record
+	 * @return
+	 */
+	static String[] toChunks(String record) {
+		int numChunks = Math.max(1, (record.length() + MAX_PROPERTY_LENGTH - 1) / MAX_PROPERTY_LENGTH);
+		String[] retval = new String[numChunks];
+		for (int i = 0; i < numChunks; i++) {
+			retval[i] = record.substring(i * MAX_PROPERTY_LENGTH,
+					Math.min(record.length(), (i + 1) * MAX_PROPERTY_LENGTH));
+		}
+		return retval;
+	}
+
+	/**
+	 * Encode property values as a record
+	 * @param values Map of property name to value.  Null values are not stored.
+	 * @return
+	 */
+	public static String encode(Map<String, String> values) {
+		StringBuilder sb = new StringBuilder(String.valueOf(RECORD_VERSION));
+		// sorted so that the same values always produce the same record
+		Iterator<Entry<String, String>> iter = new TreeMap<String, String>(values).entrySet().iterator();
+		while (iter.hasNext()) {
+			Entry<String, String> entry = iter.next();
+			if (entry.getValue() == null) {
+				continue;
+			}
+			sb.append(FIELD_SEPARATOR);
+			escape(entry.getKey(), sb);
+			sb.append(VALUE_SEPARATOR);
+			escape(entry.getValue(), sb);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Decode a record
+	 * @param record
+	 * @return Map of property name to value
+	 * @throws ParseException if the record is invalid or was written by an unsupported version
+	 */
+	public static Map<String, String> decode(String record) throws ParseException {
+		List<String> fields = split(record, FIELD_SEPARATOR);
+		int version;
+		try {
+			version = Integer.parseInt(fields.get(0));
+		} catch (NumberFormatException e) {
+			throw(new ParseException("Invalid SPDX property record version", 0));
+		}
+		if (version != RECORD_VERSION) {
+			throw(new ParseException("Unsupported SPDX property record version "+String.valueOf(version), 0));
+		}
+		HashMap<String, String> retval = new HashMap<String, String>();
+		for (int i = 1; i < fields.size(); i++) {
+			List<String> nameValue = split(fields.get(i), VALUE_SEPARATOR);
+			if (nameValue.size() != 2) {
+				throw(new ParseException("Invalid SPDX property record field "+String.valueOf(i), i));
+			}
+			retval.put(unescape(nameValue.get(0)), unescape(nameValue.get(1)));
+		}
+		return retval;
+	}
+
+	/**
+	 * Encode a list so that the items may contain any character
+	 * @param items
+	 * @return
+	 */
+	public static String encodeList(String[] items) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < items.length; i++) {
+			if (i > 0) {
+				sb.append(LIST_SEPARATOR);
+			}
+			escape(items[i], sb);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Decode a list encoded by encodeList
+	 * @param encoded
+	 * @return
+	 */
+	public static String[] decodeList(String encoded) {
+		if (encoded == null || encoded.isEmpty()) {
+			return new String[0];
+		}
+		List<String> items = split(encoded, LIST_SEPARATOR);
+		String[] retval = new String[items.size()];
+		for (int i = 0; i < retval.length; i++) {
+			retval[i] = unescape(items.get(i));
+		}
+		return retval;
+	}
+
+	/**
+	 * Append a value escaping all separators and escape characters
+	 * @param value
+	 * @param sb
+	 */
+	private static void escape(String value, StringBuilder sb) {
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			if (ch == ESCAPE || ch == FIELD_SEPARATOR || ch == VALUE_SEPARATOR || ch == LIST_SEPARATOR) {
+				sb.append(ESCAPE);
+			}
+			sb.append(ch);
+		}
+	}
+
+	private static String unescape(String value) {
+		StringBuilder sb = new StringBuilder();
+		boolean escaped = false;
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			if (!escaped && ch == ESCAPE) {
+				escaped = true;
+			} else {
+				sb.append(ch);
+				escaped = false;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Split on a separator which is not escaped.  The parts are not unescaped.
+	 * @param s
+	 * @param separator
+	 * @return
+	 */
+	private static List<String> split(String s, char separator) {
+		ArrayList<String> retval = new ArrayList<String>();
+		int start = 0;
+		boolean escaped = false;
+		for (int i = 0; i < s.length(); i++) {
+			char ch = s.charAt(i);
+			if (escaped) {
+				escaped = false;
+			} else if (ch == ESCAPE) {
+				escaped = true;
+			} else if (ch == separator) {
+				retval.add(s.substring(start, i));
+				start = i + 1;
+			}
+		}
+		retval.add(s.substring(start));
+		return retval;
+	}
+}
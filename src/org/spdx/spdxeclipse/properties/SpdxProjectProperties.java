@@ -17,6 +17,7 @@
 package org.spdx.spdxeclipse.properties;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IProject;
@@ -27,6 +28,7 @@ import org.eclipse.core.runtime.Status;
 import org.spdx.rdfparser.InvalidSPDXAnalysisException;
 import org.spdx.spdxeclipse.Activator;
 import org.spdx.spdxeclipse.preferences.SpdxProjectPreferences;
+import org.spdx.spdxeclipse.project.SpdxHelper;
 import org.spdx.spdxeclipse.project.SpdxProjectException;
 import org.spdx.spdxeclipse.project.SpdxProjectFactory;
 
@@ -34,7 +36,8 @@ import org.spdx.spdxeclipse.project.SpdxProjectFactory;
  * Class used to manage the project properties associated with SPDX
  * 
  * If a property has not been set, the property will be retrieved from the 
- * Project Preferences and the property will be initialized to that preference
+ * Project Preferences.  Only the SPDX file name and document URL are initialized
+ * to the preference since they identify the SPDX document for the project.
  * 
  * @author Gary O'Neall
  *
@@ -75,8 +78,7 @@ public class SpdxProjectProperties {
 			// nothing
 		}
 		if (initialized == null) {
-			initialized = convertBooleanToString(false);
-			project.setPersistentProperty(qPropName, initialized);
+			return false;
 		}
 		return convertStringToBoolean(initialized);	
 	}
@@ -134,7 +136,6 @@ public class SpdxProjectProperties {
 		if (defaultFileLicense == null) {
 			// not initialized
 			defaultFileLicense = SpdxProjectPreferences.getDefaultFileLicense(project);
-			project.setPersistentProperty(qPropName, defaultFileLicense);
 		}
 		return defaultFileLicense;
 	}
@@ -150,7 +151,6 @@ public class SpdxProjectProperties {
 		if (defaultFileCopyright == null) {
 			// not initialized
 			defaultFileCopyright = SpdxProjectPreferences.getDefaultSpdxFileCopyright(project);
-			project.setPersistentProperty(qPropName, defaultFileCopyright);
 		}
 		return defaultFileCopyright;
 	}
@@ -160,6 +160,7 @@ public class SpdxProjectProperties {
 		String oldValue = project.getPersistentProperty(qPropName);
 		notifySpdxProject(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_LICENSE, oldValue, fileLicense);
 		project.setPersistentProperty(qPropName, fileLicense);
+		SpdxFilePropertyCache.getCache(project).invalidateDefaults();
 	}
 
 	public static void setDefaultFileCopyright(IProject project, String copyrightText) throws CoreException {
@@ -167,6 +168,7 @@ public class SpdxProjectProperties {
 		String oldValue = project.getPersistentProperty(qPropName);
 		notifySpdxProject(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_COPYRIGHT, oldValue, copyrightText);
 		project.setPersistentProperty(qPropName, copyrightText);
+		SpdxFilePropertyCache.getCache(project).invalidateDefaults();
 	}
 	
 	public static void setDefaultFileNotice(IProject project, String noticeText) throws CoreException {
@@ -174,6 +176,7 @@ public class SpdxProjectProperties {
 		String oldValue = project.getPersistentProperty(qPropName);
 		notifySpdxProject(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_NOTICE, oldValue, noticeText);
 		project.setPersistentProperty(qPropName, noticeText);
+		SpdxFilePropertyCache.getCache(project).invalidateDefaults();
 	}
 	
 	public static String getDefaultFileNotice(IProject project) throws CoreException {
@@ -187,7 +190,6 @@ public class SpdxProjectProperties {
 		if (defaultFileNotice == null) {
 			// not initialized
 			defaultFileNotice = SpdxProjectPreferences.getDefaultSpdxFileNotice(project);
-			project.setPersistentProperty(qPropName, defaultFileNotice);
 		}
 		return defaultFileNotice;
 	}
@@ -203,9 +205,16 @@ public class SpdxProjectProperties {
 		if (defaultContributors == null) {
 			// not initialized
 			defaultContributors = SpdxProjectPreferences.getDefaultSpdxFileDefaultContributors(project);
-			project.setPersistentProperty(qPropName, defaultContributors);
 		}
-		return defaultContributors.split(LIST_SEPARATOR);
+		return parseDefaultFileContributors(defaultContributors);
+	}
+	
+	/**
+	 * @param propValue stored value of the default file contributors property
+	 * @return the default file contributors
+	 */
+	public static String[] parseDefaultFileContributors(String propValue) {
+		return propValue.split(LIST_SEPARATOR);
 	}
 	
 	public static void setDefaulFileContributors(IProject project, String[] contributors) throws CoreException {
@@ -221,6 +230,7 @@ public class SpdxProjectProperties {
 		}
 		notifySpdxProject(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_CONTRIBUTORS, oldValue, propValue.toString());
 		project.setPersistentProperty(qPropName, propValue.toString());
+		SpdxFilePropertyCache.getCache(project).invalidateDefaults();
 	}
 	
 	public static void setIncludedResourceDirectories(IProject project, String[] includedDirectories) throws CoreException {
@@ -281,6 +291,53 @@ public class SpdxProjectProperties {
 		}
 	}
 	
+	/**
+	 * @param project
+	 * @return Checksum algorithms calculated for each file in the project.  SHA-1 is always included.
+	 * @throws CoreException
+	 */
+	public static String[] getChecksumAlgorithms(IProject project) throws CoreException {
+		QualifiedName qPropName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_CHECKSUM_ALGORITHMS);
+		return parseChecksumAlgorithms(project.getPersistentProperty(qPropName));
+	}
+	
+	/**
+	 * @param propValue Value of the checksum algorithms property - may be null if the property is not set
+	 * @return Checksum algorithms for the property value.  SHA-1 only if the property is not set.
+	 */
+	public static String[] parseChecksumAlgorithms(String propValue) {
+		if (propValue == null || propValue.isEmpty()) {
+			return new String[] {SpdxHelper.SHA1_ALGORITHM};
+		}
+		else {
+			return propValue.split(LIST_SEPARATOR);
+		}
+	}
+	
+	/**
+	 * Set the checksum algorithms calculated for each file in the project
+	 * @param project
+	 * @param algorithms Algorithm names - must be one of SpdxHelper.SUPPORTED_CHECKSUM_ALGORITHMS
+	 * @throws CoreException
+	 */
+	public static void setChecksumAlgorithms(IProject project, String[] algorithms) throws CoreException {
+		QualifiedName qPropName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_CHECKSUM_ALGORITHMS);
+		String oldValue = project.getPersistentProperty(qPropName);
+		StringBuilder propValue = new StringBuilder(SpdxHelper.SHA1_ALGORITHM);
+		for (int i = 0; i < algorithms.length; i++) {
+			if (!Arrays.asList(SpdxHelper.SUPPORTED_CHECKSUM_ALGORITHMS).contains(algorithms[i])) {
+				Status status = new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Unsupported checksum algorithm: "+algorithms[i], null);
+				throw new CoreException(status);
+			}
+			if (!algorithms[i].equals(SpdxHelper.SHA1_ALGORITHM)) {
+				propValue.append(LIST_SEPARATOR);
+				propValue.append(algorithms[i]);
+			}
+		}
+		notifySpdxProject(project, PropertyConstants.PROP_SPDX_CHECKSUM_ALGORITHMS, oldValue, propValue.toString());
+		project.setPersistentProperty(qPropName, propValue.toString());
+	}
+	
 	/**
 	 * Notifies the SPDX project of the property change if the SPDX project has
 	 * been initialized for the project
@@ -311,6 +368,47 @@ public class SpdxProjectProperties {
 		}
 	}
 
+	/**
+	 * Remove any default file properties stored on the project with a value identical
+	 * to the current preference
+	 * @param project
+	 * @return Number of properties removed
+	 * @throws CoreException
+	 */
+	public static int removeDefaultValues(IProject project) throws CoreException {
+		int numRemoved = 0;
+		if (removeIfEqual(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_LICENSE,
+				SpdxProjectPreferences.getDefaultFileLicense(project))) {
+			numRemoved++;
+		}
+		if (removeIfEqual(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_COPYRIGHT,
+				SpdxProjectPreferences.getDefaultSpdxFileCopyright(project))) {
+			numRemoved++;
+		}
+		if (removeIfEqual(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_NOTICE,
+				SpdxProjectPreferences.getDefaultSpdxFileNotice(project))) {
+			numRemoved++;
+		}
+		if (removeIfEqual(project, PropertyConstants.PROP_SPDX_DEFAULT_FILE_CONTRIBUTORS,
+				SpdxProjectPreferences.getDefaultSpdxFileDefaultContributors(project))) {
+			numRemoved++;
+		}
+		if (numRemoved > 0) {
+			SpdxFilePropertyCache.getCache(project).invalidateDefaults();
+		}
+		return numRemoved;
+	}
+	
+	private static boolean removeIfEqual(IProject project, String propertyName, String preferenceValue) throws CoreException {
+		QualifiedName qPropName = new QualifiedName(Activator.PLUGIN_ID, propertyName);
+		String propValue = project.getPersistentProperty(qPropName);
+		if (propValue != null && propValue.equals(preferenceValue)) {
+			project.setPersistentProperty(qPropName, null);
+			return true;
+		}
+		return false;
+	}
+
 	public static void addExcludedFilePattern(IProject project,
 			String excludedPattern) throws CoreException {
 		QualifiedName qPropName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_EXCLUDED_FILE_PATTERNS);
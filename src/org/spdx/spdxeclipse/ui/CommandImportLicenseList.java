@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.commands.IHandler;
+import org.eclipse.core.commands.IHandlerListener;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.PlatformUI;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.project.LicenseListSnapshot;
+import org.spdx.spdxeclipse.project.StandardLicenseCatalog;
+
+/**
+ * Command to import a local copy of the SPDX license list.  The imported license
+ * list replaces the license list bundled with the plugin without requiring
+ * network access.
+ * @author Gary O'Neall
+ *
+ */
+public class CommandImportLicenseList implements IHandler {
+
+	ArrayList<IHandlerListener> handlerListeners = new ArrayList<IHandlerListener>();
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#addHandlerListener(org.eclipse.core.commands.IHandlerListener)
+	 */
+	@Override
+	public void addHandlerListener(IHandlerListener handlerListener) {
+		this.handlerListeners.add(handlerListener);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#dispose()
+	 */
+	@Override
+	public void dispose() {
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#execute(org.eclipse.core.commands.ExecutionEvent)
+	 */
+	@Override
+	public Object execute(ExecutionEvent arg0) throws ExecutionException {
+		Shell shell = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell();
+		FileDialog fileDialog = new FileDialog(shell, SWT.OPEN);
+		fileDialog.setText("Select the SPDX license list file (licenses.json)");
+		fileDialog.setFilterExtensions(new String[] {"*.json", "*.*"});
+		String fileName = fileDialog.open();
+		if (fileName == null) {
+			return null;
+		}
+		final File licenseListFile = new File(fileName);
+		final StandardLicenseCatalog[] imported = new StandardLicenseCatalog[1];
+		try {
+			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
+
+				@Override
+				public void run(IProgressMonitor monitor)
+						throws InvocationTargetException, InterruptedException {
+					monitor.beginTask("Importing SPDX license list", IProgressMonitor.UNKNOWN);
+					try {
+						imported[0] = LicenseListSnapshot.importLicenseList(licenseListFile);
+						StandardLicenseCatalog.setCatalog(imported[0]);
+					} catch (IOException e) {
+						throw(new InvocationTargetException(e));
+					} finally {
+						monitor.done();
+					}
+				}
+
+			});
+		} catch (InvocationTargetException e) {
+			Activator.getDefault().logError("Error importing SPDX license list", e);
+			MessageDialog.openError(shell, "Error",
+					"Error importing SPDX license list: "+e.getTargetException().getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			return null;
+		}
+		MessageDialog.openInformation(shell, "SPDX License List Imported",
+				"Imported "+String.valueOf(imported[0].size())+" licenses from SPDX license list version "+
+				imported[0].getLicenseListVersion());
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#isHandled()
+	 */
+	@Override
+	public boolean isHandled() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#removeHandlerListener(org.eclipse.core.commands.IHandlerListener)
+	 */
+	@Override
+	public void removeHandlerListener(IHandlerListener handlerListener) {
+		this.handlerListeners.remove(handlerListener);
+	}
+
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.ui;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.commands.IHandler;
+import org.eclipse.core.commands.IHandlerListener;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.ISelectionListener;
+import org.eclipse.ui.ISelectionService;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyBatch;
+
+/**
+ * Command to set SPDX properties for all of the selected files.  Any selected
+ * folders or projects include all of the files they contain.
+ *
+ * The properties are applied as a single batch so that the SPDX project is only
+ * updated and saved once.
+ * @author Gary O'Neall
+ *
+ */
+public class CommandSetSpdxProperties implements IHandler {
+
+	ArrayList<IHandlerListener> handlerListeners = new ArrayList<IHandlerListener>();
+	ISelectionListener selectionListener = null;
+	IStructuredSelection selection = null;
+
+	/**
+	 * Command to set SPDX properties for the selected files
+	 */
+	public CommandSetSpdxProperties() {
+		selectionListener = new ISelectionListener() {
+
+			@Override
+			public void selectionChanged(IWorkbenchPart part,
+					ISelection newSelection) {
+				if(newSelection instanceof IStructuredSelection) {
+					selection = (IStructuredSelection)newSelection;
+				}
+			}
+
+		};
+		IWorkbenchWindow activeWindow = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		if (activeWindow != null) {
+			activeWindow.getSelectionService().addSelectionListener(selectionListener);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#addHandlerListener(org.eclipse.core.commands.IHandlerListener)
+	 */
+	@Override
+	public void addHandlerListener(IHandlerListener handlerListener) {
+		this.handlerListeners.add(handlerListener);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#dispose()
+	 */
+	@Override
+	public void dispose() {
+		if (selectionListener != null) {
+			IWorkbench workBench = PlatformUI.getWorkbench();
+			if (workBench != null) {
+				IWorkbenchWindow window = workBench.getActiveWorkbenchWindow();
+				if (window != null) {
+					ISelectionService selectionService = window.getSelectionService();
+					if (selectionService != null) {
+						selectionService.removeSelectionListener(selectionListener);
+					}
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#execute(org.eclipse.core.commands.ExecutionEvent)
+	 */
+	@Override
+	public Object execute(ExecutionEvent arg0) throws ExecutionException {
+		Shell shell = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell();
+		final List<IFile> files;
+		try {
+			files = getSelectedFiles();
+		} catch (CoreException e) {
+			Activator.getDefault().logError("Error getting the selected files", e);
+			MessageDialog.openError(shell, "Error",
+					"Error getting the selected files: "+e.getMessage());
+			return null;
+		}
+		if (files.isEmpty()) {
+			MessageDialog.openWarning(shell, "No Files Selected",
+					"No files selected - please select the files, folders or projects to set SPDX properties for");
+			return null;
+		}
+		final SetSpdxPropertiesDialog dialog = new SetSpdxPropertiesDialog(shell, files.size());
+		if (dialog.open() != Dialog.OK || !dialog.hasChanges()) {
+			return null;
+		}
+		final int[] numChanged = new int[1];
+		try {
+			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
+
+				@Override
+				public void run(IProgressMonitor monitor)
+						throws InvocationTargetException, InterruptedException {
+					SpdxFilePropertyBatch batch = new SpdxFilePropertyBatch();
+					for (IFile file:files) {
+						dialog.addChanges(batch, file);
+					}
+					try {
+						numChanged[0] = batch.apply(monitor).size();
+					} catch (CoreException e) {
+						throw(new InvocationTargetException(e));
+					}
+				}
+
+			});
+		} catch (InvocationTargetException e) {
+			Activator.getDefault().logError("Error setting SPDX properties", e);
+			MessageDialog.openError(shell, "Error",
+					"Error setting SPDX properties: "+e.getTargetException().getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			return null;
+		}
+		MessageDialog.openInformation(shell, "SPDX Properties Set",
+				"Changed "+String.valueOf(numChanged[0])+" SPDX properties for "+
+				String.valueOf(files.size())+" files");
+		return null;
+	}
+
+	/**
+	 * @return All files selected or contained in a selected folder or project
+	 * @throws CoreException
+	 */
+	private List<IFile> getSelectedFiles() throws CoreException {
+		final LinkedHashSet<IFile> retval = new LinkedHashSet<IFile>();
+		if (selection == null) {
+			return new ArrayList<IFile>();
+		}
+		Iterator<?> iter = selection.iterator();
+		while (iter.hasNext()) {
+			Object element = iter.next();
+			IResource resource = null;
+			if (element instanceof IResource) {
+				resource = (IResource)element;
+			} else if (element instanceof IAdaptable) {
+				resource = (IResource)((IAdaptable)element).getAdapter(IResource.class);
+			}
+			if (resource == null || !resource.isAccessible()) {
+				continue;
+			}
+			resource.accept(new IResourceVisitor() {
+
+				@Override
+				public boolean visit(IResource resource) throws CoreException {
+					if (resource.isDerived() || resource.isTeamPrivateMember()) {
+						return false;
+					}
+					if (resource.getType() == IResource.FILE) {
+						retval.add((IFile)resource);
+					}
+					return true;
+				}
+
+			});
+		}
+		return new ArrayList<IFile>(retval);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#isHandled()
+	 */
+	@Override
+	public boolean isHandled() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#removeHandlerListener(org.eclipse.core.commands.IHandlerListener)
+	 */
+	@Override
+	public void removeHandlerListener(IHandlerListener handlerListener) {
+		this.handlerListeners.remove(handlerListener);
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.ui;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+
+import org.eclipse.core.commands.ExecutionEvent;
+import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.commands.IHandler;
+import org.eclipse.core.commands.IHandlerListener;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.ISelectionListener;
+import org.eclipse.ui.ISelectionService;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.properties.SpdxFileProperties;
+import org.spdx.spdxeclipse.properties.SpdxProjectProperties;
+
+/**
+ * Command to upgrade the SPDX properties stored by earlier versions of the plugin.
+ * The file properties are converted to a single record per file and any properties
+ * stored with the same value as the default are removed.  Earlier versions of the
+ * plugin stored the default value on every file in the project.
+ * @author Gary O'Neall
+ *
+ */
+public class CommandUpgradeSpdxProperties implements IHandler {
+
+	ArrayList<IHandlerListener> handlerListeners = new ArrayList<IHandlerListener>();
+	ISelectionListener selectionListener = null;
+	IProject selectedProject = null;
+
+	/**
+	 * Command to upgrade the stored SPDX properties
+	 */
+	public CommandUpgradeSpdxProperties() {
+		selectionListener = new ISelectionListener() {
+
+			@Override
+			public void selectionChanged(IWorkbenchPart part,
+					ISelection selection) {
+				if(selection instanceof StructuredSelection) {
+					Object element = ((StructuredSelection)selection).getFirstElement();
+					if (element instanceof IResource) {
+						selectedProject = ((IResource)element).getProject();
+					}
+				}
+			}
+
+		};
+		IWorkbenchWindow activeWindow = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		if (activeWindow != null) {
+			activeWindow.getSelectionService().addSelectionListener(selectionListener);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#addHandlerListener(org.eclipse.core.commands.IHandlerListener)
+	 */
+	@Override
+	public void addHandlerListener(IHandlerListener handlerListener) {
+		this.handlerListeners.add(handlerListener);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#dispose()
+	 */
+	@Override
+	public void dispose() {
+		if (selectionListener != null) {
+			IWorkbench workBench = PlatformUI.getWorkbench();
+			if (workBench != null) {
+				IWorkbenchWindow window = workBench.getActiveWorkbenchWindow();
+				if (window != null) {
+					ISelectionService selectionService = window.getSelectionService();
+					if (selectionService != null) {
+						selectionService.removeSelectionListener(selectionListener);
+					}
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#execute(org.eclipse.core.commands.ExecutionEvent)
+	 */
+	@Override
+	public Object execute(ExecutionEvent arg0) throws ExecutionException {
+		Shell shell = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell();
+		String projectName = null;
+		if (selectedProject != null) {
+			projectName = selectedProject.getName();
+		}
+		if (projectName == null) {
+			projectName = UIHelper.chooseProject();
+		}
+		if (projectName == null) {
+			MessageDialog.openWarning(shell, "No Project Select",
+					"No project selected - please select a valid Eclipse project");
+			return null;
+		}
+		final IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+		final int[] numMigrated = new int[1];
+		final int[] numRemoved = new int[1];
+		try {
+			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
+
+				@Override
+				public void run(IProgressMonitor monitor)
+						throws InvocationTargetException, InterruptedException {
+					monitor.beginTask("Upgrading SPDX properties", 2);
+					try {
+						numMigrated[0] = SpdxFileProperties.migrateToRecords(project, new SubProgressMonitor(monitor, 1));
+						numRemoved[0] = SpdxFileProperties.removeDefaultValues(project, new SubProgressMonitor(monitor, 1));
+						numRemoved[0] += SpdxProjectProperties.removeDefaultValues(project);
+					} catch (CoreException e) {
+						throw(new InvocationTargetException(e));
+					} finally {
+						monitor.done();
+					}
+					if (monitor.isCanceled()) {
+						throw(new InterruptedException());
+					}
+				}
+
+			});
+		} catch (InvocationTargetException e) {
+			Activator.getDefault().logError("Error upgrading SPDX properties", e);
+			MessageDialog.openError(shell, "Error",
+					"Error upgrading SPDX properties: "+e.getTargetException().getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			return null;
+		}
+		MessageDialog.openInformation(shell, "SPDX Properties Upgraded",
+				"Converted the SPDX properties for "+String.valueOf(numMigrated[0])+" files and removed "+
+				String.valueOf(numRemoved[0])+" SPDX properties identical to the default in "+projectName);
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#isHandled()
+	 */
+	@Override
+	public boolean isHandled() {
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.commands.IHandler#removeHandlerListener(org.eclipse.core.commands.IHandlerListener)
+	 */
+	@Override
+	public void removeHandlerListener(IHandlerListener handlerListener) {
+		this.handlerListeners.remove(handlerListener);
+	}
+
+}
@@ -16,13 +16,10 @@
 */
 package org.spdx.spdxeclipse.ui;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.dialogs.Dialog;
-import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.KeyEvent;
@@ -35,7 +32,6 @@ import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Text;
-import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.dialogs.FilteredItemsSelectionDialog;
 import org.spdx.rdfparser.SPDXNonStandardLicense;
 import org.spdx.spdxeclipse.project.SpdxProject;
@@ -66,23 +62,7 @@ public class LicenseSelectionGroup implements Listener {
 			SpdxProject project, String defaultLicense) {
 		this.project = project;
 		this.groupLabel = groupLabel;
-		final SpdxProject tProject = project;
-		// this takes a while on first instance
-		try {
-			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
-
-				@Override
-				public void run(IProgressMonitor monitor) {
-					availableLicenses = tProject.getAvailableLicenseNames();
-				}
-				
-			});
-		} catch (InvocationTargetException e) {
-			availableLicenses = tProject.getAvailableLicenseNames();
-		} catch (InterruptedException e) {
-			availableLicenses = tProject.getAvailableLicenseNames();
-		}
-		Arrays.sort(availableLicenses);
+		this.availableLicenses = project.getAvailableLicenseNames();	// already sorted
 		this.defaultLicense = defaultLicense;		
 		createControl(parent, style);
 	}
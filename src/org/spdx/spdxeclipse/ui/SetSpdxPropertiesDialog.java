@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.ui;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyBatch;
+
+/**
+ * Dialog to set SPDX properties on several files at once
+ *
+ * Only the properties which are checked are changed - all other properties
+ * of the files keep their current values
+ *
+ * @author Gary O'Neall
+ *
+ */
+public class SetSpdxPropertiesDialog extends Dialog {
+
+	Button btnSetLicense;
+	Text txtLicense;
+	Button btnSetCopyright;
+	Text txtCopyright;
+	Button btnSetNotice;
+	Text txtNotice;
+	Button btnSetComment;
+	Text txtComment;
+	private int numFiles;
+	private String license = null;
+	private String copyright = null;
+	private String notice = null;
+	private String comment = null;
+
+	/**
+	 * @param parentShell
+	 * @param numFiles Number of files the properties will be applied to
+	 */
+	public SetSpdxPropertiesDialog(Shell parentShell, int numFiles) {
+		super(parentShell);
+		this.numFiles = numFiles;
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite composite = (Composite)super.createDialogArea(parent);
+		GridLayout layout = (GridLayout)(composite.getLayout());
+		layout.numColumns = 2;
+		Label lblFiles = new Label(composite, SWT.NONE);
+		lblFiles.setText("Set the checked SPDX properties for "+String.valueOf(numFiles)+" files");
+		GridData gdFiles = new GridData(GridData.FILL_HORIZONTAL);
+		gdFiles.horizontalSpan = 2;
+		lblFiles.setLayoutData(gdFiles);
+
+		this.btnSetLicense = new Button(composite, SWT.CHECK);
+		this.btnSetLicense.setText("Concluded License: ");
+		this.txtLicense = createText(composite, btnSetLicense, SWT.BORDER);
+		this.txtLicense.setToolTipText("SPDX license expression for the concluded license");
+
+		this.btnSetCopyright = new Button(composite, SWT.CHECK);
+		this.btnSetCopyright.setText("Copyright: ");
+		this.txtCopyright = createText(composite, btnSetCopyright, SWT.BORDER);
+
+		this.btnSetNotice = new Button(composite, SWT.CHECK);
+		this.btnSetNotice.setText("Notice: ");
+		this.txtNotice = createText(composite, btnSetNotice, SWT.BORDER | SWT.V_SCROLL | SWT.WRAP);
+		((GridData)this.txtNotice.getLayoutData()).heightHint = 60;
+
+		this.btnSetComment = new Button(composite, SWT.CHECK);
+		this.btnSetComment.setText("Comment: ");
+		this.txtComment = createText(composite, btnSetComment, SWT.BORDER);
+		return composite;
+	}
+
+	/**
+	 * Create a text field which is only enabled when the check button is selected
+	 * @param composite
+	 * @param checkButton
+	 * @param style
+	 * @return
+	 */
+	private Text createText(Composite composite, final Button checkButton, int style) {
+		final Text text = new Text(composite, style);
+		GridData gd = new GridData(GridData.FILL_HORIZONTAL);
+		gd.grabExcessHorizontalSpace = true;
+		text.setLayoutData(gd);
+		text.setEnabled(false);
+		checkButton.addSelectionListener(new SelectionAdapter() {
+
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				text.setEnabled(checkButton.getSelection());
+			}
+
+		});
+		return text;
+	}
+
+	@Override
+	protected void configureShell(Shell newShell) {
+		super.configureShell(newShell);
+		newShell.setText("Set SPDX Properties");
+	}
+
+	@Override
+	protected Point getInitialSize() {
+		return new Point(500, 350);
+	}
+
+	@Override
+	protected void okPressed() {
+		license = checkedValue(btnSetLicense, txtLicense);
+		copyright = checkedValue(btnSetCopyright, txtCopyright);
+		notice = checkedValue(btnSetNotice, txtNotice);
+		comment = checkedValue(btnSetComment, txtComment);
+		super.okPressed();
+	}
+
+	private String checkedValue(Button checkButton, Text text) {
+		if (checkButton.getSelection()) {
+			return text.getText().trim();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Add the checked property values for a file to a batch
+	 * @param batch
+	 * @param file
+	 */
+	public void addChanges(SpdxFilePropertyBatch batch, IFile file) {
+		if (license != null) {
+			batch.setConcludedLicense(file, license);
+		}
+		if (copyright != null) {
+			batch.setCopyright(file, copyright);
+		}
+		if (notice != null) {
+			batch.setNotice(file, notice);
+		}
+		if (comment != null) {
+			batch.setComment(file, comment);
+		}
+	}
+
+	/**
+	 * @return true if at least one property was checked
+	 */
+	public boolean hasChanges() {
+		return license != null || copyright != null || notice != null || comment != null;
+	}
+}
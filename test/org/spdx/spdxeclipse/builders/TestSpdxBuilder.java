@@ -35,11 +35,13 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -443,6 +445,160 @@ public class TestSpdxBuilder {
 		}
 	}
 	
+	/**
+	 * Test method for {@link org.spdx.spdxeclipse.builders.SpdxBuilder#build(int, java.util.Map, org.eclipse.core.runtime.IProgressMonitor)}.
+	 */
+	@Test
+	public void testIncrementalBuildMovedFile() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InvalidExcludedFilePattern, InterruptedException {
+		this.openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.createFiles();
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+			SPDXFile[] fullBuildFiles = this.spdxProject.getSpdxDoc().getFileReferences();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES, fullBuildFiles.length);
+			String originalSha1 = null;
+			for (int i = 0; i < fullBuildFiles.length; i++) {
+				if (fullBuildFiles[i].getName().equals(FILE_PATHS[0])) {
+					originalSha1 = fullBuildFiles[i].getSha1();
+				}
+			}
+			assertTrue(originalSha1 != null);
+			String originalVerificationCode = this.spdxProject.getSpdxDoc().getSpdxPackage().getVerificationCode().getValue();
+			
+			IFile movedFile = getFile(this.projectResource, FILE_PATHS[0]);
+			IFile renamedFile = this.projectResource.getFolder(SOURCE_DIR).getFile("renamed.c");
+			movedFile.move(renamedFile.getFullPath(), true, nullMonitor);
+			// the above should trigger the incremental build
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+
+			SPDXFile[] incBuildFiles = this.spdxProject.getSpdxDoc().getFileReferences();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES, incBuildFiles.length);
+			SPDXFile renamedSpdxFile = null;
+			for (int i = 0; i < incBuildFiles.length; i++) {
+				assertTrue(!incBuildFiles[i].getName().equals(FILE_PATHS[0]));
+				if (incBuildFiles[i].getName().equals(renamedFile.getProjectRelativePath().toString())) {
+					renamedSpdxFile = incBuildFiles[i];
+				}
+			}
+			if (renamedSpdxFile == null) {
+				fail("Moved file was not renamed in the SPDX file");
+			}
+			assertEquals(originalSha1, renamedSpdxFile.getSha1());
+			assertEquals(originalVerificationCode, this.spdxProject.getSpdxDoc().getSpdxPackage().getVerificationCode().getValue());
+			IMarker[] markers = this.projectResource.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+			assertEquals(0, markers.length);
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testIncrementalBuildMovedOverDeletedFile() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InvalidExcludedFilePattern, InterruptedException {
+		this.openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.createFiles();
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+			String originalSha1 = getSpdxFile(FILE_PATHS[0]).getSha1();
+			final IFile movedFile = getFile(this.projectResource, FILE_PATHS[0]);
+			final IFile deletedFile = getFile(this.projectResource, FILE_PATHS[1]);
+			// delete then move in one operation - the destination delta is CHANGED with MOVED_FROM
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					deletedFile.delete(true, monitor);
+					movedFile.move(deletedFile.getFullPath(), true, monitor);
+				}
+				
+			}, nullMonitor);
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+
+			SPDXFile[] incBuildFiles = this.spdxProject.getSpdxDoc().getFileReferences();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES - 1, incBuildFiles.length);
+			assertTrue(getSpdxFile(FILE_PATHS[0]) == null);
+			SPDXFile replacedSpdxFile = getSpdxFile(FILE_PATHS[1]);
+			assertTrue(replacedSpdxFile != null);
+			assertEquals(originalSha1, replacedSpdxFile.getSha1());
+			IMarker[] markers = this.projectResource.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+			assertEquals(0, markers.length);
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testIncrementalBuildMovedFileRecreated() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InvalidExcludedFilePattern, InterruptedException {
+		this.openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.createFiles();
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+			String originalSha1 = getSpdxFile(FILE_PATHS[0]).getSha1();
+			final IFile movedFile = getFile(this.projectResource, FILE_PATHS[0]);
+			final IFile renamedFile = this.projectResource.getFolder(SOURCE_DIR).getFile("renamed.c");
+			// move then create a new file at the original path in one operation
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					movedFile.move(renamedFile.getFullPath(), true, monitor);
+					try {
+						createResourceFile(movedFile);
+						modifyFile(movedFile);
+					} catch (IOException e) {
+						throw new CoreException(new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Error creating file", e));
+					} catch (InterruptedException e) {
+						throw new CoreException(new Status(Status.ERROR, Activator.PLUGIN_ID, 0, "Error creating file", e));
+					}
+				}
+				
+			}, nullMonitor);
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+
+			SPDXFile[] incBuildFiles = this.spdxProject.getSpdxDoc().getFileReferences();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES + 1, incBuildFiles.length);
+			SPDXFile renamedSpdxFile = getSpdxFile(renamedFile.getProjectRelativePath().toString());
+			assertTrue(renamedSpdxFile != null);
+			assertEquals(originalSha1, renamedSpdxFile.getSha1());
+			SPDXFile recreatedSpdxFile = getSpdxFile(FILE_PATHS[0]);
+			assertTrue(recreatedSpdxFile != null);
+			assertTrue(!originalSha1.equals(recreatedSpdxFile.getSha1()));
+			IMarker[] markers = this.projectResource.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+			assertEquals(0, markers.length);
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	/**
+	 * @param path project relative path
+	 * @return the SPDX file in the document with the name or null if not found
+	 * @throws InvalidSPDXAnalysisException
+	 */
+	private SPDXFile getSpdxFile(String path) throws InvalidSPDXAnalysisException {
+		SPDXFile[] spdxFiles = this.spdxProject.getSpdxDoc().getFileReferences();
+		for (int i = 0; i < spdxFiles.length; i++) {
+			if (spdxFiles[i].getName().equals(path)) {
+				return spdxFiles[i];
+			}
+		}
+		return null;
+	}
+	
 	private IFile getFile(IContainer container, String path) throws CoreException, IOException, InterruptedException {
 		String[] parts = path.split("/");
 		if (parts.length > 1) {
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import java.util.regex.Pattern;
+
+/**
+ * Compares the time to match many names against a typical list of extension
+ * and literal exclusions using the ExcludedFilesMatcher and evaluating every
+ * regular expression.  This is not part of the unit tests - run main directly:
+ * <code>ExcludedFilesMatcherBenchmark [iterations]</code>
+ * @author Gary O'Neall
+ *
+ */
+public class ExcludedFilesMatcherBenchmark {
+
+	static final int BENCHMARK_PATTERNS = 40;
+	static final int BENCHMARK_NAMES = 1000;
+	static final int DEFAULT_ITERATIONS = 200;
+
+	/**
+	 * Reference implementation - evaluates every pattern
+	 */
+	private static boolean regexMatches(Pattern[] patterns, String name) {
+		for (int i = 0; i < patterns.length; i++) {
+			if (patterns[i].matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param args optional number of iterations
+	 */
+	public static void main(String[] args) {
+		int iterations = DEFAULT_ITERATIONS;
+		if (args.length > 0) {
+			iterations = Integer.parseInt(args[0]);
+		}
+		Pattern[] patterns = new Pattern[BENCHMARK_PATTERNS];
+		for (int i = 0; i < BENCHMARK_PATTERNS; i++) {
+			if (i % 2 == 0) {
+				patterns[i] = Pattern.compile(".*\\.ext" + i);
+			} else {
+				patterns[i] = Pattern.compile("file" + i + "\\.txt");
+			}
+		}
+		ExcludedFilesMatcher matcher = new ExcludedFilesMatcher(patterns);
+		String[] names = new String[BENCHMARK_NAMES];
+		for (int i = 0; i < BENCHMARK_NAMES; i++) {
+			names[i] = "SomeSourceFile" + i + ".ext" + (i % (BENCHMARK_PATTERNS * 2));
+		}
+		int regexCount = 0;
+		long regexStart = System.nanoTime();
+		for (int j = 0; j < iterations; j++) {
+			for (int i = 0; i < names.length; i++) {
+				if (regexMatches(patterns, names[i])) {
+					regexCount++;
+				}
+			}
+		}
+		long regexTime = System.nanoTime() - regexStart;
+		int matcherCount = 0;
+		long matcherStart = System.nanoTime();
+		for (int j = 0; j < iterations; j++) {
+			for (int i = 0; i < names.length; i++) {
+				if (matcher.matches(names[i])) {
+					matcherCount++;
+				}
+			}
+		}
+		long matcherTime = System.nanoTime() - matcherStart;
+		if (regexCount != matcherCount) {
+			System.err.println("Matcher results differ from the regular expressions: regex " +
+					regexCount + ", matcher " + matcherCount);
+			System.exit(1);
+		}
+		System.out.println("Excluded files benchmark: regex " + (regexTime / 1000000) +
+				"ms, matcher " + (matcherTime / 1000000) + "ms for " +
+				(iterations * BENCHMARK_NAMES) + " names");
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestChecksumCache {
+
+	static final String TEST_PROJECT_NAME = "TestProject";
+	static final int NUM_FILES = 5;
+
+	private IProject projectResource = null;
+	private IFile[] files = new IFile[NUM_FILES];
+	private String[] expectedSha1s = new String[NUM_FILES];
+	private File cacheFile;
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		this.projectResource = root.getProject(TEST_PROJECT_NAME);
+		if (!this.projectResource.exists()) {
+			this.projectResource.create(new NullProgressMonitor());
+		}
+		if (!this.projectResource.isOpen()) {
+			this.projectResource.open(new NullProgressMonitor());
+		}
+		for (int i = 0; i < NUM_FILES; i++) {
+			byte[] content = ("Content of file " + i).getBytes("UTF-8");
+			files[i] = this.projectResource.getFile("file" + i + ".txt");
+			files[i].create(new ByteArrayInputStream(content), true, new NullProgressMonitor());
+			expectedSha1s[i] = sha1(content);
+		}
+		cacheFile = File.createTempFile("spdx", ChecksumCache.CACHE_FILE_EXTENSION);
+		cacheFile.delete();
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		cacheFile.delete();
+		if (this.projectResource != null) {
+			if (this.projectResource.isOpen()) {
+				this.projectResource.close(new NullProgressMonitor());
+			}
+			this.projectResource.delete(true, new NullProgressMonitor());
+			this.projectResource = null;
+		}
+	}
+
+	private static String sha1(byte[] content) throws Exception {
+		return SpdxHelper.convertChecksumToString(MessageDigest.getInstance("SHA-1").digest(content));
+	}
+
+	@Test
+	public void testPersistRoundTrip() throws Exception {
+		ChecksumCache cache = new ChecksumCache(cacheFile);
+		for (int i = 0; i < NUM_FILES; i++) {
+			assertEquals(expectedSha1s[i], cache.getSha1(files[i]));
+		}
+		assertEquals(NUM_FILES, cache.getMissCount());
+		cache.save();
+		assertTrue(cacheFile.exists());
+
+		ChecksumCache loaded = new ChecksumCache(cacheFile);
+		assertEquals(NUM_FILES, loaded.size());
+		for (int i = 0; i < NUM_FILES; i++) {
+			String path = files[i].getProjectRelativePath().toString();
+			assertEquals(expectedSha1s[i], loaded.getCachedChecksums(path).get(SpdxHelper.SHA1_ALGORITHM));
+			assertEquals(expectedSha1s[i], loaded.getSha1(files[i]));
+		}
+		assertEquals(NUM_FILES, loaded.getHitCount());
+		assertEquals(0, loaded.getMissCount());
+		loaded.delete();
+		assertFalse(cacheFile.exists());
+		assertEquals(0, loaded.size());
+	}
+
+	@Test
+	public void testStaleAfterEdit() throws Exception {
+		ChecksumCache cache = new ChecksumCache(cacheFile);
+		assertEquals(expectedSha1s[0], cache.getSha1(files[0]));
+		cache.save();
+		// same size content so that only the modification stamp identifies the change
+		byte[] newContent = "Content of file X".getBytes("UTF-8");
+		files[0].setContents(new ByteArrayInputStream(newContent), true, false, new NullProgressMonitor());
+		cache.resetCounters();
+		assertEquals(sha1(newContent), cache.getSha1(files[0]));
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		// the persisted entry is stale as well
+		ChecksumCache loaded = new ChecksumCache(cacheFile);
+		assertEquals(sha1(newContent), loaded.getSha1(files[0]));
+		assertEquals(1, loaded.getMissCount());
+	}
+
+	@Test
+	public void testAlgorithmChange() throws Exception {
+		ChecksumCache cache = new ChecksumCache(cacheFile);
+		Map<String, String> checksums = cache.getChecksums(files[0]);
+		assertEquals(1, checksums.size());
+		cache.setAlgorithms(new String[] {SpdxHelper.SHA256_ALGORITHM});
+		assertArrayEquals(new String[] {SpdxHelper.SHA1_ALGORITHM, SpdxHelper.SHA256_ALGORITHM},
+				cache.getAlgorithms());
+		cache.resetCounters();
+		checksums = cache.getChecksums(files[0]);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(expectedSha1s[0], checksums.get(SpdxHelper.SHA1_ALGORITHM));
+		assertNotNull(checksums.get(SpdxHelper.SHA256_ALGORITHM));
+		cache.save();
+		ChecksumCache loaded = new ChecksumCache(cacheFile);
+		loaded.setAlgorithms(new String[] {SpdxHelper.SHA256_ALGORITHM});
+		assertEquals(checksums, loaded.getChecksums(files[0]));
+		assertEquals(1, loaded.getHitCount());
+		// removing an algorithm keeps the cached entry
+		loaded.setAlgorithms(new String[0]);
+		assertEquals(expectedSha1s[0], loaded.getSha1(files[0]));
+		assertEquals(2, loaded.getHitCount());
+	}
+
+	@Test
+	public void testInvalidCacheFile() throws Exception {
+		ChecksumCache cache = new ChecksumCache(cacheFile);
+		for (int i = 0; i < NUM_FILES; i++) {
+			cache.getSha1(files[i]);
+		}
+		cache.save();
+		long validLength = cacheFile.length();
+		// truncated
+		truncate(cacheFile, validLength / 2);
+		assertEquals(0, new ChecksumCache(cacheFile).size());
+		// unknown version
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(cacheFile));
+		try {
+			out.writeInt(ChecksumCache.CACHE_FILE_VERSION + 1);
+			out.writeInt(0);
+		} finally {
+			out.close();
+		}
+		ChecksumCache otherVersion = new ChecksumCache(cacheFile);
+		assertEquals(0, otherVersion.size());
+		// the cache is rebuilt and replaces the invalid file
+		assertEquals(expectedSha1s[0], otherVersion.getSha1(files[0]));
+		otherVersion.save();
+		assertEquals(1, new ChecksumCache(cacheFile).size());
+	}
+
+	@Test
+	public void testMove() throws Exception {
+		ChecksumCache cache = new ChecksumCache(cacheFile);
+		cache.getSha1(files[0]);
+		cache.getSha1(files[1]);
+		IFile moved = this.projectResource.getFile("moved0.txt");
+		files[0].move(moved.getFullPath(), true, new NullProgressMonitor());
+		Map<String, String> checksums = cache.move(files[0].getProjectRelativePath().toString(), moved);
+		assertNotNull(checksums);
+		assertEquals(expectedSha1s[0], checksums.get(SpdxHelper.SHA1_ALGORITHM));
+		assertNull(cache.getCachedChecksums(files[0].getProjectRelativePath().toString()));
+		cache.resetCounters();
+		assertEquals(expectedSha1s[0], cache.getSha1(moved));
+		assertEquals(1, cache.getHitCount());
+		// moved and then changed before the build
+		IFile movedAndChanged = this.projectResource.getFile("moved1.txt");
+		files[1].move(movedAndChanged.getFullPath(), true, new NullProgressMonitor());
+		byte[] newContent = "Changed content after the move".getBytes("UTF-8");
+		movedAndChanged.setContents(new ByteArrayInputStream(newContent), true, false, new NullProgressMonitor());
+		assertNull(cache.move(files[1].getProjectRelativePath().toString(), movedAndChanged));
+		assertEquals(sha1(newContent), cache.getSha1(movedAndChanged));
+		// nothing cached for the original path
+		assertNull(cache.move("unknown.txt", moved));
+	}
+
+	private static void truncate(File file, long length) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(length);
+		} finally {
+			raf.close();
+		}
+	}
+}
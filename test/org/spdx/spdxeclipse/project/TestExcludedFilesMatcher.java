@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestExcludedFilesMatcher {
+
+	static final String[] PATTERNS = new String[] {
+		".*\\.skip", ".*\\.project", ".*\\.spdx", "build\\.xml", ".*\\.tar\\.gz",
+		"Makefile", "test[0-9]+\\.c", ".*~", "(?i)readme.*", "\\.classpath", ".*\\.\\$\\$\\$"
+	};
+
+	static final String[] NAMES = new String[] {
+		"file.skip", ".skip", "skip", "file.skip.c", "x.project", "project", "my.spdx",
+		"build.xml", "buildXxml", "build.xml.bak", "archive.tar.gz", "archive.gz", "tar.gz",
+		"Makefile", "makefile", "test12.c", "test.c", "file.c~", "README.txt", "readme",
+		".classpath", "classpath", "temp.$$$", "temp.$$", "", "noextension", "a.b.c.d"
+	};
+
+	private static Pattern[] compile(String[] regexes) {
+		Pattern[] retval = new Pattern[regexes.length];
+		for (int i = 0; i < regexes.length; i++) {
+			retval[i] = Pattern.compile(regexes[i]);
+		}
+		return retval;
+	}
+
+	/**
+	 * Reference implementation - evaluates every pattern
+	 */
+	private static boolean regexMatches(Pattern[] patterns, String name) {
+		for (int i = 0; i < patterns.length; i++) {
+			if (patterns[i].matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testMatchesSameAsRegex() {
+		Pattern[] patterns = compile(PATTERNS);
+		ExcludedFilesMatcher matcher = new ExcludedFilesMatcher(patterns);
+		for (int i = 0; i < NAMES.length; i++) {
+			assertEquals(NAMES[i], regexMatches(patterns, NAMES[i]), matcher.matches(NAMES[i]));
+		}
+	}
+
+	@Test
+	public void testRegexCount() {
+		ExcludedFilesMatcher matcher = new ExcludedFilesMatcher(compile(PATTERNS));
+		// test[0-9]+\.c, .*~ and (?i)readme.* are the only true regular expressions
+		assertEquals(3, matcher.getRegexCount());
+		assertEquals(0, new ExcludedFilesMatcher(new Pattern[0]).getRegexCount());
+		assertFalse(new ExcludedFilesMatcher(new Pattern[0]).matches("any.c"));
+	}
+
+	@Test
+	public void testUnescapeLiteral() {
+		assertEquals("build.xml", ExcludedFilesMatcher.unescapeLiteral("build\\.xml"));
+		assertEquals("Makefile", ExcludedFilesMatcher.unescapeLiteral("Makefile"));
+		assertNull(ExcludedFilesMatcher.unescapeLiteral("build.xml"));
+		assertNull(ExcludedFilesMatcher.unescapeLiteral("file\\d"));
+		assertNull(ExcludedFilesMatcher.unescapeLiteral("file\\"));
+	}
+}
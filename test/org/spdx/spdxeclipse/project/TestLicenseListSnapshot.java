@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestLicenseListSnapshot {
+
+	static final String LICENSE_LIST_JSON = "{\"licenseListVersion\": \"2.0\", \"licenses\": [" +
+			"{\"licenseId\": \"MIT\", \"name\": \"MIT License\", \"licenseText\": \"MIT  license\\n\\ttext\"}," +
+			"{\"licenseId\": \"Apache-2.0\", \"name\": \"Apache License 2.0\"}," +
+			"{\"licenseId\": \"NoText\"}]}";
+	static final String APACHE_DETAILS_JSON = "{\"licenseId\": \"Apache-2.0\", \"licenseText\": \"Apache\\n\\nlicense text\"}";
+
+	private File tempDir;
+
+	@Before
+	public void setUp() throws Exception {
+		tempDir = File.createTempFile("spdx", "licenses");
+		tempDir.delete();
+		tempDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		deleteAll(tempDir);
+	}
+
+	private void deleteAll(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (int i = 0; i < children.length; i++) {
+				deleteAll(children[i]);
+			}
+		}
+		file.delete();
+	}
+
+	private void writeFile(File file, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		HashMap<String, String> names = new HashMap<String, String>();
+		names.put("MIT", "MIT License");
+		HashMap<String, String> texts = new HashMap<String, String>();
+		texts.put("MIT", "Permission is hereby granted \u00a9");
+		StandardLicenseCatalog catalog = new StandardLicenseCatalog("1.20",
+				new String[] {"MIT", "Apache-2.0"}, names, texts);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LicenseListSnapshot.write(catalog, out);
+		StandardLicenseCatalog result = LicenseListSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals("1.20", result.getLicenseListVersion());
+		assertArrayEquals(new String[] {"Apache-2.0", "MIT"}, result.getLicenseIds());
+		assertEquals("MIT License", result.getLicenseName("MIT"));
+		assertEquals("Apache-2.0", result.getLicenseName("Apache-2.0"));
+		assertEquals("Permission is hereby granted \u00a9", result.getNormalizedText("MIT"));
+		assertNull(result.getNormalizedText("Apache-2.0"));
+	}
+
+	@Test
+	public void testReadInvalid() {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+			gzipOut.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+			gzipOut.close();
+			LicenseListSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+			fail("Invalid snapshot read");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * @param numLicenses number of licenses to write to the snapshot header
+	 * @param textLength text length to write for a single license
+	 * @return snapshot content
+	 */
+	private byte[] corruptSnapshot(int numLicenses, int textLength) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream dataOut = new DataOutputStream(new GZIPOutputStream(out));
+		dataOut.writeInt(LicenseListSnapshot.SNAPSHOT_MAGIC);
+		dataOut.writeInt(LicenseListSnapshot.SNAPSHOT_VERSION);
+		dataOut.writeUTF("1.0");
+		dataOut.writeInt(numLicenses);
+		dataOut.writeUTF("MIT");
+		dataOut.writeUTF("MIT License");
+		dataOut.writeInt(textLength);
+		dataOut.close();
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testReadCorruptCounts() throws IOException {
+		byte[][] snapshots = new byte[][] {corruptSnapshot(-2, -1), corruptSnapshot(Integer.MAX_VALUE, -1),
+				corruptSnapshot(1, -2), corruptSnapshot(1, Integer.MAX_VALUE)};
+		for (int i = 0; i < snapshots.length; i++) {
+			try {
+				LicenseListSnapshot.read(new ByteArrayInputStream(snapshots[i]));
+				fail("Corrupt snapshot read");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+		// valid counts with no license text
+		assertEquals(1, LicenseListSnapshot.read(new ByteArrayInputStream(corruptSnapshot(1, -1))).size());
+	}
+
+	@Test
+	public void testReadLicenseListJson() throws IOException {
+		File licenseListFile = new File(tempDir, "licenses.json");
+		writeFile(licenseListFile, LICENSE_LIST_JSON);
+		File detailsDir = new File(tempDir, LicenseListSnapshot.DETAILS_DIRECTORY);
+		detailsDir.mkdirs();
+		writeFile(new File(detailsDir, "Apache-2.0.json"), APACHE_DETAILS_JSON);
+		StandardLicenseCatalog catalog = LicenseListSnapshot.readLicenseListJson(licenseListFile);
+		assertEquals("2.0", catalog.getLicenseListVersion());
+		assertEquals(3, catalog.size());
+		assertEquals("MIT License", catalog.getLicenseName("MIT"));
+		assertEquals("NoText", catalog.getLicenseName("NoText"));
+		assertEquals("MIT license text", catalog.getNormalizedText("MIT"));
+		assertEquals("Apache license text", catalog.getNormalizedText("Apache-2.0"));
+		assertNull(catalog.getNormalizedText("NoText"));
+		// snapshot file round trip
+		File snapshotFile = new File(tempDir, LicenseListSnapshot.SNAPSHOT_FILE_NAME);
+		LicenseListSnapshot.writeFile(catalog, snapshotFile);
+		InputStream in = new FileInputStream(snapshotFile);
+		try {
+			StandardLicenseCatalog result = LicenseListSnapshot.read(in);
+			assertArrayEquals(catalog.getLicenseIds(), result.getLicenseIds());
+			assertEquals("Apache license text", result.getNormalizedText("Apache-2.0"));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testNormalizeText() {
+		assertEquals("a b c", LicenseListSnapshot.normalizeText("  a\r\n\tb   c \n"));
+		assertEquals("", LicenseListSnapshot.normalizeText(" \n "));
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestScanCheckpoint {
+
+	static final String SHA1 = "2fd4e1c67a2d28fced849ee1bb76e7381b93eb12";
+	static final int NUM_FILES = 25;
+
+	private File checkpointFile;
+
+	@Before
+	public void setUp() throws Exception {
+		checkpointFile = File.createTempFile("spdx", ScanCheckpoint.CHECKPOINT_FILE_EXTENSION);
+		checkpointFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		checkpointFile.delete();
+	}
+
+	private ResolvedFileProperties createProperties(int i) {
+		return new ResolvedFileProperties("Apache-2.0", "Copyright " + i, null, "",
+				new String[] {"Contributor " + i, "Other"}, "Project", "http://project.org");
+	}
+
+	@Test
+	public void testResume() throws IOException {
+		ScanCheckpoint checkpoint = new ScanCheckpoint(checkpointFile, 10);
+		assertFalse(checkpoint.exists());
+		checkpoint.open();
+		for (int i = 0; i < NUM_FILES; i++) {
+			checkpoint.add("src/file" + i + ".c", i + 1, SHA1, createProperties(i));
+		}
+		checkpoint.close();
+		// simulate a shutdown while writing a record
+		FileOutputStream out = new FileOutputStream(checkpointFile, true);
+		out.write(new byte[] {0, 0, 0, 5, 'a'});
+		out.close();
+
+		ScanCheckpoint resumed = new ScanCheckpoint(checkpointFile, 10);
+		assertTrue(resumed.exists());
+		resumed.open();
+		assertEquals(NUM_FILES, resumed.size());
+		ScanCheckpoint.CheckpointEntry entry = resumed.get("src/file3.c", 4);
+		assertNotNull(entry);
+		assertEquals(SHA1, entry.getSha1());
+		ResolvedFileProperties properties = entry.getProperties();
+		assertEquals("Apache-2.0", properties.getConcludedLicense());
+		assertEquals("Copyright 3", properties.getCopyright());
+		assertNull(properties.getNotice());
+		assertEquals("", properties.getComment());
+		assertArrayEquals(new String[] {"Contributor 3", "Other"}, properties.getContributors());
+		assertEquals("Project", properties.getArtifactOfProjectName());
+		assertEquals("http://project.org", properties.getArtifactOfProjectUrl());
+		// modified files are not resumed
+		assertNull(resumed.get("src/file3.c", 5));
+		assertNull(resumed.get("src/unknown.c", 4));
+		resumed.add("src/new.c", 1, SHA1, createProperties(NUM_FILES));
+		resumed.close();
+
+		ScanCheckpoint again = new ScanCheckpoint(checkpointFile);
+		again.open();
+		assertEquals(NUM_FILES + 1, again.size());
+		again.delete();
+		assertFalse(again.exists());
+		assertFalse(checkpointFile.exists());
+	}
+
+	@Test
+	public void testCorruptContributorCount() throws IOException {
+		ScanCheckpoint checkpoint = new ScanCheckpoint(checkpointFile, 10);
+		checkpoint.open();
+		checkpoint.add("src/file1.c", 1, SHA1, createProperties(1));
+		checkpoint.add("src/file2.c", 1, SHA1, createProperties(2));
+		checkpoint.close();
+		int[] invalidCounts = new int[] {-2, Integer.MAX_VALUE};
+		for (int i = 0; i < invalidCounts.length; i++) {
+			// append a record with an invalid number of contributors
+			DataOutputStream out = new DataOutputStream(new FileOutputStream(checkpointFile, true));
+			try {
+				byte[] path = "src/corrupt.c".getBytes("UTF-8");
+				out.writeInt(path.length);
+				out.write(path);
+				out.writeLong(1);
+				for (int j = 0; j < 5; j++) {
+					out.writeInt(-1);	// SHA1, license, copyright, notice and comment
+				}
+				out.writeInt(invalidCounts[i]);
+			} finally {
+				out.close();
+			}
+			ScanCheckpoint resumed = new ScanCheckpoint(checkpointFile, 10);
+			resumed.open();
+			assertEquals(2, resumed.size());
+			assertNotNull(resumed.get("src/file2.c", 1));
+			assertNull(resumed.get("src/corrupt.c", 1));
+			resumed.close();
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestSpdxHelper {
+
+	static final String TEST_PROJECT_NAME = "TestProject";
+	static final int NUM_FILES = 20;
+	static final int NUM_THREADS = 8;
+	static final int NUM_ITERATIONS = 50;
+
+	private IProject projectResource = null;
+	private IFile[] files = new IFile[NUM_FILES];
+	private String[] expectedSha1s = new String[NUM_FILES];
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		this.projectResource = root.getProject(TEST_PROJECT_NAME);
+		if (!this.projectResource.exists()) {
+			this.projectResource.create(new NullProgressMonitor());
+		}
+		if (!this.projectResource.isOpen()) {
+			this.projectResource.open(new NullProgressMonitor());
+		}
+		for (int i = 0; i < NUM_FILES; i++) {
+			// vary the size so that some files span several read buffers
+			StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < (i+1) * 500; j++) {
+				sb.append("File ");
+				sb.append(i);
+				sb.append(" line ");
+				sb.append(j);
+				sb.append('\n');
+			}
+			byte[] content = sb.toString().getBytes("UTF-8");
+			files[i] = this.projectResource.getFile("file" + i + ".txt");
+			files[i].create(new ByteArrayInputStream(content), true, new NullProgressMonitor());
+			expectedSha1s[i] = SpdxHelper.convertChecksumToString(
+					MessageDigest.getInstance("SHA-1").digest(content));
+		}
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (this.projectResource != null) {
+			if (this.projectResource.isOpen()) {
+				this.projectResource.close(new NullProgressMonitor());
+			}
+			this.projectResource.delete(true, new NullProgressMonitor());
+			this.projectResource = null;
+		}
+	}
+
+	@Test
+	public void testGenerateSha1() throws SpdxProjectException {
+		for (int i = 0; i < NUM_FILES; i++) {
+			assertEquals(expectedSha1s[i], SpdxHelper.generateSha1(files[i]));
+		}
+	}
+
+	/**
+	 * Hash a file large enough to be read through a file channel
+	 * @throws Exception
+	 */
+	@Test
+	public void testGenerateSha1LargeFile() throws Exception {
+		byte[] content = new byte[SpdxHelper.DEFAULT_LARGE_FILE_THRESHOLD_KB * 1024 * 3 + 17];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte)(i % 251);
+		}
+		IFile largeFile = this.projectResource.getFile("large.bin");
+		largeFile.create(new ByteArrayInputStream(content), true, new NullProgressMonitor());
+		String expected = SpdxHelper.convertChecksumToString(
+				MessageDigest.getInstance("SHA-1").digest(content));
+		assertEquals(expected, SpdxHelper.generateSha1(largeFile));
+		// hash again to verify the reused buffer and digest are reset
+		assertEquals(expected, SpdxHelper.generateSha1(largeFile));
+	}
+
+	@Test
+	public void testGenerateChecksums() throws Exception {
+		String[] algorithms = new String[] {SpdxHelper.SHA1_ALGORITHM,
+				SpdxHelper.SHA256_ALGORITHM, SpdxHelper.MD5_ALGORITHM};
+		for (int i = 0; i < NUM_FILES; i++) {
+			byte[] content = readContent(files[i]);
+			Map<String, String> result = SpdxHelper.generateChecksums(files[i], algorithms);
+			assertEquals(algorithms.length, result.size());
+			assertEquals(expectedSha1s[i], result.get(SpdxHelper.SHA1_ALGORITHM));
+			for (int j = 0; j < algorithms.length; j++) {
+				assertEquals(SpdxHelper.convertChecksumToString(
+						MessageDigest.getInstance(algorithms[j]).digest(content)),
+						result.get(algorithms[j]));
+			}
+		}
+	}
+
+	private byte[] readContent(IFile file) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = file.getContents();
+		try {
+			byte[] buffer = new byte[2048];
+			int numBytes = in.read(buffer);
+			while (numBytes >= 0) {
+				out.write(buffer, 0, numBytes);
+				numBytes = in.read(buffer);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Hash the same files from many threads at once and verify every checksum
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testConcurrentGenerateSha1() throws InterruptedException {
+		final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+		Thread[] threads = new Thread[NUM_THREADS];
+		for (int t = 0; t < NUM_THREADS; t++) {
+			final int offset = t;
+			threads[t] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (int i = 0; i < NUM_ITERATIONS; i++) {
+						int fileIndex = (i + offset) % NUM_FILES;
+						try {
+							String sha1 = SpdxHelper.generateSha1(files[fileIndex]);
+							if (!expectedSha1s[fileIndex].equals(sha1)) {
+								errors.add("Incorrect SHA1 for file " + fileIndex + ": " + sha1);
+							}
+						} catch (SpdxProjectException e) {
+							errors.add("Error hashing file " + fileIndex + ": " + e.getMessage());
+						}
+					}
+				}
+
+			});
+		}
+		for (int t = 0; t < NUM_THREADS; t++) {
+			threads[t].start();
+		}
+		for (int t = 0; t < NUM_THREADS; t++) {
+			threads[t].join();
+		}
+		if (!errors.isEmpty()) {
+			fail(errors.size() + " errors, first error: " + errors.get(0));
+		}
+	}
+
+	@Test
+	public void testParallelFileHasher() throws SpdxProjectException {
+		List<IFile> fileList = new ArrayList<IFile>();
+		for (int i = 0; i < NUM_FILES; i++) {
+			fileList.add(files[i]);
+		}
+		String[] result = new ParallelFileHasher(null, NUM_THREADS).hashFiles(fileList, new NullProgressMonitor());
+		assertEquals(NUM_FILES, result.length);
+		for (int i = 0; i < NUM_FILES; i++) {
+			assertEquals(expectedSha1s[i], result[i]);
+		}
+	}
+}
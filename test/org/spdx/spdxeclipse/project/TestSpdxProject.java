@@ -24,7 +24,10 @@ import java.io.PipedOutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IFile;
@@ -59,6 +62,7 @@ import org.spdx.rdfparser.SpdxPackageVerificationCode;
 import org.spdx.rdfparser.SpdxRdfConstants;
 import org.spdx.spdxeclipse.properties.InvalidExcludedFilePattern;
 import org.spdx.spdxeclipse.properties.SpdxFileProperties;
+import org.spdx.spdxeclipse.properties.SpdxFilePropertyBatch;
 import org.spdx.spdxeclipse.properties.SpdxProjectProperties;
 import org.spdx.spdxspreadsheet.InvalidLicenseStringException;
 
@@ -258,6 +262,9 @@ public class TestSpdxProject {
 			if (licenseNames.length < licenseIds.length) {
 				fail("Not enough license names");
 			}
+			String[] sortedNames = Arrays.copyOf(licenseNames, licenseNames.length);
+			Arrays.sort(sortedNames);
+			assertArrayEquals(sortedNames, licenseNames);
 		} finally {
 			projectResource.close(nullMonitor);
 		}
@@ -714,6 +721,152 @@ public class TestSpdxProject {
 		}
 	}
 	
+	@Test
+	public void testPropertyChangeDefaultFileProperties() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InterruptedException, InvalidExcludedFilePattern {
+		this.openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			IFile explicitFile = this.projectResource.getFile(FILE_PATHS[0]);
+			String EXPLICIT_COPYRIGHT = "Copyright (c) Explicit";
+			SpdxFileProperties.setCopyright(explicitFile, EXPLICIT_COPYRIGHT);
+			String NEW_DEFAULT_COPYRIGHT = "Copyright (c) NewDefault";
+			String NEW_DEFAULT_LICENSE = "Apache-2.0";
+			SpdxProjectProperties.setDefaultFileCopyright(projectResource, NEW_DEFAULT_COPYRIGHT);
+			SpdxProjectProperties.setDefaultFileLicense(projectResource, NEW_DEFAULT_LICENSE);
+			String NEW_DEFAULT_NOTICE = "New default notice";
+			String[] NEW_DEFAULT_CONTRIBUTORS = new String[] {"Default One", "Default Two"};
+			SpdxProjectProperties.setDefaultFileNotice(projectResource, NEW_DEFAULT_NOTICE);
+			SpdxProjectProperties.setDefaulFileContributors(projectResource, NEW_DEFAULT_CONTRIBUTORS);
+			SPDXFile[] files = this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles();
+			SPDXFile explicitSpdxFile = null;
+			SPDXFile defaultSpdxFile = null;
+			for (int i = 0; i < files.length; i++) {
+				if (files[i].getName().equals(FILE_PATHS[0])) {
+					explicitSpdxFile = files[i];
+				} else if (files[i].getName().equals(FILE_PATHS[1])) {
+					defaultSpdxFile = files[i];
+				}
+			}
+			if (explicitSpdxFile == null || defaultSpdxFile == null) {
+				fail("Updated file not found");
+			}
+			assertEquals(EXPLICIT_COPYRIGHT, explicitSpdxFile.getCopyright());
+			assertEquals(NEW_DEFAULT_LICENSE, explicitSpdxFile.getConcludedLicenses().toString());
+			assertEquals(NEW_DEFAULT_COPYRIGHT, defaultSpdxFile.getCopyright());
+			assertEquals(NEW_DEFAULT_LICENSE, defaultSpdxFile.getConcludedLicenses().toString());
+			assertEquals(NEW_DEFAULT_NOTICE, defaultSpdxFile.getNoticeText());
+			assertArrayEquals(NEW_DEFAULT_CONTRIBUTORS, defaultSpdxFile.getContributors());
+			assertEquals(NEW_DEFAULT_NOTICE, SpdxFileProperties.getNotice(
+					this.projectResource.getFile(FILE_PATHS[1])));
+			assertEquals(NEW_DEFAULT_COPYRIGHT, SpdxFileProperties.getCopyright(
+					this.projectResource.getFile(FILE_PATHS[1])));
+			
+			ArrayList<String> verifyInfo = this.spdxProject.getSpdxDoc().verify();
+			if (verifyInfo.size() > 0) {	
+				StringBuilder sb = new StringBuilder();
+				sb.append(verifyInfo.get(0));
+				for (int i = 1; i < verifyInfo.size(); i++) {
+					sb.append(", ");
+					sb.append(verifyInfo.get(i));
+				}
+				fail(sb.toString());
+			}
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testPropertyBatchNoticeCommentContributors() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InterruptedException, InvalidExcludedFilePattern {
+		this.openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			IFile fileToUpdate = this.projectResource.getFile(FILE_PATHS[0]);
+			String NEW_NOTICE = "New notice text";
+			String NEW_COMMENT = "New file comment";
+			String[] NEW_CONTRIBUTORS = new String[] {"Contributor One", "Contributor Two"};
+			SpdxFilePropertyBatch batch = new SpdxFilePropertyBatch();
+			batch.setNotice(fileToUpdate, NEW_NOTICE);
+			batch.setComment(fileToUpdate, NEW_COMMENT);
+			batch.setContributors(fileToUpdate, NEW_CONTRIBUTORS);
+			batch.apply(nullMonitor);
+			SPDXFile[] files = this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles();
+			SPDXFile foundFile = null;
+			for (int i = 0; i < files.length; i++) {
+				if (files[i].getName().equals(FILE_PATHS[0])) {
+					foundFile = files[i];
+					break;
+				}
+			}
+			if (foundFile == null) {
+				fail("Updated file not found");
+			}
+			assertEquals(NEW_NOTICE, foundFile.getNoticeText());
+			assertEquals(NEW_COMMENT, foundFile.getComment());
+			assertArrayEquals(NEW_CONTRIBUTORS, foundFile.getContributors());
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testCatalogLicenseNotKnownToParser() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InterruptedException, InvalidExcludedFilePattern {
+		StandardLicenseCatalog originalCatalog = StandardLicenseCatalog.getCatalog();
+		String NEW_LICENSE_ID = "Newer-License-1.0";
+		String NEW_LICENSE_TEXT = "Text of a license added to a newer SPDX license list";
+		HashMap<String, String> names = new HashMap<String, String>();
+		names.put(NEW_LICENSE_ID, "Newer License");
+		HashMap<String, String> texts = new HashMap<String, String>();
+		texts.put(NEW_LICENSE_ID, NEW_LICENSE_TEXT);
+		String[] ids = Arrays.copyOf(originalCatalog.getLicenseIds(), originalCatalog.size() + 1);
+		ids[ids.length-1] = NEW_LICENSE_ID;
+		StandardLicenseCatalog.setCatalog(new StandardLicenseCatalog("99.0", ids, names, texts));
+		this.openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			assertTrue(Arrays.asList(this.spdxProject.getAvailableLicenseNames()).contains(NEW_LICENSE_ID));
+			IFile fileToUpdate = this.projectResource.getFile(FILE_PATHS[0]);
+			SpdxFileProperties.setConcludedLicense(fileToUpdate, NEW_LICENSE_ID);
+			SPDXFile[] files = this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles();
+			SPDXFile foundFile = null;
+			for (int i = 0; i < files.length; i++) {
+				if (files[i].getName().equals(FILE_PATHS[0])) {
+					foundFile = files[i];
+					break;
+				}
+			}
+			if (foundFile == null) {
+				fail("Updated file not found");
+			}
+			// added to the document as an extracted license with the catalog text
+			assertTrue(foundFile.getConcludedLicenses() instanceof SPDXNonStandardLicense);
+			SPDXNonStandardLicense license = (SPDXNonStandardLicense)foundFile.getConcludedLicenses();
+			assertEquals(NEW_LICENSE_TEXT, license.getText());
+			assertEquals("Newer License", license.getLicenseName());
+		} finally {
+			StandardLicenseCatalog.setCatalog(originalCatalog);
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
 	@Test
 	public void testPropertyChangeExcludedFilesPattern() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidLicenseStringException, InterruptedException, InvalidExcludedFilePattern {
 		this.openResourceProject();
@@ -920,6 +1073,32 @@ public class TestSpdxProject {
 		}
 	}
 	
+	@Test 
+	public void testBackgroundBuildCoalescing() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
+		openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+
+			this.spdxProject.setFileRescanRequired(true);
+			// requests within the quiet period are merged and a pending incremental build is upgraded
+			WorkspaceJob job = this.spdxProject.backgroundFullBuild(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+			WorkspaceJob job2 = this.spdxProject.backgroundFullBuild(IncrementalProjectBuilder.FULL_BUILD);
+			WorkspaceJob job3 = this.spdxProject.backgroundFullBuild(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+			assertSame(job, job2);
+			assertSame(job, job3);
+			assertEquals(IncrementalProjectBuilder.FULL_BUILD, ((SpdxProject.BackgroundBuildJob)job).getKind());
+			this.spdxProject.waitForBuildJob();
+			assertEquals(IStatus.OK, job.getResult().getSeverity());
+			assertTrue(!this.spdxProject.isFileRescanRequired());
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
 	@Test 
 	public void testisFileRescanRequired() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
 		openResourceProject();
@@ -965,6 +1144,177 @@ public class TestSpdxProject {
 		}
 	}
 	
+	@Test 
+	public void testDerivedResourcesSkipped() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
+		openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			IFolder derivedFolder = this.projectResource.getFolder("src/subdir");
+			derivedFolder.setDerived(true, nullMonitor);
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			SPDXFile[] spdxFiles = this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES - NUM_NON_SKIPPED_SOURCE_IN_SUBDIR, spdxFiles.length);
+			for (int i = 0; i < spdxFiles.length; i++) {
+				assertFalse(spdxFiles[i].getName().startsWith("src/subdir"));
+			}
+			assertFalse(this.spdxProject.fileShouldBeIncluded(this.projectResource.getFile(FILE_PATHS[3])));
+			assertTrue(this.spdxProject.fileShouldBeIncluded(this.projectResource.getFile(FILE_PATHS[0])));
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test 
+	public void testReconcile() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
+		openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			SPDXFile[] spdxFiles = this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES, spdxFiles.length);
+			String verificationCode = this.spdxProject.getSpdxDoc().getSpdxPackage().getVerificationCode().getValue();
+			// remove a file from the SPDX analysis only - reconcile should add it back
+			String removedPath = spdxFiles[0].getName();
+			String unchangedPath = spdxFiles[1].getName();
+			SPDXFile unchangedFile = this.spdxProject.spdxFiles.get(unchangedPath);
+			this.spdxProject.removeFile(this.projectResource.getFile(removedPath), nullMonitor);
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES-1, this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles().length);
+			SpdxChangeSet changes = this.spdxProject.reconcile(nullMonitor);
+			assertEquals(1, changes.size());
+			assertEquals(1, changes.getAddedFiles().size());
+			assertEquals(removedPath, changes.getAddedFiles().get(0).getProjectRelativePath().toString());
+			assertTrue(changes.getErrors().isEmpty());
+			assertFalse(this.spdxProject.isFileRescanRequired());
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES, this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles().length);
+			// files which did not change are not converted again
+			assertTrue(unchangedFile == this.spdxProject.spdxFiles.get(unchangedPath));
+			this.spdxProject.save(nullMonitor);
+			assertEquals(verificationCode, this.spdxProject.getSpdxDoc().getSpdxPackage().getVerificationCode().getValue());
+			// nothing changed
+			assertTrue(this.spdxProject.reconcile(nullMonitor).isEmpty());
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testRescanDirectories() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
+		openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			SPDXFile[] spdxFiles = this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles();
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES, spdxFiles.length);
+			String removedPath = spdxFiles[0].getName();
+			String unchangedPath = spdxFiles[1].getName();
+			SPDXFile unchangedFile = this.spdxProject.spdxFiles.get(unchangedPath);
+			this.spdxProject.removeFile(this.projectResource.getFile(removedPath), nullMonitor);
+			// properties out of sync with the file properties are refreshed even if the content is unchanged
+			unchangedFile.setCopyright("Out of date copyright");
+			this.spdxProject.setFileRescanRequired(true);
+			assertTrue(this.spdxProject.rescanDirectories(nullMonitor));
+			assertFalse(this.spdxProject.isFileRescanRequired());
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES, this.spdxProject.getSpdxDoc().getSpdxPackage().getFiles().length);
+			assertTrue(this.spdxProject.spdxFiles.containsKey(removedPath));
+			// files which did not change are not converted again
+			assertTrue(unchangedFile == this.spdxProject.spdxFiles.get(unchangedPath));
+			assertEquals(FILE_COPYRIGHT_STRING, unchangedFile.getCopyright());
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testMergeDirectoryResults() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
+		openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			IFolder srcFolder = this.projectResource.getFolder(SOURCE_DIR);
+			IFile staleFile = this.projectResource.getFile(FILE_PATHS[0]);
+			String sha1 = this.spdxProject.spdxFiles.get(FILE_PATHS[0]).getSha1();
+			// a file added after the directory was scanned
+			IFile addedFile = this.createResourceFile(srcFolder, "addedAfterScan.c");
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+			this.spdxProject.waitForBuildJob();
+			String addedPath = addedFile.getProjectRelativePath().toString();
+			if (!this.spdxProject.spdxFiles.containsKey(addedPath)) {
+				this.spdxProject.addFile(addedFile, nullMonitor);
+			}
+			// scan result for a file modified since it was scanned
+			HashMap<String, DirectoryScanJob.ScannedFile> results = new HashMap<String, DirectoryScanJob.ScannedFile>();
+			results.put(FILE_PATHS[0], new DirectoryScanJob.ScannedFile(staleFile,
+					staleFile.getModificationStamp() - 1, "0000000000000000000000000000000000000000",
+					SpdxHelper.resolveFileProperties(staleFile)));
+			this.spdxProject.mergeDirectoryResults(srcFolder, results);
+			assertEquals(sha1, this.spdxProject.spdxFiles.get(FILE_PATHS[0]).getSha1());
+			// files not in the scan results which still exist are kept
+			assertTrue(this.spdxProject.spdxFiles.containsKey(addedPath));
+			assertEquals(NUM_NON_SKIPPED_SOURCE_FILES + 1, this.spdxProject.spdxFiles.size());
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
+	@Test
+	public void testMergeDirectoryResultsUnchanged() throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException {
+		openResourceProject();
+		try {
+			this.createSpdxProject();
+			this.fillSpdxProjectInfo();
+			this.setDefaultProjectProperties();
+			this.createFiles();
+			this.spdxProject.setExcludedFilePatterns(SKIPPED_FILES_PATTERNS);
+			this.spdxProject.setIncludedFileDirectories(DEFAULT_INCLUDED_DIRECTORIES);
+			this.spdxProject.updateSpdxFilesFromProjectResources(TEST_SPDX_FILE_NAME, this.projectResource, nullMonitor);
+			Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+			this.spdxProject.waitForBuildJob();
+			this.spdxProject.save(nullMonitor);
+			assertFalse(this.spdxProject.isDirty());
+			IFolder srcFolder = this.projectResource.getFolder(SOURCE_DIR);
+			HashMap<String, DirectoryScanJob.ScannedFile> results = new HashMap<String, DirectoryScanJob.ScannedFile>();
+			HashMap<String, SPDXFile> before = new HashMap<String, SPDXFile>();
+			for (Entry<String, SPDXFile> entry:this.spdxProject.spdxFiles.entrySet()) {
+				IFile file = this.projectResource.getFile(entry.getKey());
+				if (srcFolder.getProjectRelativePath().isPrefixOf(file.getProjectRelativePath())) {
+					results.put(entry.getKey(), new DirectoryScanJob.ScannedFile(file,
+							file.getModificationStamp(), entry.getValue().getSha1(),
+							SpdxHelper.resolveFileProperties(file)));
+					before.put(entry.getKey(), entry.getValue());
+				}
+			}
+			assertFalse(results.isEmpty());
+			// a scan which found no changes leaves the SPDX files untouched
+			this.spdxProject.mergeDirectoryResults(srcFolder, results);
+			assertFalse(this.spdxProject.isDirty());
+			for (Entry<String, SPDXFile> entry:before.entrySet()) {
+				assertTrue(entry.getValue() == this.spdxProject.spdxFiles.get(entry.getKey()));
+			}
+		} finally {
+			this.projectResource.close(nullMonitor);
+		}
+	}
+	
 	@Test 
 	public void testupdateFile()throws CoreException, IOException, InvalidSPDXAnalysisException, SpdxProjectException, InvalidExcludedFilePattern, InvalidLicenseStringException, InterruptedException  {
 		openResourceProject();
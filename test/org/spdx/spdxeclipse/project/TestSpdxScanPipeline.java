@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.spdxeclipse.properties.ResolvedFileProperties;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestSpdxScanPipeline {
+
+	static final String TEST_PROJECT_NAME = "TestProject";
+	static final int NUM_FOLDERS = 4;
+	static final int FILES_PER_FOLDER = 30;
+	static final int NUM_FILES = NUM_FOLDERS * FILES_PER_FOLDER;
+	static final String PIPELINE_THREAD_PREFIX = "SPDX File ";
+
+	/**
+	 * Records the files passed to the handler
+	 */
+	static class RecordingHandler implements SpdxScanPipeline.ScanResultHandler {
+		List<IFile> files = new ArrayList<IFile>();
+		List<String> sha1s = new ArrayList<String>();
+
+		@Override
+		public void fileScanned(IFile file, long modificationStamp, String sha1,
+				ResolvedFileProperties properties) throws SpdxProjectException {
+			assertNotNull(properties);
+			files.add(file);
+			sha1s.add(sha1);
+		}
+	}
+
+	/**
+	 * Monitor canceled after a number of files have been reported
+	 */
+	static class CancelingMonitor extends NullProgressMonitor {
+		int remaining;
+
+		CancelingMonitor(int cancelAfter) {
+			this.remaining = cancelAfter;
+		}
+
+		@Override
+		public void worked(int work) {
+			remaining -= work;
+			if (remaining <= 0) {
+				setCanceled(true);
+			}
+		}
+	}
+
+	private IProject projectResource = null;
+	private List<IContainer> folders = new ArrayList<IContainer>();
+	private HashMap<String, String> expectedSha1s = new HashMap<String, String>();
+	private ScanFilter scanFilter = new ScanFilter(new ExcludedFilesMatcher(new Pattern[0]), new IPath[0]);
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		this.projectResource = root.getProject(TEST_PROJECT_NAME);
+		if (!this.projectResource.exists()) {
+			this.projectResource.create(new NullProgressMonitor());
+		}
+		if (!this.projectResource.isOpen()) {
+			this.projectResource.open(new NullProgressMonitor());
+		}
+		for (int i = 0; i < NUM_FOLDERS; i++) {
+			IFolder folder = this.projectResource.getFolder("folder" + i);
+			folder.create(true, true, new NullProgressMonitor());
+			folders.add(folder);
+			for (int j = 0; j < FILES_PER_FOLDER; j++) {
+				// vary the size so that the hashing completes out of order
+				StringBuilder sb = new StringBuilder();
+				for (int k = 0; k < ((i + j) % 7) * 1000 + 1; k++) {
+					sb.append("File ");
+					sb.append(j);
+					sb.append('\n');
+				}
+				byte[] content = sb.toString().getBytes("UTF-8");
+				IFile file = folder.getFile("file" + j + ".txt");
+				file.create(new ByteArrayInputStream(content), true, new NullProgressMonitor());
+				expectedSha1s.put(file.getFullPath().toString(), SpdxHelper.convertChecksumToString(
+						MessageDigest.getInstance("SHA-1").digest(content)));
+			}
+		}
+	}
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (this.projectResource != null) {
+			if (this.projectResource.isOpen()) {
+				this.projectResource.close(new NullProgressMonitor());
+			}
+			this.projectResource.delete(true, new NullProgressMonitor());
+			this.projectResource = null;
+		}
+	}
+
+	/**
+	 * @return the files in the folders in the order visited by a resource proxy visitor
+	 * @throws CoreException
+	 */
+	private List<IFile> getTraversalOrder() throws CoreException {
+		final ArrayList<IFile> retval = new ArrayList<IFile>();
+		for (IContainer folder:folders) {
+			folder.accept(new IResourceProxyVisitor() {
+
+				@Override
+				public boolean visit(IResourceProxy proxy) throws CoreException {
+					if (proxy.getType() == IResource.FILE) {
+						retval.add((IFile)proxy.requestResource());
+						return false;
+					}
+					return true;
+				}
+
+			}, IResource.NONE);
+		}
+		return retval;
+	}
+
+	/**
+	 * @return number of live pipeline stage threads
+	 */
+	private static int countPipelineThreads() {
+		int count = 0;
+		for (Thread t:Thread.getAllStackTraces().keySet()) {
+			if (t.isAlive() && t.getName().startsWith(PIPELINE_THREAD_PREFIX)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testOutputOrder() throws Exception {
+		int threadsBefore = countPipelineThreads();
+		// small queues and several hashing threads so that items complete out of order
+		SpdxScanPipeline pipeline = new SpdxScanPipeline(null, scanFilter, 4, 3, 2);
+		RecordingHandler handler = new RecordingHandler();
+		assertTrue(pipeline.scan(folders, handler, new NullProgressMonitor()));
+		assertEquals(getTraversalOrder(), handler.files);
+		for (int i = 0; i < handler.files.size(); i++) {
+			assertEquals(expectedSha1s.get(handler.files.get(i).getFullPath().toString()),
+					handler.sha1s.get(i));
+		}
+		assertEquals(threadsBefore, countPipelineThreads());
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		int threadsBefore = countPipelineThreads();
+		SpdxScanPipeline pipeline = new SpdxScanPipeline(null, scanFilter, 4, 3, 2);
+		RecordingHandler handler = new RecordingHandler();
+		assertFalse(pipeline.scan(folders, handler, new CancelingMonitor(5)));
+		assertTrue(handler.files.size() >= 5);
+		assertTrue(handler.files.size() < NUM_FILES);
+		// the files passed before the cancel are still in traversal order
+		assertEquals(getTraversalOrder().subList(0, handler.files.size()), handler.files);
+		// all stages stopped and joined before returning
+		assertEquals(threadsBefore, countPipelineThreads());
+		// the pipeline can be reused after a cancel
+		RecordingHandler secondHandler = new RecordingHandler();
+		assertTrue(pipeline.scan(folders, secondHandler, new NullProgressMonitor()));
+		assertEquals(NUM_FILES, secondHandler.files.size());
+	}
+
+	@Test
+	public void testFileError() throws Exception {
+		int threadsBefore = countPipelineThreads();
+		List<IFile> traversalOrder = getTraversalOrder();
+		int errorIndex = NUM_FILES / 2;
+		// delete the file outside of the workspace so that reading the content fails
+		assertTrue(traversalOrder.get(errorIndex).getLocation().toFile().delete());
+		SpdxScanPipeline pipeline = new SpdxScanPipeline(null, scanFilter, 4, 3, 2);
+		RecordingHandler handler = new RecordingHandler();
+		try {
+			pipeline.scan(folders, handler, new NullProgressMonitor());
+			fail("Error reading a file did not stop the scan");
+		} catch (SpdxProjectException e) {
+			// expected
+		}
+		// only the files before the file in error were passed to the handler
+		assertEquals(traversalOrder.subList(0, errorIndex), handler.files);
+		assertEquals(threadsBefore, countPipelineThreads());
+	}
+
+	@Test
+	public void testHandlerError() throws Exception {
+		int threadsBefore = countPipelineThreads();
+		SpdxScanPipeline pipeline = new SpdxScanPipeline(null, scanFilter, 4, 3, 2);
+		final SpdxProjectException handlerError = new SpdxProjectException("Handler error");
+		try {
+			pipeline.scan(folders, new SpdxScanPipeline.ScanResultHandler() {
+
+				@Override
+				public void fileScanned(IFile file, long modificationStamp, String sha1,
+						ResolvedFileProperties properties) throws SpdxProjectException {
+					throw(handlerError);
+				}
+
+			}, new NullProgressMonitor());
+			fail("Handler error did not stop the scan");
+		} catch (SpdxProjectException e) {
+			assertSame(handlerError, e);
+		}
+		assertEquals(threadsBefore, countPipelineThreads());
+	}
+}
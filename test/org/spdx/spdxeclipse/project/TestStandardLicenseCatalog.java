@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.spdx.rdfparser.SPDXLicenseInfoFactory;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestStandardLicenseCatalog {
+
+	@Test
+	public void testGetCatalog() {
+		StandardLicenseCatalog catalog = StandardLicenseCatalog.getCatalog();
+		assertSame(catalog, StandardLicenseCatalog.getCatalog());
+		String[] expected = SPDXLicenseInfoFactory.getStandardLicenseIds();
+		assertEquals(expected.length, catalog.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertTrue(catalog.contains(expected[i]));
+		}
+		assertFalse(catalog.contains("LicenseRef-1"));
+	}
+
+	@Test
+	public void testGetLicenseIds() {
+		StandardLicenseCatalog catalog = new StandardLicenseCatalog(new String[] {"MIT", "Apache-2.0", "GPL-2.0"});
+		String[] ids = catalog.getLicenseIds();
+		assertArrayEquals(new String[] {"Apache-2.0", "GPL-2.0", "MIT"}, ids);
+		// the catalog can not be modified through the returned array
+		ids[0] = "changed";
+		assertEquals("Apache-2.0", catalog.getLicenseIds()[0]);
+		assertTrue(catalog.contains("MIT"));
+		assertFalse(catalog.contains("changed"));
+	}
+}
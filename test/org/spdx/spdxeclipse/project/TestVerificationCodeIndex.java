@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.project;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.spdx.rdfparser.DOAPProject;
+import org.spdx.rdfparser.SPDXFile;
+import org.spdx.rdfparser.SPDXLicenseInfo;
+import org.spdx.rdfparser.SPDXLicenseInfoFactory;
+import org.spdx.rdfparser.SpdxRdfConstants;
+
+/**
+ * Compares the incremental verification code index against the reference
+ * SpdxProject.calculatePackageVerificationCode implementation
+ * @author Gary O'Neall
+ *
+ */
+public class TestVerificationCodeIndex {
+
+	static final int NUM_OPERATIONS = 500;
+	static final int NUM_PATHS = 50;
+	static final int NUM_CHECKSUMS = 20;	// fewer checksums than paths to force duplicates
+
+	private SPDXLicenseInfo license;
+	private HashMap<String, SPDXFile> files;
+	private VerificationCodeIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		license = SPDXLicenseInfoFactory.parseSPDXLicenseString(SPDXLicenseInfoFactory.NOASSERTION_LICENSE_NAME);
+		files = new HashMap<String, SPDXFile>();
+		index = new VerificationCodeIndex();
+	}
+
+	private SPDXFile createFile(String path, String sha1) {
+		return new SPDXFile(path, SpdxRdfConstants.FILE_TYPE_SOURCE, sha1, license,
+				new SPDXLicenseInfo[] {license}, "", "", new DOAPProject[0], "", null,
+				new String[0], "");
+	}
+
+	private static String checksum(int i) {
+		String hex = Integer.toHexString(i);
+		StringBuilder sb = new StringBuilder();
+		for (int j = hex.length(); j < 40; j++) {
+			sb.append('0');
+		}
+		sb.append(hex);
+		return sb.toString();
+	}
+
+	private void put(String path, String sha1) {
+		files.put(path, createFile(path, sha1));
+		index.put(path, sha1);
+	}
+
+	private void remove(String path) {
+		files.remove(path);
+		index.remove(path);
+	}
+
+	private void assertMatchesReference(String[] excludedPaths) throws Exception {
+		String expected = SpdxProject.calculatePackageVerificationCode(files.values(),
+				new ArrayList<String>(Arrays.asList(excludedPaths))).getValue();
+		assertEquals(expected, index.getVerificationCodeValue(excludedPaths));
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		assertMatchesReference(new String[0]);
+	}
+
+	@Test
+	public void testAddUpdateRemove() throws Exception {
+		put("a.c", checksum(1));
+		put("b.c", checksum(2));
+		assertMatchesReference(new String[0]);
+		put("a.c", checksum(3));
+		assertMatchesReference(new String[0]);
+		put("c.c", checksum(2));	// duplicate checksum
+		assertMatchesReference(new String[0]);
+		remove("b.c");
+		assertMatchesReference(new String[0]);
+		remove("notthere.c");
+		assertMatchesReference(new String[0]);
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testExcluded() throws Exception {
+		put("a.c", checksum(1));
+		put("project.spdx", checksum(1));
+		put("b.c", checksum(2));
+		assertMatchesReference(new String[] {"project.spdx"});
+		assertMatchesReference(new String[0]);
+		assertMatchesReference(new String[] {"notthere.spdx"});
+	}
+
+	@Test
+	public void testIsChanged() throws Exception {
+		String[] excluded = new String[0];
+		assertTrue(index.isChanged(excluded));
+		index.getVerificationCodeValue(excluded);
+		assertFalse(index.isChanged(excluded));
+		put("a.c", checksum(1));
+		assertTrue(index.isChanged(excluded));
+		index.getVerificationCodeValue(excluded);
+		put("a.c", checksum(1));	// same value
+		assertFalse(index.isChanged(excluded));
+		assertTrue(index.isChanged(new String[] {"a.c"}));
+	}
+
+	@Test
+	public void testRandomOperations() throws Exception {
+		Random random = new Random(12345);
+		String[] excluded = new String[] {"file3.c"};
+		for (int i = 0; i < NUM_OPERATIONS; i++) {
+			String path = "file" + random.nextInt(NUM_PATHS) + ".c";
+			if (random.nextInt(4) == 0) {
+				remove(path);
+			} else {
+				put(path, checksum(random.nextInt(NUM_CHECKSUMS)));
+			}
+			if (i % 10 == 0) {
+				assertMatchesReference(excluded);
+			}
+		}
+		assertMatchesReference(excluded);
+		assertMatchesReference(new String[0]);
+	}
+}
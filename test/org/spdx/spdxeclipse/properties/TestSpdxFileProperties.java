@@ -20,6 +20,7 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.List;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -27,11 +28,13 @@ import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.QualifiedName;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.spdx.spdxeclipse.Activator;
 
 
 /**
@@ -177,4 +180,127 @@ public class TestSpdxFileProperties {
 
 	}
 
+	@Test
+	public void testPropertyCache() throws CoreException {
+		SpdxFilePropertyCache cache = SpdxFilePropertyCache.getCache(projectResource);
+		String copyright = "Cached Copyright";
+		SpdxFileProperties.setCopyright(file, copyright);
+		assertEquals(copyright, SpdxFileProperties.getCopyright(file));
+		assertEquals(1, cache.size());
+		// the setters keep the cache coherent with the property store
+		assertEquals(copyright, SpdxFileRecord.read(file).get(PropertyConstants.PROP_SPDX_FILE_COPYRIGHT));
+		SpdxFileProperties.setCopyright(file, "Changed");
+		assertEquals("Changed", SpdxFileProperties.getCopyright(file));
+		// defaults are refreshed when the project default changes
+		SpdxProjectProperties.setDefaultFileNotice(projectResource, "Default Notice");
+		assertEquals("Default Notice", cache.getDefaultFileNotice());
+		SpdxProjectProperties.setDefaultFileNotice(projectResource, "New Default Notice");
+		assertEquals("New Default Notice", cache.getDefaultFileNotice());
+		// a new file with the same name does not get the cached properties
+		file.delete(true, new NullProgressMonitor());
+		assertEquals(0, cache.size());
+		InputStream source = new ByteArrayInputStream("Source Text".getBytes());
+		file.create(source, true, new NullProgressMonitor());
+		assertNull(cache.getProperty(file, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT));
+	}
+
+	@Test
+	public void testRemoveDefaultValues() throws CoreException {
+		QualifiedName copyrightName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_COPYRIGHT);
+		QualifiedName noticeName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_NOTICE);
+		SpdxProjectProperties.setDefaultFileCopyright(projectResource, "Default Copyright");
+		// reading the default does not store it on the file
+		assertEquals("Default Copyright", SpdxFileProperties.getCopyright(file));
+		assertNull(file.getPersistentProperty(copyrightName));
+		// properties stored by earlier versions
+		file.setPersistentProperty(copyrightName, "Default Copyright");
+		file.setPersistentProperty(noticeName, "Not the default");
+		SpdxFilePropertyCache.getCache(projectResource).invalidate(file);
+		assertEquals(1, SpdxFileProperties.removeDefaultValues(projectResource, new NullProgressMonitor()));
+		assertNull(file.getPersistentProperty(copyrightName));
+		assertEquals("Not the default", SpdxFileProperties.getNotice(file));
+		assertEquals("Default Copyright", SpdxFileProperties.getCopyright(file));
+		// the file follows changes to the default
+		SpdxProjectProperties.setDefaultFileCopyright(projectResource, "New Default Copyright");
+		assertEquals("New Default Copyright", SpdxFileProperties.getCopyright(file));
+	}
+
+	@Test
+	public void testMigrateToRecords() throws CoreException {
+		QualifiedName commentName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_COMMENT);
+		QualifiedName contributorsName = new QualifiedName(Activator.PLUGIN_ID, PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS);
+		// properties stored by earlier versions
+		file.setPersistentProperty(commentName, "Legacy comment");
+		file.setPersistentProperty(contributorsName, "first; second");
+		SpdxFilePropertyCache.getCache(projectResource).invalidate(file);
+		assertEquals("Legacy comment", SpdxFileProperties.getComment(file));
+		assertArrayEquals(new String[] {"first", "second"}, SpdxFileProperties.getContributors(file));
+		assertEquals(1, SpdxFileProperties.migrateToRecords(projectResource, new NullProgressMonitor()));
+		assertNull(file.getPersistentProperty(commentName));
+		assertNull(file.getPersistentProperty(contributorsName));
+		assertEquals("Legacy comment", SpdxFileProperties.getComment(file));
+		assertArrayEquals(new String[] {"first", "second"}, SpdxFileProperties.getContributors(file));
+		assertEquals(0, SpdxFileProperties.migrateToRecords(projectResource, new NullProgressMonitor()));
+		// list items may contain the separator
+		String[] contributors = new String[] {"Smith; John", "Doe\\Jane"};
+		SpdxFileProperties.setContributors(file, contributors);
+		SpdxFilePropertyCache.getCache(projectResource).invalidate(file);
+		assertArrayEquals(contributors, SpdxFileProperties.getContributors(file));
+		// long values are split over more than one property
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append("Notice line ");
+			sb.append(i);
+			sb.append(";\n");
+		}
+		SpdxFileProperties.setNotice(file, sb.toString());
+		SpdxFilePropertyCache.getCache(projectResource).invalidate(file);
+		assertEquals(sb.toString(), SpdxFileProperties.getNotice(file));
+		assertEquals("Legacy comment", SpdxFileProperties.getComment(file));
+		SpdxFileProperties.setNotice(file, "short");
+		assertNull(file.getPersistentProperty(SpdxFileRecord.chunkName(1)));
+	}
+
+	@Test
+	public void testPropertyBatch() throws CoreException {
+		IFile file2 = projectResource.getFile("TestFile2.txt");
+		file2.create(new ByteArrayInputStream("Source Text 2".getBytes()), true, new NullProgressMonitor());
+		SpdxFileProperties.setCopyright(file, "Old Copyright");
+		SpdxFilePropertyBatch batch = new SpdxFilePropertyBatch();
+		batch.setConcludedLicense(file, "Apache-2.0");
+		batch.setConcludedLicense(file2, "MIT");
+		batch.setConcludedLicense(file2, "Apache-2.0");	// replaces the earlier change
+		batch.setCopyright(file, "Old Copyright");	// unchanged
+		batch.setContributors(file2, new String[] {"Smith; John", "Doe"});
+		assertEquals(4, batch.size());
+		List<SpdxFilePropertyBatch.PropertyChange> changes = batch.apply(new NullProgressMonitor());
+		assertEquals(3, changes.size());
+		assertEquals(0, batch.size());
+		assertEquals("Apache-2.0", SpdxFileProperties.getConcludedLicense(file));
+		assertEquals("Apache-2.0", SpdxFileProperties.getConcludedLicense(file2));
+		assertEquals("Old Copyright", SpdxFileProperties.getCopyright(file));
+		assertArrayEquals(new String[] {"Smith; John", "Doe"}, SpdxFileProperties.getContributors(file2));
+		SpdxFilePropertyCache.getCache(projectResource).invalidate(file2);
+		assertEquals("Apache-2.0", SpdxFileProperties.getConcludedLicense(file2));
+		file2.delete(true, new NullProgressMonitor());
+	}
+
+	@Test
+	public void testPropertyBatchInvalidLicense() throws CoreException {
+		SpdxFileProperties.setCopyright(file, "Old Copyright");
+		SpdxFileProperties.setConcludedLicense(file, "MIT");
+		SpdxFilePropertyBatch batch = new SpdxFilePropertyBatch();
+		batch.setCopyright(file, "New Copyright");
+		batch.setConcludedLicense(file, "(Apache-2.0 AND");
+		try {
+			batch.apply(new NullProgressMonitor());
+			fail("Invalid license was not rejected");
+		} catch (CoreException e) {
+			// expected
+		}
+		// none of the changes were stored
+		assertEquals("Old Copyright", SpdxFileProperties.getCopyright(file));
+		assertEquals("MIT", SpdxFileProperties.getConcludedLicense(file));
+	}
+
 }
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2015 Source Auditor Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+*/
+package org.spdx.spdxeclipse.properties;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Gary O'Neall
+ *
+ */
+public class TestSpdxFileRecord {
+
+	@Test
+	public void testEncodeDecode() throws ParseException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put(PropertyConstants.PROP_SPDX_FILE_COPYRIGHT, "Copyright; 2015 = \\ Source Auditor");
+		values.put(PropertyConstants.PROP_SPDX_FILE_COMMENT, "");
+		values.put(PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS,
+				SpdxFileRecord.encodeList(new String[] {"Smith; John", "Doe\\Jane"}));
+		String record = SpdxFileRecord.encode(values);
+		assertTrue(record.startsWith(String.valueOf(SpdxFileRecord.RECORD_VERSION)));
+		Map<String, String> result = SpdxFileRecord.decode(record);
+		assertEquals(values, result);
+		assertArrayEquals(new String[] {"Smith; John", "Doe\\Jane"},
+				SpdxFileRecord.decodeList(result.get(PropertyConstants.PROP_SPDX_FILE_CONTRIBUTORS)));
+		assertTrue(SpdxFileRecord.decode(SpdxFileRecord.encode(new HashMap<String, String>())).isEmpty());
+	}
+
+	@Test
+	public void testUnsupportedVersion() {
+		try {
+			SpdxFileRecord.decode(String.valueOf(SpdxFileRecord.RECORD_VERSION + 1) + ";name=value");
+			fail("Unsupported version decoded");
+		} catch (ParseException e) {
+			// expected
+		}
+		try {
+			SpdxFileRecord.decode(String.valueOf(SpdxFileRecord.RECORD_VERSION) + ";novalue");
+			fail("Invalid field decoded");
+		} catch (ParseException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testToChunks() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < SpdxFileRecord.MAX_PROPERTY_LENGTH * 2 + 10; i++) {
+			sb.append('a');
+		}
+		String[] chunks = SpdxFileRecord.toChunks(sb.toString());
+		assertEquals(3, chunks.length);
+		assertEquals(SpdxFileRecord.MAX_PROPERTY_LENGTH, chunks[0].length());
+		assertEquals(10, chunks[2].length());
+		assertEquals(1, SpdxFileRecord.toChunks("1").length);
+	}
+}
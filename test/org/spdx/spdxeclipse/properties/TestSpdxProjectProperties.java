@@ -20,14 +20,18 @@ import static org.junit.Assert.*;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.spdx.spdxeclipse.Activator;
+import org.spdx.spdxeclipse.preferences.PreferenceConstants;
 
 /**
  * @author Gary O'Neall
@@ -187,4 +191,28 @@ public class TestSpdxProjectProperties {
 		assertEquals(patterns[0], result[0]);
 		assertEquals(patterns[1], result[1]);		
 	}
+	
+	@Test
+	public void testPreferenceChange() throws CoreException {
+		IEclipsePreferences projectNode = new ProjectScope(projectResource).getNode(Activator.PLUGIN_ID);
+		String original = SpdxProjectProperties.getDefaultFileNotice(projectResource);
+		assertEquals(original, SpdxFilePropertyCache.getCache(projectResource).getDefaultFileNotice());
+		// the resolved preferences and cached defaults are refreshed when the preference changes
+		projectNode.put(PreferenceConstants.PREF_DEFAULT_SPDX_FILE_NOTICE, "Notice for "+PreferenceConstants.PROJECT_NAME);
+		try {
+			assertEquals("Notice for "+TEST_PROJECT_NAME, SpdxProjectProperties.getDefaultFileNotice(projectResource));
+			assertEquals("Notice for "+TEST_PROJECT_NAME, SpdxFilePropertyCache.getCache(projectResource).getDefaultFileNotice());
+		} finally {
+			projectNode.remove(PreferenceConstants.PREF_DEFAULT_SPDX_FILE_NOTICE);
+		}
+		assertEquals(original, SpdxProjectProperties.getDefaultFileNotice(projectResource));
+		assertEquals(original, SpdxFilePropertyCache.getCache(projectResource).getDefaultFileNotice());
+	}
+
+	@Test
+	public void testParseChecksumAlgorithms() {
+		assertArrayEquals(new String[] {"SHA-1"}, SpdxProjectProperties.parseChecksumAlgorithms(null));
+		assertArrayEquals(new String[] {"SHA-1"}, SpdxProjectProperties.parseChecksumAlgorithms(""));
+		assertArrayEquals(new String[] {"SHA-1", "SHA-256"}, SpdxProjectProperties.parseChecksumAlgorithms("SHA-1;SHA-256"));
+	}
 }